@@ -5,7 +5,9 @@ import java.util.Map;
 
 import net.finmath.exception.CalculationException;
 import net.finmath.modelling.Model;
+import net.finmath.montecarlo.MonteCarloSimulationModel;
 import net.finmath.montecarlo.assetderivativevaluation.AssetModelMonteCarloSimulationModel;
+import net.finmath.montecarlo.assetderivativevaluation.MonteCarloBlackScholesModel;
 import net.finmath.montecarlo.assetderivativevaluation.products.AbstractAssetMonteCarloProduct;
 import net.finmath.stochastic.RandomVariable;
 import net.finmath.stochastic.Scalar;
@@ -16,6 +18,9 @@ import net.finmath.stochastic.Scalar;
  * S(T) 1_{S(T)>K}.
  * Note that we have only to implement the method
  * getValue(final double evaluationTime, final AssetModelMonteCarloSimulationModel model).
+ * When the model is a MonteCarloBlackScholesModel, the method getValues also returns delta, gamma and vega of the option,
+ * computed on the same paths used for the valuation: since the payoff is discontinuous, its jump is not differentiated
+ * pathwise, but with the likelihood ratio method (i.e., differentiating the density of S(T)).
  *
  * @author Andrea Mazzon
  *
@@ -115,8 +120,7 @@ public class AssetOrNothing extends AbstractAssetMonteCarloProduct {
 		final Map<String, Object>  result = new HashMap<>();
 
 		try {
-			final double value = getValue(evaluationTime, (AssetModelMonteCarloSimulationModel) model).getAverage();
-			result.put("value", value);
+			result.putAll(getValues(evaluationTime, (AssetModelMonteCarloSimulationModel) model));
 		} catch (final CalculationException e) {
 			result.put("exception", e);
 		}
@@ -124,6 +128,99 @@ public class AssetOrNothing extends AbstractAssetMonteCarloProduct {
 		return result;
 	}
 
+	/**
+	 * This method returns a map with the value of the product (key "value") and its Monte-Carlo error (key "error").
+	 * If the model is a MonteCarloBlackScholesModel and the evaluation time is 0, the map also contains delta, gamma and
+	 * vega of the option (keys "delta", "gamma" and "vega"), computed from the same paths of the valuation.
+	 *
+	 * @param evaluationTime The time on which this products value should be observed.
+	 * @param model The model used to price the product. It gives the underlying of the option.
+	 * @return The map with the value and, possibly, the greeks of the product
+	 * @throws net.finmath.exception.CalculationException Thrown if the valuation fails, specific cause may be available via the <code>cause()</code> method.
+	 */
+	@Override
+	public Map<String, Object> getValues(final double evaluationTime, final MonteCarloSimulationModel model) throws CalculationException {
+		final Map<String, Object>  result = new HashMap<>();
+
+		final RandomVariable values = getValue(evaluationTime, model);
+		result.put("value", values.getAverage());
+		result.put("error", values.getStandardError());
+		if (evaluationTime == 0.0 && model instanceof MonteCarloBlackScholesModel) {
+			result.putAll(getSmoothedGreeks(values, (MonteCarloBlackScholesModel) model));
+		}
+
+		return result;
+	}
+
+	/**
+	 * It computes delta, gamma and vega of the option under the Black-Scholes model, on the same paths used for the valuation.
+	 * The payoff is split as S(T) 1_{S(T)>K} = max(S(T)-K,0) + K 1_{S(T)>K}: the first, continuous part is differentiated
+	 * pathwise, whereas for the second, discontinuous part we use the likelihood ratio method, i.e., we multiply the
+	 * payoff by the derivatives of the logarithm of the density of S(T) with respect to S(0) and sigma. Writing
+	 * Z = (log(S(T)/S(0)) - (r - sigma^2/2)T)/(sigma sqrt(T)),
+	 * the likelihood ratio weights are
+	 * Z/(S(0) sigma sqrt(T)) for the delta,
+	 * (Z^2 - 1 - Z sigma sqrt(T))/(S(0)^2 sigma^2 T) for the gamma,
+	 * (Z^2 - 1)/sigma - Z sqrt(T) for the vega.
+	 * The gamma is computed with the likelihood ratio method for the whole payoff.
+	 *
+	 * @param discountedPayoff The random variable representing the value of the product at time 0, path by path
+	 * @param model The Black-Scholes model used to price the product
+	 * @return a map with keys "delta", "gamma" and "vega"
+	 * @throws CalculationException Thrown if the valuation fails
+	 */
+	private Map<String, Object> getSmoothedGreeks(final RandomVariable discountedPayoff,
+			final MonteCarloBlackScholesModel model) throws CalculationException {
+		final double initialValue = model.getAssetValue(0.0, underlyingIndex).getAverage();
+		final double riskFreeRate = model.getModel().getRiskFreeRate().getAverage();
+		final double volatility = model.getModel().getVolatility().getAverage();
+		final double squareRootOfMaturity = Math.sqrt(maturity);
+
+		final RandomVariable underlyingAtMaturity = model.getAssetValue(maturity, underlyingIndex);
+
+		// the standard normal random variable driving S(T)
+		final RandomVariable standardNormal = underlyingAtMaturity.div(initialValue).log()
+				.sub((riskFreeRate - 0.5 * volatility * volatility) * maturity).div(volatility * squareRootOfMaturity);
+		final RandomVariable standardNormalSquaredMinusOne = standardNormal.squared().sub(1.0);
+
+		// likelihood ratio weights
+		final RandomVariable deltaWeight = standardNormal.div(initialValue * volatility * squareRootOfMaturity);
+		final RandomVariable gammaWeight = standardNormalSquaredMinusOne.sub(standardNormal.mult(volatility * squareRootOfMaturity))
+				.div(initialValue * initialValue * volatility * volatility * maturity);
+		final RandomVariable vegaWeight = standardNormalSquaredMinusOne.div(volatility).sub(standardNormal.mult(squareRootOfMaturity));
+
+		// discount factor as in getValue, and the discounted indicator of the exercise
+		final RandomVariable discountFactor = model.getMonteCarloWeights(maturity).div(model.getNumeraire(maturity))
+				.mult(model.getNumeraire(0.0)).div(model.getMonteCarloWeights(0.0));
+		final RandomVariable discountedIndicator = (underlyingAtMaturity.sub(strike))
+				.choose(new Scalar(1.0), new Scalar(0.0)).mult(discountFactor);
+
+		/*
+		 * All the likelihood ratio weights have zero expectation: we can then subtract the average of the discontinuous
+		 * part of the payoff (and of the whole payoff for the gamma) without changing the expectations, but reducing the
+		 * variance of the estimators.
+		 */
+		final RandomVariable centeredDigitalPart = discountedIndicator.sub(discountedIndicator.getAverage()).mult(strike);
+		final RandomVariable centeredPayoff = discountedPayoff.sub(discountedPayoff.getAverage());
+
+		// pathwise derivatives of S(T) with respect to S(0) and sigma
+		final RandomVariable underlyingDerivativeWithRespectToInitialValue = underlyingAtMaturity.div(initialValue);
+		final RandomVariable underlyingDerivativeWithRespectToVolatility = underlyingAtMaturity.mult(
+				standardNormal.mult(squareRootOfMaturity).sub(volatility * maturity));
+
+		final double delta = discountedIndicator.mult(underlyingDerivativeWithRespectToInitialValue).getAverage()
+				+ centeredDigitalPart.mult(deltaWeight).getAverage();
+		final double vega = discountedIndicator.mult(underlyingDerivativeWithRespectToVolatility).getAverage()
+				+ centeredDigitalPart.mult(vegaWeight).getAverage();
+		final double gamma = centeredPayoff.mult(gammaWeight).getAverage();
+
+		final Map<String, Object> greeks = new HashMap<>();
+		greeks.put("delta", delta);
+		greeks.put("gamma", gamma);
+		greeks.put("vega", vega);
+		return greeks;
+	}
+
 	@Override
 	public String toString() {
 		return "EuropeanOption [maturity=" + maturity + ", strike=" + strike + ", underlyingIndex=" + underlyingIndex
@@ -0,0 +1,181 @@
+package com.andreamazzon.exercise1;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import net.finmath.exception.CalculationException;
+import net.finmath.montecarlo.assetderivativevaluation.AssetModelMonteCarloSimulationModel;
+import net.finmath.stochastic.RandomVariable;
+
+/**
+ * This class represents a "ladder" of options written on the same underlying S and with the same maturity T, but with
+ * different strikes K_1, ..., K_m. For every strike, it computes both the value of the asset or nothing option, with payoff
+ * S(T) 1_{S(T)>K}, and of the European call option, with payoff max(S(T)-K,0), at evaluation time t = 0.
+ * The point is that all the values are computed with only one traversal of the simulated paths: the asset, the numeraire
+ * and the Monte-Carlo weights are fetched once, and every path is assigned to the "bucket" between two consecutive
+ * (sorted) strikes it falls into. The values for all the strikes are then given by suffix sums over the buckets. In this
+ * way, the cost is O(N log m + m) instead of O(N m), where N is the number of paths.
+ *
+ * @author Andrea Mazzon
+ *
+ */
+public class OptionStrikeLadder {
+
+	private final double maturity;
+	private final double[] strikes;
+	private final int underlyingIndex;//it can be useful if we have a multi-dimensional process. Otherwise, it is always 0
+
+	/**
+	 * Construct a ladder of options on an asset S (where S is the asset with index underlyingIndex from the model).
+	 * @param maturity The maturity T in the option payoffs
+	 * @param strikes The strikes K_1, ..., K_m of the options. They do not need to be sorted.
+	 * @param underlyingIndex The index of the underlying to be fetched from the model.
+	 */
+	public OptionStrikeLadder(final double maturity, final double[] strikes, final int underlyingIndex) {
+		this.maturity			= maturity;
+		this.strikes			= strikes.clone();
+		this.underlyingIndex	= underlyingIndex;
+	}
+
+	/**
+	 * Construct a ladder of options on an asset S (where S is the asset with index 0 from the model).
+	 * @param maturity The maturity T in the option payoffs
+	 * @param strikes The strikes K_1, ..., K_m of the options. They do not need to be sorted.
+	 */
+	public OptionStrikeLadder(final double maturity, final double[] strikes) {
+		this(maturity, strikes, 0);
+	}
+
+	/**
+	 * It returns the values at time t = 0 of the asset or nothing options of the ladder.
+	 *
+	 * @param model The model used to price the products. It gives the underlying of the options.
+	 * @return the array of the values, in the same order as the strikes given in the constructor
+	 * @throws CalculationException Thrown if the valuation fails
+	 */
+	public double[] getAssetOrNothingValues(final AssetModelMonteCarloSimulationModel model) throws CalculationException {
+		return getLadderValues(model)[0];
+	}
+
+	/**
+	 * It returns the values at time t = 0 of the European call options of the ladder.
+	 *
+	 * @param model The model used to price the products. It gives the underlying of the options.
+	 * @return the array of the values, in the same order as the strikes given in the constructor
+	 * @throws CalculationException Thrown if the valuation fails
+	 */
+	public double[] getEuropeanOptionValues(final AssetModelMonteCarloSimulationModel model) throws CalculationException {
+		return getLadderValues(model)[1];
+	}
+
+	/**
+	 * It returns a map with the values at time t = 0 of both the asset or nothing options (key "assetOrNothing")
+	 * and of the European call options (key "europeanOption") of the ladder, computed with a single traversal
+	 * of the paths. If the valuation fails, the exception is stored with key "exception".
+	 *
+	 * @param model The model used to price the products. It gives the underlying of the options.
+	 * @return the map of the values
+	 */
+	public Map<String, Object> getValues(final AssetModelMonteCarloSimulationModel model) {
+		final Map<String, Object>  result = new HashMap<>();
+
+		try {
+			final double[][] values = getLadderValues(model);
+			result.put("assetOrNothing", values[0]);
+			result.put("europeanOption", values[1]);
+		} catch (final CalculationException e) {
+			result.put("exception", e);
+		}
+
+		return result;
+	}
+
+	/*
+	 * Here is where the single traversal of the paths takes place. It returns a matrix whose first row contains the
+	 * values of the asset or nothing options and whose second row contains the values of the European options.
+	 */
+	private double[][] getLadderValues(final AssetModelMonteCarloSimulationModel model) throws CalculationException {
+
+		// Get S(T)
+		final RandomVariable underlyingAtMaturity	= model.getAssetValue(maturity, underlyingIndex);
+
+		// The discount factor for every path: w(T)/N(T) * N(0)/w(0), as in AssetOrNothing
+		final RandomVariable discountFactor = model.getMonteCarloWeights(maturity).div(model.getNumeraire(maturity))
+				.mult(model.getNumeraire(0.0)).div(model.getMonteCarloWeights(0.0));
+
+		final int numberOfStrikes = strikes.length;
+		final double[] sortedStrikes = strikes.clone();
+		Arrays.sort(sortedStrikes);
+
+		/*
+		 * bucket j collects the paths for which exactly j strikes are smaller or equal than S(T): these paths contribute
+		 * to the payoff of the options with (sorted) strikes K_1, ..., K_j. We accumulate both the sum of S(T) times the
+		 * discount factor and the sum of the discount factors.
+		 */
+		final double[] sumOfDiscountedUnderlying = new double[numberOfStrikes + 1];
+		final double[] sumOfDiscountFactors = new double[numberOfStrikes + 1];
+
+		final int numberOfPaths = model.getNumberOfPaths();
+		for (int pathIndex = 0; pathIndex < numberOfPaths; pathIndex++) {
+			final double underlying = underlyingAtMaturity.get(pathIndex);
+			final double discount = discountFactor.get(pathIndex);
+			final int bucket = numberOfStrikesSmallerOrEqual(sortedStrikes, underlying);
+			sumOfDiscountedUnderlying[bucket] += underlying * discount;
+			sumOfDiscountFactors[bucket] += discount;
+		}
+
+		// suffix sums: the option with sorted strike K_{j+1} gets the contributions of all the buckets from j+1 on
+		final double[] assetOrNothingValuesForSortedStrikes = new double[numberOfStrikes];
+		final double[] europeanValuesForSortedStrikes = new double[numberOfStrikes];
+		double suffixSumOfDiscountedUnderlying = 0.0;
+		double suffixSumOfDiscountFactors = 0.0;
+		for (int strikeIndex = numberOfStrikes - 1; strikeIndex >= 0; strikeIndex--) {
+			suffixSumOfDiscountedUnderlying += sumOfDiscountedUnderlying[strikeIndex + 1];
+			suffixSumOfDiscountFactors += sumOfDiscountFactors[strikeIndex + 1];
+			assetOrNothingValuesForSortedStrikes[strikeIndex] = suffixSumOfDiscountedUnderlying / numberOfPaths;
+			// sum of (S(T)-K) d over the paths where S(T) >= K
+			europeanValuesForSortedStrikes[strikeIndex] = (suffixSumOfDiscountedUnderlying
+					- sortedStrikes[strikeIndex] * suffixSumOfDiscountFactors) / numberOfPaths;
+		}
+
+		// we give the values back in the order of the strikes given in the constructor
+		final double[][] values = new double[2][numberOfStrikes];
+		for (int strikeIndex = 0; strikeIndex < numberOfStrikes; strikeIndex++) {
+			final int sortedIndex = Arrays.binarySearch(sortedStrikes, strikes[strikeIndex]);
+			values[0][strikeIndex] = assetOrNothingValuesForSortedStrikes[sortedIndex];
+			values[1][strikeIndex] = europeanValuesForSortedStrikes[sortedIndex];
+		}
+		return values;
+	}
+
+	/*
+	 * Binary search returning the number of elements of the sorted array which are smaller or equal than the given value
+	 */
+	private static int numberOfStrikesSmallerOrEqual(final double[] sortedStrikes, final double value) {
+		int low = 0;
+		int high = sortedStrikes.length;
+		while (low < high) {
+			final int middle = (low + high) >>> 1;
+			if (sortedStrikes[middle] <= value) {
+				low = middle + 1;
+			}
+			else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	public double getMaturity() {
+		return maturity;
+	}
+
+	public double[] getStrikes() {
+		return strikes.clone();
+	}
+
+	public int getUnderlyingIndex() {
+		return underlyingIndex;
+	}
+}
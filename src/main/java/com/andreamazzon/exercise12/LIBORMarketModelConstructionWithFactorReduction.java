@@ -132,6 +132,50 @@ public class LIBORMarketModelConstructionWithFactorReduction {
 			int numberOfFactors
 			)
 					throws CalculationException {
+		return createLIBORMarketModel(numberOfPaths, simulationTimeStep, LIBORPeriodLength, LIBORRateTimeHorizon,
+				fixingForGivenForwards, givenForwards, correlationDecayParam, dynamics, measureType, a, b, c, d,
+				numberOfFactors, new RandomVariableFromArrayFactory());
+	}
+
+	/**
+	 * It simulates a LIBOR Market Model as the method above, but the random variables of the simulation (the Brownian
+	 * increments and the LIBOR processes) are constructed by the given RandomVariableFactory. For example, with a
+	 * RandomVariableFloatFactory the realizations are stored in single precision, so that the simulation needs half of
+	 * the memory: the error we make is well below the Monte Carlo error, also because the averages are still computed
+	 * in double precision.
+	 * @param numberOfPaths: number of simulations
+	 * @param simulationTimeStep: the time step for the simulation of the LIBOR processes
+	 * @param LIBORPeriodLength: the length of the interval between times of the tenure structure
+	 * @param LIBORRateTimeHorizon: final LIBOR maturity
+	 * @param fixingForGivenForwards: the times of the tenure structure where the initial forwards are given
+	 * @param givenForwards: the given initial forwards (from which the others are interpolated)
+	 * @param correlationDecayParam, parameter \alpha>0, for the correlation of the LIBORs
+	 * @param dynamics, normal or log-normal dynamics
+	 * @param measureType, spot or terminal measure
+	 * @param a, the first term for the volatility structure
+	 * @param b, the second term for the volatility structure
+	 * @param c, the third term for the volatility structure
+	 * @param d, the fourth term for the volatility structure
+	 * @param numberOfFactors, the number of factors considered in the model
+	 * @param randomVariableFactory, the factory constructing the random variables of the simulation
+	 * @return an object implementing LIBORModelMonteCarloSimulationModel, i.e., representing the simulation of a LMM
+	 * @throws CalculationException
+	 */
+	public static LIBORModelMonteCarloSimulationModel
+	createLIBORMarketModel(int numberOfPaths,
+			double simulationTimeStep,
+			double LIBORPeriodLength, //T_i-T_{i-1}, we suppose it to be fixed
+			double LIBORRateTimeHorizon, //T_n
+			double[] fixingForGivenForwards,
+			double[] givenForwards,
+			double correlationDecayParam, // decay of the correlation between LIBOR rates
+			Dynamics dynamics,
+			Measure measureType,
+			double a, double b, double c, double d,
+			int numberOfFactors,
+			RandomVariableFactory randomVariableFactory
+			)
+					throws CalculationException {
 		/*
 		 In order to simulate a LIBOR market model, we need to proceed along the following steps:
 		 1) provide the time discretization for the evolution of the processes
@@ -264,11 +308,10 @@ public class LIBORMarketModelConstructionWithFactorReduction {
 		}
 
 		/*
-		 *  Empty array of calibration items and a RandomVariableFactory, to be given to the constructor of
-		 *  LIBORMarketModelFromCovarianceModel
+		 *  Empty array of calibration items, to be given to the constructor of LIBORMarketModelFromCovarianceModel
+		 *  together with the RandomVariableFactory
 		 */
 		final CalibrationProduct[] calibrationItems = new CalibrationProduct[0];
-		final RandomVariableFactory randomVariableFactory = new RandomVariableFromArrayFactory();
 
 		/*
 		 *  LIBORMarketModelFromCovarianceModel is another class implementing LiborMarketModel, like LIBORMarketModelStandard.
@@ -287,7 +330,8 @@ public class LIBORMarketModelConstructionWithFactorReduction {
 				timeDiscretization,
 				numberOfFactors,//here we maybe perform factor reduction
 				numberOfPaths,
-				1897 // seed
+				1897, // seed
+				randomVariableFactory //the Brownian increments are constructed with the same factory
 				);
 
 		final MonteCarloProcess process = new
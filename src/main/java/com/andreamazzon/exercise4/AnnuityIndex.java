@@ -0,0 +1,96 @@
+package com.andreamazzon.exercise4;
+
+import java.util.Arrays;
+
+import net.finmath.time.TimeDiscretization;
+
+/**
+ * This class precomputes the cumulative sums of a zero coupon bond curve, so that the annuity and the par swap rate of
+ * a swap on any sub-period of the tenure structure can be computed with one subtraction instead of a loop.
+ * As in SwapWithoutFinmath, zeroBondCurve[k] = P(T_{k+1};0) for the dates T_1,...,T_n. We store
+ * annuitySums[k] = sum_{m=1}^{k} (T_{m+1}-T_m) P(T_{m+1};0),
+ * bondSums[k] = sum_{m=1}^{k} P(T_{m+1};0),
+ * with annuitySums[0] = bondSums[0] = 0. The annuity of the swap starting at T_{s+1} and ending at T_{e+1} is then
+ * annuitySums[e] - annuitySums[s].
+ * The curve is copied by the constructor: if it changes, a new index has to be constructed.
+ *
+ * @author Andrea Mazzon
+ */
+public class AnnuityIndex {
+
+	private final double[] zeroBondCurve;
+	private final double[] annuitySums;
+	private final double[] bondSums;
+
+	/**
+	 * @param swapDates, the tenure structure T_1,...,T_n
+	 * @param zeroBondCurve, the zero coupon bonds P(T_1;0),...,P(T_n;0)
+	 */
+	public AnnuityIndex(TimeDiscretization swapDates, double[] zeroBondCurve) {
+		this.zeroBondCurve = zeroBondCurve.clone();
+		final int curveLength = zeroBondCurve.length;
+		annuitySums = new double[curveLength];
+		bondSums = new double[curveLength];
+		for (int curveIndex = 1; curveIndex < curveLength; curveIndex++) {
+			annuitySums[curveIndex] = annuitySums[curveIndex - 1]
+					+ zeroBondCurve[curveIndex] * swapDates.getTimeStep(curveIndex - 1);
+			bondSums[curveIndex] = bondSums[curveIndex - 1] + zeroBondCurve[curveIndex];
+		}
+	}
+
+	/**
+	 * It returns the annuity sum_{k=s+1}^{e} (T_{k+1}-T_k) P(T_{k+1};0) of the swap from T_{s+1} to T_{e+1}.
+	 *
+	 * @param startIndex, the index s of the start date in the curve
+	 * @param endIndex, the index e of the end date in the curve
+	 * @return the annuity
+	 */
+	public double getAnnuity(int startIndex, int endIndex) {
+		return annuitySums[endIndex] - annuitySums[startIndex];
+	}
+
+	/**
+	 * It returns the sum of the bonds sum_{k=s+1}^{e} P(T_{k+1};0): multiplied by the time step, this is the annuity
+	 * when the dates are evenly distributed.
+	 *
+	 * @param startIndex, the index s of the start date in the curve
+	 * @param endIndex, the index e of the end date in the curve
+	 * @return the sum of the bonds
+	 */
+	public double getSumOfBonds(int startIndex, int endIndex) {
+		return bondSums[endIndex] - bondSums[startIndex];
+	}
+
+	/**
+	 * It returns the par swap rate (P(T_{s+1};0) - P(T_{e+1};0)) / annuity of the swap from T_{s+1} to T_{e+1}.
+	 *
+	 * @param startIndex, the index s of the start date in the curve
+	 * @param endIndex, the index e of the end date in the curve
+	 * @return the par swap rate
+	 */
+	public double getParSwapRate(int startIndex, int endIndex) {
+		return (zeroBondCurve[startIndex] - zeroBondCurve[endIndex]) / getAnnuity(startIndex, endIndex);
+	}
+
+	/**
+	 * It returns the matrix of the par swap rates of all the swaps on the tenure structure: the entry [s][e] is the par
+	 * swap rate of the swap from T_{s+1} to T_{e+1} for s < e, and it is NaN for s >= e.
+	 *
+	 * @return the matrix of the par swap rates
+	 */
+	public double[][] getParSwapRateMatrix() {
+		final int curveLength = zeroBondCurve.length;
+		final double[][] parSwapRates = new double[curveLength][curveLength];
+		for (int startIndex = 0; startIndex < curveLength; startIndex++) {
+			Arrays.fill(parSwapRates[startIndex], 0, startIndex + 1, Double.NaN);
+			for (int endIndex = startIndex + 1; endIndex < curveLength; endIndex++) {
+				parSwapRates[startIndex][endIndex] = getParSwapRate(startIndex, endIndex);
+			}
+		}
+		return parSwapRates;
+	}
+
+	public int getCurveLength() {
+		return zeroBondCurve.length;
+	}
+}
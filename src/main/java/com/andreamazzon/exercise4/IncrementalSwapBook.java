@@ -0,0 +1,175 @@
+package com.andreamazzon.exercise4;
+
+import net.finmath.time.TimeDiscretization;
+
+/**
+ * This class represents a book of swaps (as in SwapBook) whose values are updated incrementally when a single zero
+ * coupon bond of the curve changes, instead of being computed again from scratch.
+ * For every swap we store the two sums which give its value, i.e., the floating leg P(T_{s+1};0) - P(T_{e+1};0) and
+ * the annuity sum_{k=s+1}^{e} (T_{k+1}-T_k) P(T_{k+1};0). A change dP of the bond P(T_{k+1};0) only affects the
+ * swaps with s <= k <= e:
+ * - if k = s, the floating leg changes by dP;
+ * - if s < k <= e, the annuity changes by (T_{k+1}-T_k) dP, and if moreover k = e the floating leg changes by -dP.
+ * For every node k of the curve we then store the list of the swaps affected by it, in a compressed format: the
+ * indices of the swaps affected by node k are swapsOfNodes[firstSwapOfNode[k]], ..., swapsOfNodes[firstSwapOfNode[k+1]-1].
+ * In this way, the update of one bond costs a constant time for every affected swap, and nothing for the others.
+ * Since the sums are updated many times, they may slowly accumulate rounding errors: they can be computed again from
+ * the curve by calling recomputeAll().
+ *
+ * @author Andrea Mazzon
+ */
+public class IncrementalSwapBook {
+
+	private final TimeDiscretization swapDates; //tenure structure, starting from T_1
+	private final double[] zeroBondCurve;//a copy of the given curve, updated by updateZeroBond
+
+	//the swaps, by column
+	private final double[] notionals;
+	private final double[] fixedRates;
+	private final int[] startIndices;
+	private final int[] endIndices;
+
+	//the sums giving the value of every swap
+	private final double[] floatingLegs;
+	private final double[] annuities;
+	private final double[] values;
+	private double bookValue;
+
+	//the swaps affected by every node of the curve, in compressed format
+	private final int[] firstSwapOfNode;
+	private final int[] swapsOfNodes;
+
+	/**
+	 * @param swapDates, the tenure structure T_1,...,T_n
+	 * @param zeroBondCurve, the zero coupon bonds P(T_1;0),...,P(T_n;0): the array is copied
+	 * @param notionals, the notionals of the swaps: the array is copied
+	 * @param fixedRates, the fixed rates of the swaps: the array is copied
+	 * @param startIndices, the indices in the curve of the start dates of the swaps: the array is copied
+	 * @param endIndices, the indices in the curve of the end dates of the swaps: the array is copied
+	 */
+	public IncrementalSwapBook(TimeDiscretization swapDates, double[] zeroBondCurve, double[] notionals,
+			double[] fixedRates, int[] startIndices, int[] endIndices) {
+		this.swapDates = swapDates;
+		this.zeroBondCurve = zeroBondCurve.clone();
+		//the swaps are copied, and then checked on the copies
+		this.notionals = notionals.clone();
+		this.fixedRates = fixedRates.clone();
+		this.startIndices = startIndices.clone();
+		this.endIndices = endIndices.clone();
+		SwapBook.validate(this.zeroBondCurve, this.notionals, this.fixedRates, this.startIndices, this.endIndices);
+
+		final int numberOfSwaps = this.notionals.length;
+		final int curveLength = this.zeroBondCurve.length;
+
+		//we first count the swaps affected by every node, then we fill the lists
+		firstSwapOfNode = new int[curveLength + 1];
+		for (int swapIndex = 0; swapIndex < numberOfSwaps; swapIndex++) {
+			for (int curveIndex = this.startIndices[swapIndex]; curveIndex <= this.endIndices[swapIndex]; curveIndex++) {
+				firstSwapOfNode[curveIndex + 1]++;
+			}
+		}
+		for (int curveIndex = 0; curveIndex < curveLength; curveIndex++) {
+			firstSwapOfNode[curveIndex + 1] += firstSwapOfNode[curveIndex];
+		}
+
+		swapsOfNodes = new int[firstSwapOfNode[curveLength]];
+		final int[] nextPositionOfNode = firstSwapOfNode.clone();
+		for (int swapIndex = 0; swapIndex < numberOfSwaps; swapIndex++) {
+			for (int curveIndex = this.startIndices[swapIndex]; curveIndex <= this.endIndices[swapIndex]; curveIndex++) {
+				swapsOfNodes[nextPositionOfNode[curveIndex]++] = swapIndex;
+			}
+		}
+
+		floatingLegs = new double[numberOfSwaps];
+		annuities = new double[numberOfSwaps];
+		values = new double[numberOfSwaps];
+		recomputeAll();
+	}
+
+	/**
+	 * It computes again all the sums and the values of the swaps from the current curve.
+	 */
+	public void recomputeAll() {
+		final AnnuityIndex annuityIndex = new AnnuityIndex(swapDates, zeroBondCurve);
+		bookValue = 0.0;
+		for (int swapIndex = 0; swapIndex < notionals.length; swapIndex++) {
+			final int startIndex = startIndices[swapIndex];
+			final int endIndex = endIndices[swapIndex];
+			floatingLegs[swapIndex] = zeroBondCurve[startIndex] - zeroBondCurve[endIndex];
+			annuities[swapIndex] = annuityIndex.getAnnuity(startIndex, endIndex);
+			values[swapIndex] = notionals[swapIndex] * (floatingLegs[swapIndex] - fixedRates[swapIndex] * annuities[swapIndex]);
+			bookValue += values[swapIndex];
+		}
+	}
+
+	/**
+	 * It changes the zero coupon bond P(T_{curveIndex+1};0) of the curve and updates the values of the swaps depending
+	 * on it.
+	 *
+	 * @param curveIndex, the index of the bond in the curve
+	 * @param newZeroBond, the new value of the bond
+	 */
+	public void updateZeroBond(int curveIndex, double newZeroBond) {
+		final double change = newZeroBond - zeroBondCurve[curveIndex];
+		zeroBondCurve[curveIndex] = newZeroBond;
+		//the coupon paid at T_{k+1} is accrued on [T_k,T_{k+1}]: this is not used if curveIndex = 0
+		final double accrualChange = curveIndex > 0 ? swapDates.getTimeStep(curveIndex - 1) * change : 0.0;
+
+		for (int position = firstSwapOfNode[curveIndex]; position < firstSwapOfNode[curveIndex + 1]; position++) {
+			final int swapIndex = swapsOfNodes[position];
+			if (curveIndex == startIndices[swapIndex]) {
+				floatingLegs[swapIndex] += change;
+			} else {
+				annuities[swapIndex] += accrualChange;
+				if (curveIndex == endIndices[swapIndex]) {
+					floatingLegs[swapIndex] -= change;
+				}
+			}
+			final double newValue = notionals[swapIndex]
+					* (floatingLegs[swapIndex] - fixedRates[swapIndex] * annuities[swapIndex]);
+			bookValue += newValue - values[swapIndex];
+			values[swapIndex] = newValue;
+		}
+	}
+
+	/**
+	 * @param swapIndex, the index of the swap in the book
+	 * @return the current value of the swap
+	 */
+	public double getValue(int swapIndex) {
+		return values[swapIndex];
+	}
+
+	/**
+	 * @return a copy of the current values of all the swaps
+	 */
+	public double[] getValues() {
+		return values.clone();
+	}
+
+	/**
+	 * @return the current value of the whole book
+	 */
+	public double getBookValue() {
+		return bookValue;
+	}
+
+	/**
+	 * @param curveIndex, the index of a bond in the curve
+	 * @return the number of swaps whose value depends on the bond
+	 */
+	public int getNumberOfSwapsAffectedByNode(int curveIndex) {
+		return firstSwapOfNode[curveIndex + 1] - firstSwapOfNode[curveIndex];
+	}
+
+	/**
+	 * @return a copy of the current zero coupon bond curve
+	 */
+	public double[] getZeroBondCurve() {
+		return zeroBondCurve.clone();
+	}
+
+	public int getNumberOfSwaps() {
+		return notionals.length;
+	}
+}
@@ -0,0 +1,156 @@
+package com.andreamazzon.exercise4;
+
+import java.util.stream.IntStream;
+
+import net.finmath.time.TimeDiscretization;
+
+/**
+ * This class represents a book of many swaps, all valued on the same zero coupon bond curve. Differently from
+ * SwapWithoutFinmath, where every swap is an object with its own curve, here the swaps are stored "by column": the
+ * notionals, the fixed rates and the indices of the first and last dates of all the swaps are stored in four arrays
+ * of primitive types, and the curve is shared by all of them. All the values and all the par swap rates are then
+ * computed in one loop over these arrays, possibly split among the cores of the processor. The annuities are read
+ * from an AnnuityIndex of the curve, so that the cost of every swap does not depend on its length.
+ * As in SwapWithoutFinmath, zeroBondCurve[k] = P(T_{k+1};0) for the dates T_1,...,T_n of the tenure structure. A swap
+ * with start index s and end index e has floating legs on the periods [T_{k},T_{k+1}] for k = s+1,...,e, i.e., its
+ * value is
+ * N (P(T_{s+1};0) - P(T_{e+1};0) - K sum_{k=s+1}^{e} (T_{k+1}-T_k) P(T_{k+1};0)).
+ * For s = 0 and e = n - 1 this is the swap of SwapWithoutFinmath.
+ *
+ * @author Andrea Mazzon
+ */
+public class SwapBook {
+
+	//the book is split in chunks of this size, which are valued in parallel if required
+	private static final int CHUNK_SIZE = 4096;
+
+	private final TimeDiscretization swapDates; //tenure structure, starting from T_1
+	private final double[] zeroBondCurve;//shared by all the swaps, not copied
+
+	//the swaps, by column
+	private final double[] notionals;
+	private final double[] fixedRates;
+	private final int[] startIndices;
+	private final int[] endIndices;
+
+	private final int numberOfSwaps;
+
+	/**
+	 * @param swapDates, the tenure structure T_1,...,T_n
+	 * @param zeroBondCurve, the zero coupon bonds P(T_1;0),...,P(T_n;0)
+	 * @param notionals, the notionals of the swaps
+	 * @param fixedRates, the fixed rates of the swaps
+	 * @param startIndices, the indices in the curve of the start dates of the swaps
+	 * @param endIndices, the indices in the curve of the end dates of the swaps
+	 */
+	public SwapBook(TimeDiscretization swapDates, double[] zeroBondCurve, double[] notionals, double[] fixedRates,
+			int[] startIndices, int[] endIndices) {
+		validate(zeroBondCurve, notionals, fixedRates, startIndices, endIndices);
+		numberOfSwaps = notionals.length;
+		this.swapDates = swapDates;
+		this.zeroBondCurve = zeroBondCurve;
+		this.notionals = notionals;
+		this.fixedRates = fixedRates;
+		this.startIndices = startIndices;
+		this.endIndices = endIndices;
+	}
+
+	/*
+	 * It checks that the arrays describe valid swaps on the given curve: they must have the same length, and every swap
+	 * must start and end within the curve, with the end after the start.
+	 */
+	static void validate(double[] zeroBondCurve, double[] notionals, double[] fixedRates, int[] startIndices,
+			int[] endIndices) {
+		final int numberOfSwaps = notionals.length;
+		if (fixedRates.length != numberOfSwaps || startIndices.length != numberOfSwaps || endIndices.length != numberOfSwaps) {
+			throw new IllegalArgumentException("The arrays describing the swaps must have the same length");
+		}
+		for (int swapIndex = 0; swapIndex < numberOfSwaps; swapIndex++) {
+			if (startIndices[swapIndex] < 0 || endIndices[swapIndex] <= startIndices[swapIndex]
+					|| endIndices[swapIndex] >= zeroBondCurve.length) {
+				throw new IllegalArgumentException("Swap " + swapIndex + " has invalid start and end indices");
+			}
+		}
+	}
+
+	/**
+	 * It computes the values at time 0 of all the swaps of the book.
+	 *
+	 * @param isParallel, if true the book is split in chunks which are valued in parallel
+	 * @return the array of the values of the swaps
+	 */
+	public double[] getValues(boolean isParallel) {
+		final AnnuityIndex annuityIndex = new AnnuityIndex(swapDates, zeroBondCurve);
+		final double[] values = new double[numberOfSwaps];
+		forEachChunk(isParallel, (firstSwapIndex, lastSwapIndex) -> {
+			for (int swapIndex = firstSwapIndex; swapIndex < lastSwapIndex; swapIndex++) {
+				final int startIndex = startIndices[swapIndex];
+				final int endIndex = endIndices[swapIndex];
+				final double sumOfFloatingLegs = zeroBondCurve[startIndex] - zeroBondCurve[endIndex];
+				values[swapIndex] = notionals[swapIndex] * (sumOfFloatingLegs
+						- fixedRates[swapIndex] * annuityIndex.getAnnuity(startIndex, endIndex));
+			}
+		});
+		return values;
+	}
+
+	/**
+	 * It computes the par swap rates of all the swaps of the book.
+	 *
+	 * @param isParallel, if true the book is split in chunks which are valued in parallel
+	 * @return the array of the par swap rates
+	 */
+	public double[] getParSwapRates(boolean isParallel) {
+		final AnnuityIndex annuityIndex = new AnnuityIndex(swapDates, zeroBondCurve);
+		final double[] parSwapRates = new double[numberOfSwaps];
+		forEachChunk(isParallel, (firstSwapIndex, lastSwapIndex) -> {
+			for (int swapIndex = firstSwapIndex; swapIndex < lastSwapIndex; swapIndex++) {
+				parSwapRates[swapIndex] = annuityIndex.getParSwapRate(startIndices[swapIndex], endIndices[swapIndex]);
+			}
+		});
+		return parSwapRates;
+	}
+
+	/**
+	 * It computes the value at time 0 of the whole book, i.e., the sum of the values of the swaps.
+	 *
+	 * @param isParallel, if true the book is split in chunks which are valued in parallel
+	 * @return the value of the book
+	 */
+	public double getValue(boolean isParallel) {
+		double value = 0.0;
+		for (final double swapValue : getValues(isParallel)) {
+			value += swapValue;
+		}
+		return value;
+	}
+
+	/*
+	 * It splits the indices of the swaps in chunks and runs the given loop on every chunk, in parallel if required.
+	 */
+	private void forEachChunk(boolean isParallel, ChunkLoop loop) {
+		final int numberOfChunks = (numberOfSwaps + CHUNK_SIZE - 1) / CHUNK_SIZE;
+		IntStream chunkIndices = IntStream.range(0, numberOfChunks);
+		if (isParallel) {
+			chunkIndices = chunkIndices.parallel();
+		}
+		chunkIndices.forEach(chunkIndex -> loop.run(chunkIndex * CHUNK_SIZE,
+				Math.min((chunkIndex + 1) * CHUNK_SIZE, numberOfSwaps)));
+	}
+
+	private interface ChunkLoop {
+		void run(int firstSwapIndex, int lastSwapIndex);
+	}
+
+	public int getNumberOfSwaps() {
+		return numberOfSwaps;
+	}
+
+	public TimeDiscretization getSwapDates() {
+		return swapDates;
+	}
+
+	public double[] getZeroBondCurve() {
+		return zeroBondCurve;
+	}
+}
@@ -33,6 +33,11 @@ public class SwapWithoutFinmath implements Swap {
 	 */
 	private final double[] zeroBondCurve;
 	private final int curveLength;
+	//the curve given by the user and its type, needed to compute the sensitivities with respect to it
+	private final double[] givenCurve;
+	private final boolean isBondCurve;
+	//the cumulative sums of the curve, giving the annuity of any sub-period without a loop
+	private final AnnuityIndex annuityIndex;
 
 
 	//constructor: the user gives the tenure structure and the zero bond curve
@@ -40,7 +45,12 @@ public class SwapWithoutFinmath implements Swap {
 			Boolean isBondCurve/*if false, we convert from Libors to bonds*/) {
 		this.swapDates = swapDates;
 		this.curveLength = curve.length;
-		this.zeroBondCurve = isBondCurve ? curve : liborToBondCurve(curve);
+		//the curve is copied once: later changes of the array of the user do not affect the swap and its annuity index
+		final double[] copyOfCurve = curve.clone();
+		this.givenCurve = copyOfCurve;
+		this.isBondCurve = isBondCurve;
+		this.zeroBondCurve = isBondCurve ? copyOfCurve : liborToBondCurve(copyOfCurve);
+		this.annuityIndex = new AnnuityIndex(swapDates, zeroBondCurve);
 	}
 
 	/*
@@ -86,26 +96,44 @@ public class SwapWithoutFinmath implements Swap {
 
 
 
-	// This method computes and returns the annuity
+	/*
+	 * This method returns the annuity, i.e., the sum of the bonds multiplied by the time intervals: remember that
+	 * zeroBondCurve[1]=P(T_2;0), ... ,zeroBondCurve[n-1]=P(T_n;0). It is read from the annuity index, without a loop.
+	 */
 	private double getAnnuity() {
-		double annuity = 0.0;
-		// we compute the sum of the bonds multiplied by the time intervals
-		for (int couponIndex = 1; couponIndex < curveLength; couponIndex++) {
-			//remember that zeroBondCurve[1]=P(T_2;0), ... ,zeroBondCurve[n-1]=P(T_n;0)
-			annuity += zeroBondCurve[couponIndex]*swapDates.getTimeStep(couponIndex - 1);
-		}
-		return annuity;
+		return annuityIndex.getAnnuity(0, curveLength - 1);
 	}
 
 	// This method computes the annuity when the swap dates are evenly distributed
 	private double getAnnuity(double yearFraction) {
-		double annuity = 0.0;
-		// we first compute the sum of the bonds..
-		for (int couponIndex = 1; couponIndex < curveLength; couponIndex++) {
-			annuity += zeroBondCurve[couponIndex];
-		}
-		//..and then we multiply it by the length of the time intervals (constant here)
-		return annuity * yearFraction;
+		//the sum of the bonds multiplied by the length of the time intervals (constant here)
+		return annuityIndex.getSumOfBonds(0, curveLength - 1) * yearFraction;
+	}
+
+	/**
+	 * It returns the par swap rate of the swap on the sub-period from T_{startIndex+1} to T_{endIndex+1} of the tenure
+	 * structure, computed from the annuity index with no loop.
+	 *
+	 * @param startIndex, the index of the start date in the curve
+	 * @param endIndex, the index of the end date in the curve, bigger than startIndex
+	 * @return the par swap rate of the swap on the sub-period
+	 */
+	public double getParSwapRate(int startIndex, int endIndex) {
+		return annuityIndex.getParSwapRate(startIndex, endIndex);
+	}
+
+	/**
+	 * It returns the matrix of the par swap rates of the swaps on all the sub-periods of the tenure structure: the entry
+	 * [s][e] is the par swap rate of the swap from T_{s+1} to T_{e+1} for s < e, and it is NaN otherwise.
+	 *
+	 * @return the matrix of the par swap rates
+	 */
+	public double[][] getParSwapRateMatrix() {
+		return annuityIndex.getParSwapRateMatrix();
+	}
+
+	public AnnuityIndex getAnnuityIndex() {
+		return annuityIndex;
 	}
 
 
@@ -177,5 +205,47 @@ public class SwapWithoutFinmath implements Swap {
 		Arrays.fill(swapRates, singleSwapRate);//swapRates is now an array with all elements equal to singleSwapRate
 		return getSwapValue(swapRates, yearFraction);
 	}
-}
 
+	/**
+	 * It computes the value of the swap at time 0 for the given swap rates, as getSwapValue(double[] swapRates), together
+	 * with its derivatives with respect to all the points of the curve given in the constructor, that is, the zero coupon
+	 * bonds or the Libor rates. The derivatives are computed analytically in one backward pass: we first compute the
+	 * derivatives with respect to the bonds, which are read from the formula of the value, and then, if the curve is a
+	 * Libor curve, we go backward through the recursion of liborToBondCurve (adjoint differentiation).
+	 *
+	 * @param swapRates, the array of doubles representing the swap rates
+	 * @param sensitivities, array of the same length as the curve, where the derivatives are written
+	 * @return the value of the swap
+	 */
+	public double getSwapValueAndCurveSensitivities(double[] swapRates, double[] sensitivities) {
+		/*
+		 * The value is P(T_1) - P(T_n) - sum_{i=1}^{n-1} K_i (T_{i+1}-T_i) P(T_{i+1}), so that its derivative with respect
+		 * to P(T_1) is 1 and the one with respect to P(T_{i+1}), i >= 1, is -K_i (T_{i+1}-T_i), with -1 more for P(T_n).
+		 */
+		final double[] bondSensitivities = new double[curveLength];
+		bondSensitivities[0] = 1.0;
+		bondSensitivities[curveLength - 1] -= 1.0;
+		for (int couponIndex = 0; couponIndex < curveLength - 1; couponIndex++) {
+			bondSensitivities[couponIndex + 1] -= swapRates[couponIndex] * swapDates.getTimeStep(couponIndex);
+		}
+
+		if (isBondCurve) {
+			System.arraycopy(bondSensitivities, 0, sensitivities, 0, curveLength);
+		} else {
+			/*
+			 * We have P(T_{i+1}) = P(T_i) / g_i with g_i = 1 + L_i (T_{i+1}-T_i). Going backward, the derivative with
+			 * respect to P(T_{i+1}) is propagated to L_i, whose derivative is -P(T_{i+1}) (T_{i+1}-T_i) / g_i, and to P(T_i).
+			 */
+			for (int periodIndex = curveLength - 1; periodIndex >= 0; periodIndex--) {
+				final double periodLength = periodIndex > 0 ? swapDates.getTimeStep(periodIndex - 1) : swapDates.getTime(0);
+				final double growthFactor = 1.0 + givenCurve[periodIndex] * periodLength;
+				sensitivities[periodIndex] = -bondSensitivities[periodIndex] * zeroBondCurve[periodIndex] * periodLength
+						/ growthFactor;
+				if (periodIndex > 0) {
+					bondSensitivities[periodIndex - 1] += bondSensitivities[periodIndex] / growthFactor;
+				}
+			}
+		}
+		return getSwapValue(swapRates);
+	}
+}
@@ -1,8 +1,12 @@
 package com.andreamazzon.exercise5;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 
 import net.finmath.rootfinder.BisectionSearch;
+import net.finmath.rootfinder.NewtonsMethod;
+import net.finmath.rootfinder.RiddersMethod;
+import net.finmath.rootfinder.RootFinder;
 
 /**
  * This class implements the zero coupon bond curve bootstrapping from the values of par swap rates: the idea
@@ -11,13 +15,28 @@ import net.finmath.rootfinder.BisectionSearch;
  * time step of the tenure structure is constant.
  * If some values of the swap rate are missing (for example, if we have annual swap rates and semi-annual payments) a
  * root finder algorithm is used in order to bootstrap the curve, together with a linear interpolation of the
- * logarithm of the bonds.
+ * logarithm of the bonds. The root finder can be chosen in the constructor: besides the bisection search, we can use
+ * the Ridders' method or Newton's method with the analytic derivative of the difference of the swap rates, possibly
+ * safeguarded by bisection steps. The number of iterations of the root finder is counted.
+ * The static method bootstrap computes the whole curve from a vector of par swap rates, with a mask for the missing ones,
+ * writing the bonds in an array of doubles given by the user. The static method bootstrapWithJacobian also computes
+ * the derivatives of the bonds with respect to the par swap rates.
 
  * @author: Andrea Mazzon
  */
 
 public class Bootstrap {
 
+	/*
+	 * BISECTION and RIDDERS search the bond in the interval (LOWER_BOUND_FOR_BOND, P(T_{k-2};0)), which contains the
+	 * root. NEWTON is the plain NewtonsMethod of the finmath library, which is not safeguarded: if the first point is far
+	 * from the root, its steps can leave that interval, so that the bond found can be negative or bigger than the
+	 * previous one, or the method can stop after MAXIMUM_NUMBER_OF_ITERATIONS without converging. It is kept to compare
+	 * the number of iterations: SAFEGUARDED_NEWTON replaces the steps leaving the interval by bisection steps, and is the
+	 * one to be used in practice.
+	 */
+	public enum RootFinderType { BISECTION, RIDDERS, NEWTON, SAFEGUARDED_NEWTON }
+
 	private final ArrayList<Double> computedBonds = new ArrayList<Double>();
 	/*
 	 * we use it in order to compute the bootstrapped bonds. We want it to be updated every time we get a new
@@ -31,13 +50,22 @@ public class Bootstrap {
 
 	private final double firstBond;
 
-	public Bootstrap(Double firstBond, Double secondBond, double yearFraction) {
+	private final RootFinderType rootFinderType;
+	private int numberOfRootFinderIterations;//total, for all the calls of nextTwoBondsFromParSwapRate
+	private int numberOfRootFinderCalls;
+
+	public Bootstrap(Double firstBond, Double secondBond, double yearFraction, RootFinderType rootFinderType) {
 		computedBonds.add(firstBond);//the first two bonds are given
 		computedBonds.add(secondBond);
 		computedBondsSize = 2;
 		this.sumOfBonds = secondBond;//the sum is initialized. Note: the first bond is not included!
 		this.yearFraction = yearFraction;
 		this.firstBond = firstBond;
+		this.rootFinderType = rootFinderType;
+	}
+
+	public Bootstrap(Double firstBond, Double secondBond, double yearFraction) {
+		this(firstBond, secondBond, yearFraction, RootFinderType.BISECTION);
 	}
 
 	/**
@@ -62,24 +90,54 @@ public class Bootstrap {
 	 * In order to do this, a rootfinder algorithm is used: the objective function is the difference from the
 	 * given par swap rate S_k and the one computed when the two missing bonds are the one computed at the present
 	 * iteration and the bond given by interpolation.
+	 * The root finder is the one of the RootFinderType given in the constructor: it stops when two successive points
+	 * differ by less than SafeguardedNewtonsMethod.ROOT_FINDER_TOLERANCE, or after
+	 * SafeguardedNewtonsMethod.MAXIMUM_NUMBER_OF_ITERATIONS iterations. Note that with
+	 * NEWTON the bond is not guaranteed to lie in (0, P(T_{k-2};0)]: see RootFinderType.
 	 * @param swapRate, the par swap rate for the given period
-	 * @param tolerance, the tolerance to be given to the root finder algorithm: the algorithm gives us x_n as a root
-	 * of our function if |x_n-x_{n-1}| < tolerance, at the n-th iteration
 	 */
 	public void nextTwoBondsFromParSwapRate(double swapRate) {
 
 		final double lastBond = computedBonds.get(computedBondsSize - 1);//P(T_{k-2};0)
+		final Double computedBond;//P(T_k;0)
+		switch (rootFinderType) {
+		case NEWTON:
+			computedBond = findMissingBondWithNewton(swapRate, lastBond);
+			break;
+		case SAFEGUARDED_NEWTON:
+			computedBond = findMissingBondWithSafeguardedNewton(swapRate, lastBond);
+			break;
+		default:
+			computedBond = findMissingBondWithBracketingRootFinder(swapRate, lastBond);
+		}
+		numberOfRootFinderCalls++;
+		//P(T_{n-1}) is computed by interpolation of P(T_{k-2};0) and P(T_k;0)
+		final Double interpolatedBond = interpolate(lastBond,computedBond);//P(T_{k-1};0)
+		sumOfBonds += interpolatedBond + computedBond;
+		computedBonds.add(interpolatedBond);
+		computedBonds.add(computedBond);
+		computedBondsSize += 2;
+	}
+
+	/*
+	 * It finds the missing bond with the bisection search or with the Ridders' method of the finmath library. They can
+	 * be used to find the zero of monotone functions on some interval, whose extremes are given in the constructor of the
+	 * class. Here we know that the value of the bond has to be positive, but smaller than the value of the last computed
+	 * bond (as it has an higher maturity)
+	 */
+	private double findMissingBondWithBracketingRootFinder(double swapRate, double lastBond) {
+		final RootFinder rootFinder = rootFinderType == RootFinderType.RIDDERS
+				? new RiddersMethod(SafeguardedNewtonsMethod.LOWER_BOUND_FOR_BOND, lastBond)
+						: new BisectionSearch(SafeguardedNewtonsMethod.LOWER_BOUND_FOR_BOND, lastBond);
+
 		/*
-		 * We use the BisectionSearch class of the finmath library. It can be used to find the zero of monotone functions
-		 * on some interval, whose extremes are given in the constructor of the class. Here we know that the value of the
-		 * bond has to be positive, but smaller than the value of the last computed bond (as it has an higher maturity)
+		 * isDone() is the Boolean which is True when the points are close enough. The Ridders' method of the finmath
+		 * library does not set it when it converges, so for it we also look at its accuracy
 		 */
-		final BisectionSearch rootFinder = new BisectionSearch(
-				0.0001,//left point of the interval where we search
-				lastBond//right point
-				);
-
-		while (!rootFinder.isDone()/*look at the class in the Finamth library: Boolean which is True when the points are close enough*/) {
+		while (!rootFinder.isDone()
+				&& rootFinder.getNumberOfIterations() < SafeguardedNewtonsMethod.MAXIMUM_NUMBER_OF_ITERATIONS
+				&& (rootFinderType != RootFinderType.RIDDERS
+				|| rootFinder.getAccuracy() > SafeguardedNewtonsMethod.ROOT_FINDER_TOLERANCE)) {
 			//next "try" to get the value of the new bond by which the difference of the par swap rate is close to zero
 			final double x = rootFinder.getNextPoint();
 			//value of the difference between for the new trial
@@ -87,20 +145,73 @@ public class Bootstrap {
 
 			rootFinder.setValue(y);    //the algorithm is repeated for the new difference
 		}
-		final Double computedBond = rootFinder.getBestPoint();//P(T_k;0)
-		//P(T_{n-1}) is computed by interpolation of P(T_{k-2};0) and P(T_k;0)
-		final Double interpolatedBond = interpolate(lastBond,computedBond);//P(T_{k-1};0)
-		sumOfBonds += interpolatedBond + computedBond;
-		computedBonds.add(interpolatedBond);
-		computedBonds.add(computedBond);
-		computedBondsSize += 2;
+		numberOfRootFinderIterations += rootFinder.getNumberOfIterations();
+		return rootFinder.getBestPoint();
+	}
+
+	/*
+	 * It finds the missing bond with the Newton's method of the finmath library, with the analytic derivative. The first
+	 * point is given by extrapolating the logarithm of the last two bonds. Since NewtonsMethod never says it is done, we
+	 * stop when two successive points are close enough. The points are not kept in the interval containing the root
+	 * (see RootFinderType), so the result is not checked to be a bond in that interval.
+	 */
+	private double findMissingBondWithNewton(double swapRate, double lastBond) {
+		final double secondLastBond = computedBonds.get(computedBondsSize - 2);
+		final NewtonsMethod rootFinder = new NewtonsMethod(lastBond * lastBond / secondLastBond);
+		double previousPoint = Double.NaN;
+		int iterations = 0;
+		while (iterations < SafeguardedNewtonsMethod.MAXIMUM_NUMBER_OF_ITERATIONS && !(Math.abs(
+				rootFinder.getNextPoint() - previousPoint) < SafeguardedNewtonsMethod.ROOT_FINDER_TOLERANCE)) {
+			final double x = rootFinder.getNextPoint();
+			previousPoint = x;
+			rootFinder.setValueAndDerivative(differenceSwapRateAtMissingBond(swapRate, x),
+					derivativeOfDifferenceSwapRateAtMissingBond(x));
+			iterations++;
+		}
+		numberOfRootFinderIterations += iterations;
+		return rootFinder.getNextPoint();
+	}
+
+	/*
+	 * It finds the missing bond with Newton's method, but keeping an interval which contains the root: if a Newton step
+	 * goes out of the interval, a bisection step is done instead (see SafeguardedNewtonsMethod).
+	 */
+	private double findMissingBondWithSafeguardedNewton(double swapRate, double lastBond) {
+		final int[] iterations = new int[1];
+		final double missingBond = findMissingBondWithSafeguardedNewton(swapRate, computedBonds.get(0), sumOfBonds,
+				computedBonds.get(computedBondsSize - 2), lastBond, yearFraction, iterations);
+		numberOfRootFinderIterations += iterations[0];
+		return missingBond;
+	}
+
+	/*
+	 * The safeguarded Newton's method above, with all the data given as arguments, so that it can be used also by the
+	 * static bulk method. The difference of the swap rates is decreasing in the missing bond, as SafeguardedNewtonsMethod
+	 * requires. The number of iterations is written in iterations[0], if iterations is not null.
+	 */
+	static double findMissingBondWithSafeguardedNewton(double swapRate, double firstBond, double sumOfBonds,
+			double secondLastBond, double lastBond, double yearFraction, int[] iterations) {
+		//first point: linear extrapolation of the logarithm of the last two bonds
+		final SafeguardedNewtonsMethod rootFinder = new SafeguardedNewtonsMethod(
+				SafeguardedNewtonsMethod.LOWER_BOUND_FOR_BOND, lastBond, lastBond * lastBond / secondLastBond);
+		while (!rootFinder.isDone()
+				&& rootFinder.getNumberOfIterations() < SafeguardedNewtonsMethod.MAXIMUM_NUMBER_OF_ITERATIONS) {
+			final double x = rootFinder.getNextPoint();
+			rootFinder.setValueAndDerivative(
+					differenceSwapRateAtMissingBond(swapRate, firstBond, sumOfBonds, lastBond, x, yearFraction),
+					derivativeOfDifferenceSwapRateAtMissingBond(firstBond, sumOfBonds, lastBond, x, yearFraction));
+		}
+		if (iterations != null) {
+			iterations[0] = rootFinder.getNumberOfIterations();
+		}
+		return rootFinder.getBestPoint();
 	}
 
 	/*
 	 * This method computes the value of a bond for a subperiod, through the linear interpolation of
 	 * the logarithm of the discount factors.
 	 */
-	private Double interpolate(double bondT0, double bondT1) {
+	static double interpolate(double bondT0, double bondT1) {
 		return Math.exp(0.5*(Math.log(bondT0) + Math.log(bondT1)));
 	}
 
@@ -114,14 +225,198 @@ public class Bootstrap {
 		 * By means of the rootfinder algorithm, a value of missingBond will be computed in order
 		 * to the following quantity to be close to zero
 		 */
-		return (computedBonds.get(0) - missingBond) /
+		return differenceSwapRateAtMissingBond(swapRate, computedBonds.get(0), sumOfBonds,
+				computedBonds.get(computedBondsSize - 1), missingBond, yearFraction);
+	}
+
+	private static double differenceSwapRateAtMissingBond(double swapRate, double firstBond, double sumOfBonds,
+			double lastBond, double missingBond, double yearFraction) {
+		return (firstBond - missingBond) /
 				(yearFraction *
 						(sumOfBonds +
-								interpolate(computedBonds.get(computedBondsSize - 1),missingBond)
+								interpolate(lastBond, missingBond)
 						+ missingBond))
 				- swapRate;
 	}
 
+	/*
+	 * The derivative with respect to the missing bond x of the difference above. Writing the difference as
+	 * (P_0 - x) / D(x) - S with D(x) = yearFraction (sumOfBonds + sqrt(P_{k-2} x) + x), since the interpolated bond is
+	 * sqrt(P_{k-2} x), we have D'(x) = yearFraction (0.5 sqrt(P_{k-2} / x) + 1) and the derivative is
+	 * (-D(x) - (P_0 - x) D'(x)) / D(x)^2.
+	 */
+	private double derivativeOfDifferenceSwapRateAtMissingBond(double missingBond) {
+		return derivativeOfDifferenceSwapRateAtMissingBond(computedBonds.get(0), sumOfBonds,
+				computedBonds.get(computedBondsSize - 1), missingBond, yearFraction);
+	}
+
+	private static double derivativeOfDifferenceSwapRateAtMissingBond(double firstBond, double sumOfBonds,
+			double lastBond, double missingBond, double yearFraction) {
+		final double denominator = yearFraction * (sumOfBonds + interpolate(lastBond, missingBond) + missingBond);
+		final double derivativeOfDenominator = yearFraction * (0.5 * Math.sqrt(lastBond / missingBond) + 1.0);
+		return (-denominator - (firstBond - missingBond) * derivativeOfDenominator)
+				/ (denominator * denominator);
+	}
+
+	/**
+	 * It bootstraps the whole zero coupon bond curve from a vector of par swap rates, writing the bonds in the given
+	 * array: this does the same as calling nextBondFromParSwapRate and nextTwoBondsFromParSwapRate for all the par
+	 * swap rates, but without creating any object, so that it can be called many times with no garbage collection.
+	 * The par swap rate parSwapRates[i] refers to the bond bonds[i + 2]. If isMissing[i] is true, that par swap rate is
+	 * not known (the value in parSwapRates[i] is ignored) and the bonds[i + 2] and bonds[i + 3] are computed from the
+	 * par swap rate parSwapRates[i + 1] as in nextTwoBondsFromParSwapRate, with the safeguarded Newton's method.
+	 *
+	 * @param firstBond, the first given bond
+	 * @param secondBond, the second given bond
+	 * @param yearFraction, the constant time step of the tenure structure
+	 * @param parSwapRates, the par swap rates
+	 * @param isMissing, the mask of the missing par swap rates: two consecutive rates cannot be missing, and the last
+	 * one must be given
+	 * @param bonds, the array where the bonds are written, of length at least parSwapRates.length + 2
+	 */
+	public static void bootstrap(double firstBond, double secondBond, double yearFraction, double[] parSwapRates,
+			boolean[] isMissing, double[] bonds) {
+		final int numberOfParSwapRates = parSwapRates.length;
+		if (isMissing.length != numberOfParSwapRates || bonds.length < numberOfParSwapRates + 2) {
+			throw new IllegalArgumentException("The arrays have incompatible lengths");
+		}
+		bonds[0] = firstBond;
+		bonds[1] = secondBond;
+		double sumOfBonds = secondBond;//the first bond is not included
+		int rateIndex = 0;
+		while (rateIndex < numberOfParSwapRates) {
+			if (!isMissing[rateIndex]) {
+				final double parSwapRate = parSwapRates[rateIndex];
+				final double newBond = (firstBond - yearFraction * parSwapRate * sumOfBonds) /
+						(1 + parSwapRate * yearFraction);
+				sumOfBonds += newBond;
+				bonds[rateIndex + 2] = newBond;
+				rateIndex++;
+			} else {
+				if (rateIndex + 1 >= numberOfParSwapRates || isMissing[rateIndex + 1]) {
+					throw new IllegalArgumentException("The par swap rate after a missing one must be given");
+				}
+				final double lastBond = bonds[rateIndex + 1];
+				final double computedBond = findMissingBondWithSafeguardedNewton(parSwapRates[rateIndex + 1], firstBond,
+						sumOfBonds, bonds[rateIndex], lastBond, yearFraction, null);
+				final double interpolatedBond = interpolate(lastBond, computedBond);
+				sumOfBonds += interpolatedBond + computedBond;
+				bonds[rateIndex + 2] = interpolatedBond;
+				bonds[rateIndex + 3] = computedBond;
+				rateIndex += 2;
+			}
+		}
+	}
+
+	/**
+	 * It bootstraps the curve as bootstrap(firstBond, secondBond, yearFraction, parSwapRates, isMissing, bonds), and it
+	 * also computes the Jacobian of the bonds with respect to the par swap rates: jacobian[i][j] is the derivative of
+	 * bonds[i] with respect to parSwapRates[j]. The matrix is lower triangular, since a bond only depends on the par swap
+	 * rates up to the one from which it is computed, and the columns of the missing rates are zero.
+	 * The derivatives are propagated along the curve together with the ones of the sum of the bonds. When the par swap
+	 * rate S is given, the new bond is P = (P_0 - yearFraction S sum) / (1 + yearFraction S), whose derivatives are
+	 * computed in closed form. When two bonds are computed from the par swap rate S, the computed bond x is the root of
+	 * f(x, sum, P_l, S) = (P_0 - x) / D - S, with D = yearFraction (sum + sqrt(P_l x) + x) and P_l the last known bond:
+	 * by the implicit function theorem, dx = -(f_sum dsum + f_{P_l} dP_l + f_S dS) / f_x, and the interpolated bond
+	 * sqrt(P_l x) is then differentiated by the chain rule.
+	 *
+	 * @param firstBond, the first given bond
+	 * @param secondBond, the second given bond
+	 * @param yearFraction, the constant time step of the tenure structure
+	 * @param parSwapRates, the par swap rates
+	 * @param isMissing, the mask of the missing par swap rates
+	 * @param bonds, the array where the bonds are written, of length parSwapRates.length + 2
+	 * @param jacobian, the matrix where the Jacobian is written, of size (parSwapRates.length + 2) x parSwapRates.length
+	 * @throws IllegalArgumentException if the arrays have incompatible lengths: then neither the bonds nor the Jacobian
+	 * are written
+	 */
+	public static void bootstrapWithJacobian(double firstBond, double secondBond, double yearFraction,
+			double[] parSwapRates, boolean[] isMissing, double[] bonds, double[][] jacobian) {
+		final int numberOfParSwapRates = parSwapRates.length;
+		//checked before anything is written, as bootstrap does for the bonds
+		if (jacobian.length != numberOfParSwapRates + 2) {
+			throw new IllegalArgumentException("The Jacobian must have one row for every bond");
+		}
+		for (final double[] row : jacobian) {
+			if (row == null || row.length != numberOfParSwapRates) {
+				throw new IllegalArgumentException("Every row of the Jacobian must have one entry for every par swap rate");
+			}
+		}
+		bootstrap(firstBond, secondBond, yearFraction, parSwapRates, isMissing, bonds);
+
+		//the entries not written below are zero: for example, the ones of the first two bonds, which are given
+		for (final double[] row : jacobian) {
+			Arrays.fill(row, 0.0);
+		}
+		final double[] derivativesOfSum = new double[numberOfParSwapRates];//derivatives of the sum of the bonds
+		double sumOfBonds = secondBond;
+		int rateIndex = 0;
+		while (rateIndex < numberOfParSwapRates) {
+			if (!isMissing[rateIndex]) {
+				final double parSwapRate = parSwapRates[rateIndex];
+				final double newBond = bonds[rateIndex + 2];
+				final double denominator = 1 + parSwapRate * yearFraction;
+				final double[] derivativesOfNewBond = jacobian[rateIndex + 2];
+				for (int j = 0; j < rateIndex; j++) {
+					derivativesOfNewBond[j] = -yearFraction * parSwapRate * derivativesOfSum[j] / denominator;
+				}
+				derivativesOfNewBond[rateIndex] = -yearFraction * (sumOfBonds + newBond) / denominator;
+				for (int j = 0; j <= rateIndex; j++) {
+					derivativesOfSum[j] += derivativesOfNewBond[j];
+				}
+				sumOfBonds += newBond;
+				rateIndex++;
+			} else {
+				final double lastBond = bonds[rateIndex + 1];
+				final double interpolatedBond = bonds[rateIndex + 2];
+				final double computedBond = bonds[rateIndex + 3];
+
+				final double denominator = yearFraction * (sumOfBonds + interpolatedBond + computedBond);
+				final double numerator = firstBond - computedBond;
+				final double derivativeWithRespectToSum = -numerator * yearFraction / (denominator * denominator);
+				final double derivativeWithRespectToLastBond = derivativeWithRespectToSum
+						* 0.5 * Math.sqrt(computedBond / lastBond);
+				final double derivativeWithRespectToComputedBond = derivativeOfDifferenceSwapRateAtMissingBond(firstBond,
+						sumOfBonds, lastBond, computedBond, yearFraction);
+
+				final double[] derivativesOfLastBond = jacobian[rateIndex + 1];
+				final double[] derivativesOfInterpolatedBond = jacobian[rateIndex + 2];
+				final double[] derivativesOfComputedBond = jacobian[rateIndex + 3];
+				for (int j = 0; j <= rateIndex + 1; j++) {
+					//the derivative of the par swap rate with respect to itself is 1, and f_S = -1
+					final double derivativeOfRate = j == rateIndex + 1 ? -1.0 : 0.0;
+					derivativesOfComputedBond[j] = -(derivativeWithRespectToSum * derivativesOfSum[j]
+							+ derivativeWithRespectToLastBond * derivativesOfLastBond[j] + derivativeOfRate)
+							/ derivativeWithRespectToComputedBond;
+					//the interpolated bond is sqrt(P_l x)
+					derivativesOfInterpolatedBond[j] = 0.5 * Math.sqrt(computedBond / lastBond) * derivativesOfLastBond[j]
+							+ 0.5 * Math.sqrt(lastBond / computedBond) * derivativesOfComputedBond[j];
+					derivativesOfSum[j] += derivativesOfInterpolatedBond[j] + derivativesOfComputedBond[j];
+				}
+				sumOfBonds += interpolatedBond + computedBond;
+				rateIndex += 2;
+			}
+		}
+	}
+
+	/**
+	 * @return the total number of iterations of the root finder, for all the calls of nextTwoBondsFromParSwapRate
+	 */
+	public int getNumberOfRootFinderIterations() {
+		return numberOfRootFinderIterations;
+	}
+
+	/**
+	 * @return the number of times the root finder has been used, i.e., the number of calls of nextTwoBondsFromParSwapRate
+	 */
+	public int getNumberOfRootFinderCalls() {
+		return numberOfRootFinderCalls;
+	}
+
+	public RootFinderType getRootFinderType() {
+		return rootFinderType;
+	}
+
 	public ArrayList<Double> getBonds(){
 		return computedBonds;
 	}
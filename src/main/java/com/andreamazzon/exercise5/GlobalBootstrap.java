@@ -0,0 +1,162 @@
+package com.andreamazzon.exercise5;
+
+/**
+ * This class bootstraps a zero coupon bond curve from par swap rates which can be missing for any number of consecutive
+ * dates of the tenure structure, not only for one as in Bootstrap. The missing bonds between two given par swap rates
+ * are obtained by linear interpolation of the logarithm of the bonds in time, between the last computed bond P_l and
+ * the bond x of the next given par swap rate: if there are m missing bonds, the bond j = 1, ..., m after P_l is
+ * P_l^(1 - w_j) x^(w_j), with w_j = j / (m + 1). For m = 1 this is the interpolation of Bootstrap.
+ * In this way, every given par swap rate (a segment of the curve) gives a single equation in the single unknown x: the
+ * global system for all the bonds is triangular, so it is solved by one Newton's method per segment, with the analytic
+ * derivative and a bracketing interval (the SafeguardedNewtonsMethod also used by Bootstrap), and a curve with few
+ * quotes is built as fast as a dense one.
+ * The structure of the segments and the interpolation weights only depend on the mask of the missing par swap rates,
+ * so they are computed once in the constructor, and getBonds does not create any array. The object is not modified
+ * by getBonds, so it can be used by several threads at the same time.
+ *
+ * @author: Andrea Mazzon
+ */
+public class GlobalBootstrap {
+
+	private final double firstBond;
+	private final double secondBond;
+	private final double yearFraction;
+	private final int numberOfParSwapRates;
+
+	//indices of the given par swap rates, and for each of them the number of missing rates just before it
+	private final int[] givenRateIndices;
+	private final int[] numberOfMissingBonds;
+	//interpolationWeights[m] contains the weights j / (m + 1), j = 1, ..., m, for a segment with m missing bonds
+	private final double[][] interpolationWeights;
+
+	/**
+	 * @param firstBond, the first given bond
+	 * @param secondBond, the second given bond
+	 * @param yearFraction, the constant time step of the tenure structure
+	 * @param isMissing, the mask of the missing par swap rates: isMissing[i] refers to the bond i + 2. Any number of
+	 * consecutive rates can be missing, but the last one must be given
+	 */
+	public GlobalBootstrap(double firstBond, double secondBond, double yearFraction, boolean[] isMissing) {
+		numberOfParSwapRates = isMissing.length;
+		if (numberOfParSwapRates > 0 && isMissing[numberOfParSwapRates - 1]) {
+			throw new IllegalArgumentException("The last par swap rate must be given");
+		}
+		this.firstBond = firstBond;
+		this.secondBond = secondBond;
+		this.yearFraction = yearFraction;
+
+		int numberOfGivenRates = 0;
+		for (final boolean isRateMissing : isMissing) {
+			if (!isRateMissing) {
+				numberOfGivenRates++;
+			}
+		}
+		givenRateIndices = new int[numberOfGivenRates];
+		numberOfMissingBonds = new int[numberOfGivenRates];
+		int maximumNumberOfMissingBonds = 0;
+		int segmentIndex = 0;
+		int missingBondsBefore = 0;
+		for (int rateIndex = 0; rateIndex < numberOfParSwapRates; rateIndex++) {
+			if (isMissing[rateIndex]) {
+				missingBondsBefore++;
+			} else {
+				givenRateIndices[segmentIndex] = rateIndex;
+				numberOfMissingBonds[segmentIndex] = missingBondsBefore;
+				maximumNumberOfMissingBonds = Math.max(maximumNumberOfMissingBonds, missingBondsBefore);
+				missingBondsBefore = 0;
+				segmentIndex++;
+			}
+		}
+		interpolationWeights = new double[maximumNumberOfMissingBonds + 1][];
+		for (int m = 0; m <= maximumNumberOfMissingBonds; m++) {
+			interpolationWeights[m] = new double[m];
+			for (int j = 1; j <= m; j++) {
+				interpolationWeights[m][j - 1] = (double) j / (m + 1);
+			}
+		}
+	}
+
+	/**
+	 * It bootstraps the curve, writing the bonds in the given array.
+	 *
+	 * @param parSwapRates, the par swap rates: parSwapRates[i] refers to the bond i + 2. The values of the missing
+	 * rates are ignored
+	 * @param bonds, the array where the bonds are written, of length at least parSwapRates.length + 2
+	 * @return the total number of iterations of the Newton's methods of all the segments
+	 */
+	public int getBonds(double[] parSwapRates, double[] bonds) {
+		if (parSwapRates.length != numberOfParSwapRates || bonds.length < numberOfParSwapRates + 2) {
+			throw new IllegalArgumentException("The arrays have incompatible lengths");
+		}
+		int numberOfNewtonIterations = 0;
+		bonds[0] = firstBond;
+		bonds[1] = secondBond;
+		double sumOfBonds = secondBond;//the first bond is not included
+		for (int segmentIndex = 0; segmentIndex < givenRateIndices.length; segmentIndex++) {
+			final int rateIndex = givenRateIndices[segmentIndex];
+			final int m = numberOfMissingBonds[segmentIndex];
+			final double parSwapRate = parSwapRates[rateIndex];
+			final int lastBondIndex = rateIndex + 1 - m;//index of the last computed bond P_l
+			if (m == 0) {
+				//no missing bonds: the new bond is given explicitly, as in Bootstrap
+				final double newBond = (firstBond - yearFraction * parSwapRate * sumOfBonds) /
+						(1 + parSwapRate * yearFraction);
+				sumOfBonds += newBond;
+				bonds[rateIndex + 2] = newBond;
+			} else {
+				final double[] weights = interpolationWeights[m];
+				final double lastBond = bonds[lastBondIndex];
+				final double logOfLastBond = Math.log(lastBond);
+				//first point: linear extrapolation of the logarithm of the last two bonds
+				final SafeguardedNewtonsMethod rootFinder = new SafeguardedNewtonsMethod(
+						SafeguardedNewtonsMethod.LOWER_BOUND_FOR_BOND, lastBond,
+						lastBond * Math.pow(lastBond / bonds[lastBondIndex - 1], m + 1));
+				while (!rootFinder.isDone()
+						&& rootFinder.getNumberOfIterations() < SafeguardedNewtonsMethod.MAXIMUM_NUMBER_OF_ITERATIONS) {
+					setValueAndDerivativeOfSegment(rootFinder, parSwapRate, sumOfBonds, logOfLastBond, weights);
+				}
+				numberOfNewtonIterations += rootFinder.getNumberOfIterations();
+				final double computedBond = rootFinder.getBestPoint();
+				final double logOfComputedBond = Math.log(computedBond);
+				for (int j = 0; j < m; j++) {
+					final double interpolatedBond = Math.exp((1 - weights[j]) * logOfLastBond
+							+ weights[j] * logOfComputedBond);
+					bonds[lastBondIndex + 1 + j] = interpolatedBond;
+					sumOfBonds += interpolatedBond;
+				}
+				sumOfBonds += computedBond;
+				bonds[rateIndex + 2] = computedBond;
+			}
+		}
+		return numberOfNewtonIterations;
+	}
+
+	/*
+	 * It gives the root finder the value and the derivative, at its next point x, of the difference between the swap
+	 * rate given by the curve and the quoted one for a segment with missing bonds. This is (P_0 - x) / D(x) - S, with
+	 * D(x) = yearFraction (sumOfBonds + sum_j P_l^(1 - w_j) x^(w_j) + x), which is decreasing in x. Its derivative is
+	 * (-D(x) - (P_0 - x) D'(x)) / D(x)^2, with D'(x) = yearFraction (sum_j w_j P_l^(1 - w_j) x^(w_j) / x + 1).
+	 */
+	private void setValueAndDerivativeOfSegment(SafeguardedNewtonsMethod rootFinder, double swapRate,
+			double sumOfBonds, double logOfLastBond, double[] weights) {
+		final double x = rootFinder.getNextPoint();
+		final double logOfX = Math.log(x);
+		double sumOfInterpolatedBonds = 0.0;
+		double derivativeOfSumOfInterpolatedBonds = 0.0;
+		for (int j = 0; j < weights.length; j++) {
+			final double interpolatedBond = Math.exp((1 - weights[j]) * logOfLastBond + weights[j] * logOfX);
+			sumOfInterpolatedBonds += interpolatedBond;
+			derivativeOfSumOfInterpolatedBonds += weights[j] * interpolatedBond / x;
+		}
+		final double denominator = yearFraction * (sumOfBonds + sumOfInterpolatedBonds + x);
+		final double derivativeOfDenominator = yearFraction * (derivativeOfSumOfInterpolatedBonds + 1.0);
+		final double value = (firstBond - x) / denominator - swapRate;
+		final double derivative = (-denominator - (firstBond - x) * derivativeOfDenominator)
+				/ (denominator * denominator);
+		rootFinder.setValueAndDerivative(value, derivative);
+	}
+
+	public int getNumberOfBonds() {
+		return numberOfParSwapRates + 2;
+	}
+}
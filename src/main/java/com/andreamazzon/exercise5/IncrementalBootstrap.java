@@ -0,0 +1,161 @@
+package com.andreamazzon.exercise5;
+
+/**
+ * This class bootstraps a zero coupon bond curve as Bootstrap.bootstrap, and then updates it when a single par swap
+ * rate changes. The bond computed from the par swap rate of index k only depends on the bonds before it, through their
+ * sum: when that par swap rate changes, the bonds before it do not change, and only the bonds from k on have to be
+ * computed again. For this reason, we store for every bond the sum of the bonds before it, so that the bootstrap can be
+ * restarted from any point of the curve. If the par swap rate which changes follows a missing one, the bootstrap is
+ * restarted from the bond of the missing rate, since the two bonds are computed together.
+ *
+ * @author: Andrea Mazzon
+ */
+public class IncrementalBootstrap {
+
+	private final double firstBond;
+	private final double yearFraction;
+
+	private final double[] parSwapRates;
+	private final boolean[] isMissing;
+
+	private final double[] bonds;
+	//sumsOfBondsBefore[i] is the sum of the bonds from 1 to i - 1: the first bond is not included, as in Bootstrap
+	private final double[] sumsOfBondsBefore;
+
+	private int numberOfBondsComputedAtLastUpdate;
+
+	/**
+	 * @param firstBond, the first given bond
+	 * @param secondBond, the second given bond
+	 * @param yearFraction, the constant time step of the tenure structure
+	 * @param parSwapRates, the par swap rates: parSwapRates[i] refers to the bond i + 2. The array is copied, and it
+	 * must not be empty
+	 * @param isMissing, the mask of the missing par swap rates: two consecutive rates cannot be missing, and the last
+	 * one must be given
+	 */
+	public IncrementalBootstrap(double firstBond, double secondBond, double yearFraction, double[] parSwapRates,
+			boolean[] isMissing) {
+		if (parSwapRates.length == 0) {
+			throw new IllegalArgumentException("At least one par swap rate must be given");
+		}
+		if (isMissing.length != parSwapRates.length) {
+			throw new IllegalArgumentException("The arrays have incompatible lengths");
+		}
+		for (int rateIndex = 0; rateIndex < isMissing.length; rateIndex++) {
+			if (isMissing[rateIndex] && (rateIndex + 1 >= isMissing.length || isMissing[rateIndex + 1])) {
+				throw new IllegalArgumentException("The par swap rate after a missing one must be given");
+			}
+		}
+		this.firstBond = firstBond;
+		this.yearFraction = yearFraction;
+		this.parSwapRates = parSwapRates.clone();
+		this.isMissing = isMissing.clone();
+
+		bonds = new double[parSwapRates.length + 2];
+		sumsOfBondsBefore = new double[parSwapRates.length + 2];
+		bonds[0] = firstBond;
+		bonds[1] = secondBond;
+		sumsOfBondsBefore[2] = secondBond;
+		bootstrapFrom(0);
+	}
+
+	/**
+	 * It changes one par swap rate and computes again the bonds which depend on it.
+	 *
+	 * @param rateIndex, the index of the par swap rate, which must not be a missing one
+	 * @param newParSwapRate, the new value of the par swap rate
+	 */
+	public void updateParSwapRate(int rateIndex, double newParSwapRate) {
+		if (isMissing[rateIndex]) {
+			throw new IllegalArgumentException("The par swap rate " + rateIndex + " is missing");
+		}
+		parSwapRates[rateIndex] = newParSwapRate;
+		//if the previous rate is missing, the two bonds are computed together from this rate
+		bootstrapFrom(rateIndex > 0 && isMissing[rateIndex - 1] ? rateIndex - 1 : rateIndex);
+	}
+
+	/**
+	 * It changes several par swap rates and computes again, only once, the bonds which depend on them, i.e., the ones
+	 * from the bond of the first changed rate on.
+	 *
+	 * @param rateIndices, the indices of the par swap rates, which must not be missing ones
+	 * @param newParSwapRates, the new values of the par swap rates
+	 * @param numberOfUpdates, the number of entries of the two arrays to be considered
+	 */
+	public void updateParSwapRates(int[] rateIndices, double[] newParSwapRates, int numberOfUpdates) {
+		int firstRateIndex = parSwapRates.length;
+		for (int update = 0; update < numberOfUpdates; update++) {
+			final int rateIndex = rateIndices[update];
+			if (isMissing[rateIndex]) {
+				throw new IllegalArgumentException("The par swap rate " + rateIndex + " is missing");
+			}
+			parSwapRates[rateIndex] = newParSwapRates[update];
+			firstRateIndex = Math.min(firstRateIndex,
+					rateIndex > 0 && isMissing[rateIndex - 1] ? rateIndex - 1 : rateIndex);
+		}
+		if (firstRateIndex < parSwapRates.length) {
+			bootstrapFrom(firstRateIndex);
+		}
+	}
+
+	/*
+	 * It computes the bonds from the one of the par swap rate with index firstRateIndex to the end, starting from the
+	 * stored sum of the bonds before it.
+	 */
+	private void bootstrapFrom(int firstRateIndex) {
+		double sumOfBonds = sumsOfBondsBefore[firstRateIndex + 2];
+		int rateIndex = firstRateIndex;
+		while (rateIndex < parSwapRates.length) {
+			if (!isMissing[rateIndex]) {
+				final double parSwapRate = parSwapRates[rateIndex];
+				final double newBond = (firstBond - yearFraction * parSwapRate * sumOfBonds) /
+						(1 + parSwapRate * yearFraction);
+				sumOfBonds += newBond;
+				bonds[rateIndex + 2] = newBond;
+				storeSumOfBondsBefore(rateIndex + 3, sumOfBonds);
+				rateIndex++;
+			} else {
+				final double lastBond = bonds[rateIndex + 1];
+				final double computedBond = Bootstrap.findMissingBondWithSafeguardedNewton(parSwapRates[rateIndex + 1],
+						firstBond, sumOfBonds, bonds[rateIndex], lastBond, yearFraction, null);
+				final double interpolatedBond = Bootstrap.interpolate(lastBond, computedBond);
+				sumOfBonds += interpolatedBond + computedBond;
+				bonds[rateIndex + 2] = interpolatedBond;
+				bonds[rateIndex + 3] = computedBond;
+				//the sum before the computed bond is never used to restart the bootstrap, but we keep it consistent
+				storeSumOfBondsBefore(rateIndex + 3, sumOfBonds - computedBond);
+				storeSumOfBondsBefore(rateIndex + 4, sumOfBonds);
+				rateIndex += 2;
+			}
+		}
+		numberOfBondsComputedAtLastUpdate = parSwapRates.length - firstRateIndex;
+	}
+
+	private void storeSumOfBondsBefore(int bondIndex, double sum) {
+		if (bondIndex < sumsOfBondsBefore.length) {
+			sumsOfBondsBefore[bondIndex] = sum;
+		}
+	}
+
+	/**
+	 * @return a copy of the current bonds
+	 */
+	public double[] getBonds() {
+		return bonds.clone();
+	}
+
+	/**
+	 * @param bondIndex, the index of the bond in the curve
+	 * @return the current value of the bond
+	 */
+	public double getBond(int bondIndex) {
+		return bonds[bondIndex];
+	}
+
+	/**
+	 * @return the number of bonds which have been computed at the last update (or by the constructor)
+	 */
+	public int getNumberOfBondsComputedAtLastUpdate() {
+		return numberOfBondsComputedAtLastUpdate;
+	}
+}
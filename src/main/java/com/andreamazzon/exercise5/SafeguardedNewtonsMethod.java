@@ -0,0 +1,85 @@
+package com.andreamazzon.exercise5;
+
+import net.finmath.rootfinder.RootFinderWithDerivative;
+
+/**
+ * This class implements Newton's method for a decreasing function, safeguarded by an interval which contains the root:
+ * after every evaluation the interval is updated looking at the sign of the value (the root is on the right if the
+ * value is positive), and if a Newton step goes out of the interval a bisection step is done instead. It is used as
+ * the root finders of the finmath library: the user asks for the next point, evaluates the function and its derivative
+ * there and gives them back, until isDone() is true or the number of iterations reaches MAXIMUM_NUMBER_OF_ITERATIONS.
+ * The method is done when two successive points differ by less than ROOT_FINDER_TOLERANCE, or when the value is zero.
+ * It is used by Bootstrap and GlobalBootstrap to find the unknown bond of a segment of the curve, together with the
+ * other constants below, which are shared by all the root finders of the bootstrap.
+ *
+ * @author: Andrea Mazzon
+ */
+final class SafeguardedNewtonsMethod implements RootFinderWithDerivative {
+
+	//the root finder stops when the new point differs from the previous one less than this
+	static final double ROOT_FINDER_TOLERANCE = 1E-14;
+	static final int MAXIMUM_NUMBER_OF_ITERATIONS = 100;
+	//the bonds are searched in the interval between this and the last computed bond
+	static final double LOWER_BOUND_FOR_BOND = 0.0001;
+
+	private double leftPoint;
+	private double rightPoint;
+	private double nextPoint;
+	private double accuracy = Double.MAX_VALUE;
+	private int numberOfIterations;
+	private boolean isDone;
+
+	/**
+	 * @param leftPoint, the left end of an interval containing the root
+	 * @param rightPoint, the right end of an interval containing the root
+	 * @param firstPoint, the first point: it is moved into the interval if it is outside
+	 */
+	SafeguardedNewtonsMethod(double leftPoint, double rightPoint, double firstPoint) {
+		this.leftPoint = leftPoint;
+		this.rightPoint = rightPoint;
+		this.nextPoint = Math.min(Math.max(firstPoint, leftPoint), rightPoint);
+	}
+
+	@Override
+	public double getNextPoint() {
+		return nextPoint;
+	}
+
+	@Override
+	public void setValueAndDerivative(double value, double derivative) {
+		final double x = nextPoint;
+		numberOfIterations++;
+		if (value > 0) {
+			leftPoint = x;//the root is on the right
+		} else {
+			rightPoint = x;
+		}
+		double newX = x - value / derivative;
+		if (!(newX >= leftPoint && newX <= rightPoint)) {
+			newX = 0.5 * (leftPoint + rightPoint);//bisection step
+		}
+		accuracy = Math.abs(newX - x);
+		isDone = accuracy < ROOT_FINDER_TOLERANCE || value == 0;
+		nextPoint = newX;
+	}
+
+	@Override
+	public int getNumberOfIterations() {
+		return numberOfIterations;
+	}
+
+	@Override
+	public double getAccuracy() {
+		return accuracy;
+	}
+
+	@Override
+	public boolean isDone() {
+		return isDone;
+	}
+
+	@Override
+	public double getBestPoint() {
+		return nextPoint;
+	}
+}
@@ -0,0 +1,145 @@
+package com.andreamazzon.exercise5;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * This class bootstraps many zero coupon bond curves at once, one for every scenario of the par swap rates (for example,
+ * the historical shifts of the par swap rates for a VaR computation). All the scenarios share the same skeleton: the
+ * first two bonds, the time step of the tenure structure and the mask of the missing par swap rates, with the same
+ * meaning as in Bootstrap.bootstrap.
+ * The scenarios are split in chunks which can be bootstrapped in parallel. Inside a chunk, the curves are not built one
+ * after the other: the par swap rates of the chunk are first copied in arrays indexed by [rate][scenario], and then we
+ * go along the tenure structure, and for every bond we loop over all the scenarios of the chunk, keeping the running
+ * sums of the bonds of the scenarios in an array. In this way the inner loop reads and writes contiguous arrays, with
+ * the same operations for all the scenarios. The bonds are copied back in the matrix [scenario][bond] at the end.
+ *
+ * @author: Andrea Mazzon
+ */
+public class ScenarioBootstrap {
+
+	//number of scenarios bootstrapped together
+	private static final int CHUNK_SIZE = 256;
+
+	private final double firstBond;
+	private final double secondBond;
+	private final double yearFraction;
+	private final boolean[] isMissing;
+
+	/**
+	 * @param firstBond, the first given bond, the same for all the scenarios
+	 * @param secondBond, the second given bond, the same for all the scenarios
+	 * @param yearFraction, the constant time step of the tenure structure
+	 * @param isMissing, the mask of the missing par swap rates: two consecutive rates cannot be missing, and the last
+	 * one must be given
+	 */
+	public ScenarioBootstrap(double firstBond, double secondBond, double yearFraction, boolean[] isMissing) {
+		for (int rateIndex = 0; rateIndex < isMissing.length; rateIndex++) {
+			if (isMissing[rateIndex] && (rateIndex + 1 >= isMissing.length || isMissing[rateIndex + 1])) {
+				throw new IllegalArgumentException("The par swap rate after a missing one must be given");
+			}
+		}
+		this.firstBond = firstBond;
+		this.secondBond = secondBond;
+		this.yearFraction = yearFraction;
+		this.isMissing = isMissing.clone();
+	}
+
+	/**
+	 * It bootstraps the curves of all the scenarios.
+	 *
+	 * @param parSwapRates, the matrix of the par swap rates: parSwapRates[scenario][i] refers to the bond i + 2 of the
+	 * curve of the scenario
+	 * @param isParallel, if true the chunks of scenarios are bootstrapped in parallel
+	 * @return the matrix of the bonds: the entry [scenario][i] is the bond i of the curve of the scenario
+	 */
+	public double[][] getBonds(double[][] parSwapRates, boolean isParallel) {
+		final int numberOfScenarios = parSwapRates.length;
+		for (int scenarioIndex = 0; scenarioIndex < numberOfScenarios; scenarioIndex++) {
+			if (parSwapRates[scenarioIndex].length != isMissing.length) {
+				throw new IllegalArgumentException("The par swap rates of the scenario " + scenarioIndex
+						+ " do not match the mask of the missing ones");
+			}
+		}
+		final double[][] bonds = new double[numberOfScenarios][isMissing.length + 2];
+
+		final int numberOfChunks = (numberOfScenarios + CHUNK_SIZE - 1) / CHUNK_SIZE;
+		IntStream chunkIndices = IntStream.range(0, numberOfChunks);
+		if (isParallel) {
+			chunkIndices = chunkIndices.parallel();
+		}
+		chunkIndices.forEach(chunkIndex -> bootstrapChunk(parSwapRates, bonds, chunkIndex * CHUNK_SIZE,
+				Math.min((chunkIndex + 1) * CHUNK_SIZE, numberOfScenarios)));
+		return bonds;
+	}
+
+	/*
+	 * It bootstraps the scenarios from firstScenario (included) to lastScenario (excluded), going along the tenure
+	 * structure and updating all of them at every step.
+	 */
+	private void bootstrapChunk(double[][] parSwapRates, double[][] bonds, int firstScenario, int lastScenario) {
+		final int numberOfParSwapRates = isMissing.length;
+		final int numberOfBonds = numberOfParSwapRates + 2;
+		final int chunkSize = lastScenario - firstScenario;
+
+		//ratesOfChunk[i][k] is the par swap rate i of the scenario firstScenario + k
+		final double[][] ratesOfChunk = new double[numberOfParSwapRates][chunkSize];
+		for (int indexInChunk = 0; indexInChunk < chunkSize; indexInChunk++) {
+			final double[] ratesOfScenario = parSwapRates[firstScenario + indexInChunk];
+			for (int rateIndex = 0; rateIndex < numberOfParSwapRates; rateIndex++) {
+				ratesOfChunk[rateIndex][indexInChunk] = ratesOfScenario[rateIndex];
+			}
+		}
+		//bondsOfChunk[i][k] is the bond i of the scenario firstScenario + k
+		final double[][] bondsOfChunk = new double[numberOfBonds][chunkSize];
+		Arrays.fill(bondsOfChunk[0], firstBond);
+		Arrays.fill(bondsOfChunk[1], secondBond);
+
+		final double[] sumsOfBonds = new double[chunkSize];//the first bond is not included
+		Arrays.fill(sumsOfBonds, secondBond);
+
+		int rateIndex = 0;
+		while (rateIndex < numberOfParSwapRates) {
+			if (!isMissing[rateIndex]) {
+				final double[] rates = ratesOfChunk[rateIndex];
+				final double[] newBonds = bondsOfChunk[rateIndex + 2];
+				for (int indexInChunk = 0; indexInChunk < chunkSize; indexInChunk++) {
+					final double parSwapRate = rates[indexInChunk];
+					final double newBond = (firstBond - yearFraction * parSwapRate * sumsOfBonds[indexInChunk]) /
+							(1 + parSwapRate * yearFraction);
+					sumsOfBonds[indexInChunk] += newBond;
+					newBonds[indexInChunk] = newBond;
+				}
+				rateIndex++;
+			} else {
+				final double[] rates = ratesOfChunk[rateIndex + 1];
+				final double[] secondLastBonds = bondsOfChunk[rateIndex];
+				final double[] lastBonds = bondsOfChunk[rateIndex + 1];
+				final double[] interpolatedBonds = bondsOfChunk[rateIndex + 2];
+				final double[] computedBonds = bondsOfChunk[rateIndex + 3];
+				for (int indexInChunk = 0; indexInChunk < chunkSize; indexInChunk++) {
+					final double lastBond = lastBonds[indexInChunk];
+					final double computedBond = Bootstrap.findMissingBondWithSafeguardedNewton(rates[indexInChunk],
+							firstBond, sumsOfBonds[indexInChunk], secondLastBonds[indexInChunk], lastBond, yearFraction,
+							null);
+					final double interpolatedBond = Bootstrap.interpolate(lastBond, computedBond);
+					sumsOfBonds[indexInChunk] += interpolatedBond + computedBond;
+					interpolatedBonds[indexInChunk] = interpolatedBond;
+					computedBonds[indexInChunk] = computedBond;
+				}
+				rateIndex += 2;
+			}
+		}
+
+		for (int indexInChunk = 0; indexInChunk < chunkSize; indexInChunk++) {
+			final double[] bondsOfScenario = bonds[firstScenario + indexInChunk];
+			for (int bondIndex = 0; bondIndex < numberOfBonds; bondIndex++) {
+				bondsOfScenario[bondIndex] = bondsOfChunk[bondIndex][indexInChunk];
+			}
+		}
+	}
+
+	public int getNumberOfBonds() {
+		return isMissing.length + 2;
+	}
+}
@@ -0,0 +1,272 @@
+package com.andreamazzon.exercise5;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * This class keeps an up-to-date zero coupon bond curve bootstrapped from a stream of par swap rate quotes (ticks).
+ * The ticks are given by onTick, which never waits: it only stores the quote in the slot of its par swap rate, replacing
+ * the one which has not been used yet, if any. The pending ticks then take at most one slot for every par swap rate, no
+ * matter how fast they arrive. A single builder thread empties the slots: all the quotes which have arrived while the
+ * previous curve was being built are applied together and the curve is built once, with an IncrementalBootstrap,
+ * starting from the first bond which changed.
+ * The new curve is then published as an immutable CurveSnapshot by replacing the reference to the current one: the
+ * threads reading the curve by getCurve() never wait for the builder and never see a curve which is only partially
+ * built. For every tick, the time from its arrival to the publication of a curve containing it is recorded in a
+ * histogram whose bucket b counts the latencies between 2^b and 2^(b+1) - 1 nanoseconds. The ticks replaced in a slot
+ * are measured from the arrival of the first of them, so their latencies are upper bounds.
+ * If the construction of a curve fails, the exception is recorded and can be read by getLastError(), no curve is
+ * published for those ticks, and the builder goes on with the next ones, building the next curve from scratch.
+ *
+ * @author: Andrea Mazzon
+ */
+public class StreamingCurveService implements AutoCloseable {
+
+	/**
+	 * An immutable curve published by the service.
+	 */
+	public static final class CurveSnapshot {
+		private final double[] bonds;
+		private final long version;
+
+		private CurveSnapshot(double[] bonds, long version) {
+			this.bonds = bonds;
+			this.version = version;
+		}
+
+		public double getBond(int bondIndex) {
+			return bonds[bondIndex];
+		}
+
+		/**
+		 * @return a copy of the bonds of the curve
+		 */
+		public double[] getBonds() {
+			return bonds.clone();
+		}
+
+		public int getNumberOfBonds() {
+			return bonds.length;
+		}
+
+		/**
+		 * @return the number of curves published before this one
+		 */
+		public long getVersion() {
+			return version;
+		}
+	}
+
+	/*
+	 * The last quote of a par swap rate which has not been used yet, together with the number of ticks it replaces
+	 */
+	private static final class Tick {
+		private final double parSwapRate;
+		private final long arrivalTime;//System.nanoTime() at the arrival of the first tick not used yet
+		private final int numberOfTicks;
+
+		private Tick(double parSwapRate, long arrivalTime, int numberOfTicks) {
+			this.parSwapRate = parSwapRate;
+			this.arrivalTime = arrivalTime;
+			this.numberOfTicks = numberOfTicks;
+		}
+	}
+
+	private static final int NUMBER_OF_BUCKETS = 64;
+
+	private final IncrementalBootstrap bootstrap;//only used by the builder thread
+	//the last quotes given to the bootstrap, used to build the curve from scratch after a failure: only used by the
+	//builder thread
+	private final double[] lastParSwapRates;
+	private final boolean[] isMissing;
+
+	//pendingTicks[i] is the last quote of the par swap rate i not used yet, null if there is none
+	private final AtomicReferenceArray<Tick> pendingTicks;
+	//released when an empty slot is filled: the builder waits on it
+	private final Semaphore tickSignal = new Semaphore(0);
+	private final AtomicReference<CurveSnapshot> currentCurve;
+	private final AtomicLongArray latencyHistogram = new AtomicLongArray(NUMBER_OF_BUCKETS);
+	private final AtomicLong numberOfProcessedTicks = new AtomicLong();
+	private final AtomicLong numberOfFailedUpdates = new AtomicLong();
+	private final AtomicReference<Throwable> lastError = new AtomicReference<>();
+
+	private final Thread builder;
+
+	/**
+	 * It bootstraps the initial curve and starts the builder thread.
+	 *
+	 * @param firstBond, the first given bond
+	 * @param secondBond, the second given bond
+	 * @param yearFraction, the constant time step of the tenure structure
+	 * @param initialParSwapRates, the initial par swap rates: parSwapRates[i] refers to the bond i + 2
+	 * @param isMissing, the mask of the missing par swap rates, which never tick
+	 */
+	public StreamingCurveService(double firstBond, double secondBond, double yearFraction, double[] initialParSwapRates,
+			boolean[] isMissing) {
+		bootstrap = new IncrementalBootstrap(firstBond, secondBond, yearFraction, initialParSwapRates, isMissing);
+		this.isMissing = isMissing.clone();
+		lastParSwapRates = initialParSwapRates.clone();
+		pendingTicks = new AtomicReferenceArray<>(isMissing.length);
+		currentCurve = new AtomicReference<>(new CurveSnapshot(bootstrap.getBonds(), 0));
+		builder = new Thread(this::buildCurves, "curve-builder");
+		builder.setDaemon(true);
+		builder.start();
+	}
+
+	/**
+	 * It gives a new quote of a par swap rate to the service. It never blocks: the quote replaces the one of the same
+	 * rate not used yet, if any, and the curve is built later by the builder thread.
+	 *
+	 * @param rateIndex, the index of the par swap rate, which must not be a missing one
+	 * @param parSwapRate, the new quote
+	 */
+	public void onTick(int rateIndex, double parSwapRate) {
+		if (isMissing[rateIndex]) {
+			throw new IllegalArgumentException("The par swap rate " + rateIndex + " is missing");
+		}
+		final long arrivalTime = System.nanoTime();
+		final Tick replacedTick = pendingTicks.getAndUpdate(rateIndex, pendingTick -> pendingTick == null
+				? new Tick(parSwapRate, arrivalTime, 1)
+				: new Tick(parSwapRate, pendingTick.arrivalTime, pendingTick.numberOfTicks + 1));
+		if (replacedTick == null) {
+			tickSignal.release();
+		}
+	}
+
+	/**
+	 * @return the last published curve
+	 */
+	public CurveSnapshot getCurve() {
+		return currentCurve.get();
+	}
+
+	/*
+	 * The loop of the builder thread: it waits for a tick, takes the last quotes of all the par swap rates which have
+	 * ticked so far, builds the curve once and publishes it.
+	 */
+	private void buildCurves() {
+		final int numberOfRates = isMissing.length;
+		final Tick[] burst = new Tick[numberOfRates];
+		final int[] rateIndices = new int[numberOfRates];
+		final double[] parSwapRates = new double[numberOfRates];
+		boolean isRebuildNeeded = false;
+		try {
+			while (!Thread.currentThread().isInterrupted()) {
+				tickSignal.acquire();
+				tickSignal.drainPermits();
+
+				int numberOfUpdates = 0;
+				int numberOfTicks = 0;
+				for (int rateIndex = 0; rateIndex < numberOfRates; rateIndex++) {
+					burst[rateIndex] = pendingTicks.getAndSet(rateIndex, null);
+					if (burst[rateIndex] != null) {
+						lastParSwapRates[rateIndex] = burst[rateIndex].parSwapRate;
+						numberOfTicks += burst[rateIndex].numberOfTicks;
+					}
+					if (burst[rateIndex] != null || isRebuildNeeded && !isMissing[rateIndex]) {
+						rateIndices[numberOfUpdates] = rateIndex;
+						parSwapRates[numberOfUpdates++] = lastParSwapRates[rateIndex];
+					}
+				}
+				if (numberOfTicks == 0) {
+					//the slots had already been emptied after the permit was released
+					continue;
+				}
+
+				try {
+					bootstrap.updateParSwapRates(rateIndices, parSwapRates, numberOfUpdates);
+					currentCurve.set(new CurveSnapshot(bootstrap.getBonds(), currentCurve.get().getVersion() + 1));
+					isRebuildNeeded = false;
+
+					final long publicationTime = System.nanoTime();
+					for (final Tick tick : burst) {
+						if (tick != null) {
+							recordLatency(publicationTime - tick.arrivalTime, tick.numberOfTicks);
+						}
+					}
+				} catch (final RuntimeException e) {
+					//the bootstrap may have been left half updated: the next curve is built from all the rates
+					lastError.set(e);
+					numberOfFailedUpdates.incrementAndGet();
+					isRebuildNeeded = true;
+				}
+				numberOfProcessedTicks.addAndGet(numberOfTicks);
+			}
+		} catch (final InterruptedException e) {
+			//the service has been closed
+		}
+	}
+
+	private void recordLatency(long latency, int numberOfTicks) {
+		final int bucket = latency <= 0 ? 0 : NUMBER_OF_BUCKETS - 1 - Long.numberOfLeadingZeros(latency);
+		latencyHistogram.addAndGet(bucket, numberOfTicks);
+	}
+
+	/**
+	 * @return a copy of the histogram of the latencies: the entry b is the number of ticks whose latency was between
+	 * 2^b and 2^(b+1) - 1 nanoseconds
+	 */
+	public long[] getLatencyHistogram() {
+		final long[] histogram = new long[NUMBER_OF_BUCKETS];
+		for (int bucket = 0; bucket < NUMBER_OF_BUCKETS; bucket++) {
+			histogram[bucket] = latencyHistogram.get(bucket);
+		}
+		return histogram;
+	}
+
+	/**
+	 * It returns an upper bound for the quantile of the latencies, read from the histogram.
+	 *
+	 * @param quantileLevel, the level of the quantile, for example 0.99
+	 * @return the upper bound 2^(b+1) - 1 of the bucket b containing the quantile, in nanoseconds
+	 */
+	public long getLatencyQuantileUpperBound(double quantileLevel) {
+		final long[] histogram = getLatencyHistogram();
+		long numberOfLatencies = 0;
+		for (final long count : histogram) {
+			numberOfLatencies += count;
+		}
+		final double rank = quantileLevel * numberOfLatencies;
+		long cumulativeCount = 0;
+		for (int bucket = 0; bucket < NUMBER_OF_BUCKETS; bucket++) {
+			cumulativeCount += histogram[bucket];
+			if (cumulativeCount >= rank && cumulativeCount > 0) {
+				return bucket == NUMBER_OF_BUCKETS - 1 ? Long.MAX_VALUE : (1L << (bucket + 1)) - 1;
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * @return the number of ticks used by the builder: they are contained in the published curves, unless the
+	 * construction of their curve failed
+	 */
+	public long getNumberOfProcessedTicks() {
+		return numberOfProcessedTicks.get();
+	}
+
+	/**
+	 * @return the number of constructions of a curve which failed
+	 */
+	public long getNumberOfFailedUpdates() {
+		return numberOfFailedUpdates.get();
+	}
+
+	/**
+	 * @return the exception thrown by the last construction of a curve which failed, null if none failed
+	 */
+	public Throwable getLastError() {
+		return lastError.get();
+	}
+
+	/**
+	 * It stops the builder thread. The last published curve can still be read.
+	 */
+	@Override
+	public void close() {
+		builder.interrupt();
+	}
+}
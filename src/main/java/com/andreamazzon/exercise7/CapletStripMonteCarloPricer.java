@@ -0,0 +1,187 @@
+package com.andreamazzon.exercise7;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.andreamazzon.exercise1.OptionStrikeLadder;
+
+import net.finmath.exception.CalculationException;
+import net.finmath.montecarlo.assetderivativevaluation.AssetModelMonteCarloSimulationModel;
+import net.finmath.montecarlo.assetderivativevaluation.MonteCarloBlackScholesModel;
+import net.finmath.time.TimeDiscretization;
+import net.finmath.time.TimeDiscretizationFromArray;
+
+/**
+ * This class computes the values of strips of caplets under the Black model with a Monte Carlo method, as
+ * InterestRateProducts.calculateCapletValueBlackModelWithMonteCarlo, but without simulating the LIBOR again for every
+ * caplet. The simulated Black model of the LIBOR only depends on its initial value, on its volatility, on the fixing
+ * date, on the time step and on the number of simulations: it is constructed once for every such set of parameters and
+ * stored in a cache, so that the paths are simulated only at the first valuation. The cache keeps at most a given
+ * number of models: when it is full, the model which has not been used for the longest time is removed. All the caplets of a strip (with the
+ * same LIBOR but different strikes, notionals and payment dates) are then valued together from the same paths, with a
+ * single traversal of the paths given by OptionStrikeLadder.
+ *
+ * @auhor: Andrea Mazzon
+ */
+public class CapletStripMonteCarloPricer {
+
+	/*
+	 * The parameters identifying a simulated Black model of the LIBOR.
+	 */
+	private static final class ModelKey {
+		private final double initialForwardLibor;
+		private final double liborVolatility;
+		private final double fixingDate;
+		private final double timeStep;
+		private final int numberOfSimulations;
+
+		private ModelKey(double initialForwardLibor, double liborVolatility, double fixingDate, double timeStep,
+				int numberOfSimulations) {
+			this.initialForwardLibor = initialForwardLibor;
+			this.liborVolatility = liborVolatility;
+			this.fixingDate = fixingDate;
+			this.timeStep = timeStep;
+			this.numberOfSimulations = numberOfSimulations;
+		}
+
+		@Override
+		public boolean equals(Object object) {
+			if (this == object) {
+				return true;
+			}
+			if (!(object instanceof ModelKey)) {
+				return false;
+			}
+			final ModelKey key = (ModelKey) object;
+			return Double.compare(initialForwardLibor, key.initialForwardLibor) == 0
+					&& Double.compare(liborVolatility, key.liborVolatility) == 0
+					&& Double.compare(fixingDate, key.fixingDate) == 0
+					&& Double.compare(timeStep, key.timeStep) == 0
+					&& numberOfSimulations == key.numberOfSimulations;
+		}
+
+		@Override
+		public int hashCode() {
+			int hash = Double.hashCode(initialForwardLibor);
+			hash = 31 * hash + Double.hashCode(liborVolatility);
+			hash = 31 * hash + Double.hashCode(fixingDate);
+			hash = 31 * hash + Double.hashCode(timeStep);
+			return 31 * hash + numberOfSimulations;
+		}
+	}
+
+	private final int maximumNumberOfCachedModels;
+
+	/*
+	 * The models in the order of their last use, so that the eldest entry is the least recently used one. The map is
+	 * accessed only in synchronized methods.
+	 */
+	private final Map<ModelKey, AssetModelMonteCarloSimulationModel> cachedModels;
+
+	/**
+	 * @param maximumNumberOfCachedModels, the maximum number of simulated models kept in the cache
+	 */
+	public CapletStripMonteCarloPricer(int maximumNumberOfCachedModels) {
+		if (maximumNumberOfCachedModels < 1) {
+			throw new IllegalArgumentException("The cache must be able to keep at least one model");
+		}
+		this.maximumNumberOfCachedModels = maximumNumberOfCachedModels;
+		cachedModels = new LinkedHashMap<ModelKey, AssetModelMonteCarloSimulationModel>(16, 0.75f, true) {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<ModelKey, AssetModelMonteCarloSimulationModel> eldest) {
+				return size() > CapletStripMonteCarloPricer.this.maximumNumberOfCachedModels;
+			}
+		};
+	}
+
+	/**
+	 * It constructs a pricer whose cache keeps at most eight simulated models.
+	 */
+	public CapletStripMonteCarloPricer() {
+		this(8);
+	}
+
+	/**
+	 * It returns the values of a strip of caplets on the same LIBOR under the Black model, computed with a Monte Carlo
+	 * method from a simulated LIBOR which is constructed only if it is not already in the cache.
+	 *
+	 * @param initialForwardLibor,        i.e. L_0 = L(T_1,T_2;0)
+	 * @param liborVolatility,            the volatility of the LIBOR process under the Black model
+	 * @param fixingDate,                 i.e. T_1
+	 * @param timeStep,                   the time step of the simulation
+	 * @param numberOfSimulations,        the number of simulated paths
+	 * @param strikes,                    the strikes of the caplets
+	 * @param paymentDates,               the payment dates of the caplets
+	 * @param paymentDateDiscountFactors, the bonds maturing at the payment dates of the caplets
+	 * @param notionals,                  the notionals of the caplets
+	 * @return the values of the caplets, in the order of the strikes
+	 * @throws CalculationException
+	 */
+	public double[] getCapletValues(double initialForwardLibor, double liborVolatility, double fixingDate,
+			double timeStep, int numberOfSimulations, double[] strikes, double[] paymentDates,
+			double[] paymentDateDiscountFactors, double[] notionals) throws CalculationException {
+		final int numberOfCaplets = strikes.length;
+		if (paymentDates.length != numberOfCaplets || paymentDateDiscountFactors.length != numberOfCaplets
+				|| notionals.length != numberOfCaplets) {
+			throw new IllegalArgumentException("The arrays have incompatible lengths");
+		}
+		final AssetModelMonteCarloSimulationModel blackModel = getModel(initialForwardLibor, liborVolatility,
+				fixingDate, timeStep, numberOfSimulations);
+
+		// the values of the call options on the LIBOR for all the strikes, with one traversal of the paths
+		final double[] optionValues = new OptionStrikeLadder(fixingDate, strikes).getEuropeanOptionValues(blackModel);
+
+		final double[] capletValues = new double[numberOfCaplets];
+		for (int capletIndex = 0; capletIndex < numberOfCaplets; capletIndex++) {
+			final double periodLength = paymentDates[capletIndex] - fixingDate;
+			capletValues[capletIndex] = notionals[capletIndex] * paymentDateDiscountFactors[capletIndex] * periodLength
+					* optionValues[capletIndex];
+		}
+		return capletValues;
+	}
+
+	/**
+	 * It returns the simulated Black model of the LIBOR for the given parameters, from the cache if it has already been
+	 * constructed. The paths of a new model are simulated only when they are first used, outside of this method.
+	 *
+	 * @param initialForwardLibor, i.e. L_0 = L(T_1,T_2;0)
+	 * @param liborVolatility,     the volatility of the LIBOR process under the Black model
+	 * @param fixingDate,          i.e. T_1, the final time of the simulation
+	 * @param timeStep,            the time step of the simulation
+	 * @param numberOfSimulations, the number of simulated paths
+	 * @return the model
+	 */
+	public synchronized AssetModelMonteCarloSimulationModel getModel(double initialForwardLibor, double liborVolatility,
+			double fixingDate, double timeStep, int numberOfSimulations) {
+		return cachedModels.computeIfAbsent(
+				new ModelKey(initialForwardLibor, liborVolatility, fixingDate, timeStep, numberOfSimulations),
+				key -> {
+					final int numberOfTimeSteps = (int) Math.round(fixingDate / timeStep);
+					final TimeDiscretization times = new TimeDiscretizationFromArray(0.0, numberOfTimeSteps, timeStep);
+					// the LIBOR has no drift under the measure associated to the bond maturing at the payment date
+					return new MonteCarloBlackScholesModel(times, numberOfSimulations, initialForwardLibor, 0,
+							liborVolatility);
+				});
+	}
+
+	/**
+	 * @return the number of simulated models in the cache
+	 */
+	public synchronized int getNumberOfCachedModels() {
+		return cachedModels.size();
+	}
+
+	/**
+	 * It removes all the simulated models from the cache.
+	 */
+	public synchronized void clearCache() {
+		cachedModels.clear();
+	}
+
+	public int getMaximumNumberOfCachedModels() {
+		return maximumNumberOfCachedModels;
+	}
+}
@@ -1,10 +1,13 @@
 package com.andreamazzon.exercise7;
 
+import java.util.stream.IntStream;
+
 import com.andreamazzon.exercise4.Swap;
 import com.andreamazzon.exercise4.SwapWithoutFinmath;
 
 import net.finmath.exception.CalculationException;
 import net.finmath.functions.AnalyticFormulas;
+import net.finmath.functions.NormalDistribution;
 import net.finmath.montecarlo.assetderivativevaluation.AssetModelMonteCarloSimulationModel;
 import net.finmath.montecarlo.assetderivativevaluation.MonteCarloBlackScholesModel;
 import net.finmath.montecarlo.assetderivativevaluation.products.EuropeanOption;
@@ -19,6 +22,9 @@ import net.finmath.time.TimeDiscretizationFromArray;
  */
 public class InterestRateProducts {
 
+	//the caplets of calculateCapletValuesBlackModel are split in chunks of this size, valued in parallel if required
+	private static final int CHUNK_SIZE = 4096;
+
 	/**
 	 * This method calculates and return the value of a Caplet under the Black
 	 * model.
@@ -43,6 +49,114 @@ public class InterestRateProducts {
 		return notional * paymentDateDiscountFactor * periodLength
 				* AnalyticFormulas.blackScholesOptionValue(initialForwardLibor, 0, liborVolatility, fixingDate, strike);
 	}
+
+	/**
+	 * This method calculates the values of many caplets under the Black model, as calculateCapletValueBlackModel, and
+	 * writes them in the given array. The data of the caplets are given as arrays, one for every argument of
+	 * calculateCapletValueBlackModel: the caplet i has forward initialForwardLibors[i], volatility liborVolatilities[i]
+	 * and so on. The Black formula is computed in the loop, without calling AnalyticFormulas for every caplet. The
+	 * caplets can be split in chunks which are valued in parallel.
+	 * In every chunk, the Black formula for positive forward, strike, volatility and fixing date is first computed for
+	 * all the caplets in a loop without branches over the arrays. The degenerate caplets, for which this gives
+	 * meaningless values, are then found and valued again with blackCallValue in a second loop.
+	 *
+	 * @param initialForwardLibors,       the initial forward LIBORs L(T_1,T_2;0)
+	 * @param liborVolatilities,          the volatilities of the LIBOR processes
+	 * @param strikes,                    the strikes
+	 * @param fixingDates,                the fixing dates T_1
+	 * @param paymentDates,               the payment dates T_2
+	 * @param paymentDateDiscountFactors, the bonds P(T_2;0)
+	 * @param notionals,                  the notionals
+	 * @param values,                     the array where the values of the caplets are written
+	 * @param isParallel,                 if true the caplets are split in chunks which are valued in parallel
+	 */
+	public static void calculateCapletValuesBlackModel(double[] initialForwardLibors, double[] liborVolatilities,
+			double[] strikes, double[] fixingDates, double[] paymentDates, double[] paymentDateDiscountFactors,
+			double[] notionals, double[] values, boolean isParallel) {
+		final int numberOfCaplets = values.length;
+		if (initialForwardLibors.length != numberOfCaplets || liborVolatilities.length != numberOfCaplets
+				|| strikes.length != numberOfCaplets || fixingDates.length != numberOfCaplets
+				|| paymentDates.length != numberOfCaplets || paymentDateDiscountFactors.length != numberOfCaplets
+				|| notionals.length != numberOfCaplets) {
+			throw new IllegalArgumentException("The arrays have incompatible lengths");
+		}
+		final int numberOfChunks = (numberOfCaplets + CHUNK_SIZE - 1) / CHUNK_SIZE;
+		IntStream chunkIndices = IntStream.range(0, numberOfChunks);
+		if (isParallel) {
+			chunkIndices = chunkIndices.parallel();
+		}
+		chunkIndices.forEach(chunkIndex -> {
+			final int firstCapletIndex = chunkIndex * CHUNK_SIZE;
+			final int lastCapletIndex = Math.min((chunkIndex + 1) * CHUNK_SIZE, numberOfCaplets);
+			//regular case: the same computation as in blackCallValue, with no branches in the loop
+			for (int capletIndex = firstCapletIndex; capletIndex < lastCapletIndex; capletIndex++) {
+				final double forward = initialForwardLibors[capletIndex];
+				final double strike = strikes[capletIndex];
+				final double volatilityTimesSquareRootOfMaturity = liborVolatilities[capletIndex]
+						* Math.sqrt(fixingDates[capletIndex]);
+				final double dPlus = (Math.log(forward / strike) + 0.5 * volatilityTimesSquareRootOfMaturity
+						* volatilityTimesSquareRootOfMaturity) / volatilityTimesSquareRootOfMaturity;
+				final double dMinus = dPlus - volatilityTimesSquareRootOfMaturity;
+				final double periodLength = paymentDates[capletIndex] - fixingDates[capletIndex];
+				values[capletIndex] = notionals[capletIndex] * paymentDateDiscountFactors[capletIndex] * periodLength
+						* (forward * NormalDistribution.cumulativeDistribution(dPlus)
+								- strike * NormalDistribution.cumulativeDistribution(dMinus));
+			}
+			//degenerate cases, which are rare: their values above are overwritten
+			for (int capletIndex = firstCapletIndex; capletIndex < lastCapletIndex; capletIndex++) {
+				if (!(initialForwardLibors[capletIndex] > 0 && strikes[capletIndex] > 0
+						&& liborVolatilities[capletIndex] > 0 && fixingDates[capletIndex] > 0)) {
+					final double periodLength = paymentDates[capletIndex] - fixingDates[capletIndex];
+					values[capletIndex] = notionals[capletIndex] * paymentDateDiscountFactors[capletIndex] * periodLength
+							* blackCallValue(initialForwardLibors[capletIndex], liborVolatilities[capletIndex],
+									fixingDates[capletIndex], strikes[capletIndex]);
+				}
+			}
+		});
+	}
+
+	/*
+	 * The value of a call option on a log-normal underlying with zero drift and no discounting, i.e., the Black
+	 * formula F N(d_1) - K N(d_2), with the same conventions of AnalyticFormulas.blackScholesOptionValue for the
+	 * degenerate cases: a negative forward is reflected by max(F - K, 0) = F - K + max(-F - (-K), 0), and if the
+	 * forward is zero, or the strike, the volatility or the maturity are not positive, the value is max(F - K, 0).
+	 */
+	static double blackCallValue(double forward, double volatility, double maturity, double strike) {
+		if (maturity < 0) {
+			return 0.0;
+		}
+		if (forward < 0) {
+			return forward - strike + blackCallValue(-forward, volatility, maturity, -strike);
+		}
+		if (forward == 0 || strike <= 0.0 || volatility <= 0.0 || maturity <= 0.0) {
+			return Math.max(forward - strike, 0.0);
+		}
+		final double volatilityTimesSquareRootOfMaturity = volatility * Math.sqrt(maturity);
+		final double dPlus = (Math.log(forward / strike) + 0.5 * volatilityTimesSquareRootOfMaturity
+				* volatilityTimesSquareRootOfMaturity) / volatilityTimesSquareRootOfMaturity;
+		final double dMinus = dPlus - volatilityTimesSquareRootOfMaturity;
+		return forward * NormalDistribution.cumulativeDistribution(dPlus)
+				- strike * NormalDistribution.cumulativeDistribution(dMinus);
+	}
+
+	/*
+	 * The value of a call option on a normal underlying with zero drift and no discounting, i.e., the Bachelier
+	 * formula (F - K) N(d) + sigma sqrt(T) phi(d) with d = (F - K) / (sigma sqrt(T)). As in blackCallValue, the
+	 * intrinsic value is returned when the volatility or the maturity is not positive.
+	 */
+	static double bachelierCallValue(double forward, double volatility, double maturity, double strike) {
+		if (maturity < 0) {
+			return 0.0;
+		}
+		if (volatility <= 0.0 || maturity <= 0.0) {
+			return Math.max(forward - strike, 0.0);
+		}
+		final double volatilityTimesSquareRootOfMaturity = volatility * Math.sqrt(maturity);
+		final double d = (forward - strike) / volatilityTimesSquareRootOfMaturity;
+		return (forward - strike) * NormalDistribution.cumulativeDistribution(d)
+				+ volatilityTimesSquareRootOfMaturity * NormalDistribution.density(d);
+	}
+
 	/**
 	 * This method calculates and return the value of a Caplet under the Black
 	 * model, using a Monte Carlo method.
@@ -0,0 +1,173 @@
+package com.andreamazzon.exercise7;
+
+import java.util.stream.IntStream;
+
+import com.andreamazzon.exercise4.AnnuityIndex;
+
+import net.finmath.time.TimeDiscretization;
+
+/**
+ * This class values a whole cube of swaptions on the same zero coupon bond curve, under the Black or the Bachelier
+ * model: the swaption with indices [i][j][k] has the i-th expiry, the j-th tenor and the k-th strike of the grids given
+ * by the user, and its own volatility. The swaption with expiry T_{s+1} and tenor of m periods is the option to enter
+ * at T_{s+1} the swap paying at T_{s+2}, ..., T_{s+m+1}: as in InterestRateProducts, its value is the annuity times
+ * the value of a call option on the forward par swap rate.
+ * Instead of constructing a swap for every swaption as in InterestRateProducts.calculateSwaptionValueBlack, the
+ * annuities and the forward par swap rates of all the couples (expiry, tenor) are computed once from the cumulative sums
+ * of an AnnuityIndex, with one subtraction each. All the strikes are then valued in a single loop, in parallel over the
+ * expiries if required.
+ *
+ * @auhor: Andrea Mazzon
+ */
+public class SwaptionCubePricer {
+
+	private final TimeDiscretization swapDates;//tenure structure, starting from T_1
+	private final AnnuityIndex annuityIndex;
+
+	/**
+	 * @param swapDates, the tenure structure T_1,...,T_n
+	 * @param zeroBondCurve, the zero coupon bonds P(T_1;0),...,P(T_n;0)
+	 */
+	public SwaptionCubePricer(TimeDiscretization swapDates, double[] zeroBondCurve) {
+		if (swapDates.getNumberOfTimes() < zeroBondCurve.length) {
+			throw new IllegalArgumentException("The tenure structure is shorter than the curve");
+		}
+		this.swapDates = swapDates;
+		annuityIndex = new AnnuityIndex(swapDates, zeroBondCurve);
+	}
+
+	/**
+	 * It returns the annuities of the underlying swaps: the entry [i][j] refers to the swap starting at the i-th expiry
+	 * and with the j-th tenor.
+	 *
+	 * @param expiryIndices, the indices s of the expiries T_{s+1} in the tenure structure
+	 * @param tenorLengths, the numbers of periods of the underlying swaps
+	 * @return the matrix of the annuities
+	 */
+	public double[][] getAnnuities(int[] expiryIndices, int[] tenorLengths) {
+		checkGrid(expiryIndices, tenorLengths);
+		final double[][] annuities = new double[expiryIndices.length][tenorLengths.length];
+		for (int i = 0; i < expiryIndices.length; i++) {
+			for (int j = 0; j < tenorLengths.length; j++) {
+				annuities[i][j] = annuityIndex.getAnnuity(expiryIndices[i], expiryIndices[i] + tenorLengths[j]);
+			}
+		}
+		return annuities;
+	}
+
+	/**
+	 * It returns the forward par swap rates of the underlying swaps: the entry [i][j] refers to the swap starting at
+	 * the i-th expiry and with the j-th tenor.
+	 *
+	 * @param expiryIndices, the indices s of the expiries T_{s+1} in the tenure structure
+	 * @param tenorLengths, the numbers of periods of the underlying swaps
+	 * @return the matrix of the forward par swap rates
+	 */
+	public double[][] getForwardSwapRates(int[] expiryIndices, int[] tenorLengths) {
+		checkGrid(expiryIndices, tenorLengths);
+		final double[][] forwardSwapRates = new double[expiryIndices.length][tenorLengths.length];
+		for (int i = 0; i < expiryIndices.length; i++) {
+			for (int j = 0; j < tenorLengths.length; j++) {
+				forwardSwapRates[i][j] = annuityIndex.getParSwapRate(expiryIndices[i],
+						expiryIndices[i] + tenorLengths[j]);
+			}
+		}
+		return forwardSwapRates;
+	}
+
+	/**
+	 * It values the cube of swaptions under the Black model, where the par swap rates have log-normal dynamics.
+	 *
+	 * @param expiryIndices, the indices s of the expiries T_{s+1} in the tenure structure
+	 * @param tenorLengths, the numbers of periods of the underlying swaps
+	 * @param strikes, the strikes
+	 * @param volatilities, the log-normal volatilities: the entry [i][j][k] refers to the i-th expiry, the j-th tenor
+	 * and the k-th strike
+	 * @param notional, the notional of the swaptions
+	 * @param isParallel, if true the expiries are valued in parallel
+	 * @return the cube of the values, with the same indices as the volatilities
+	 */
+	public double[][][] getBlackValues(int[] expiryIndices, int[] tenorLengths, double[] strikes,
+			double[][][] volatilities, double notional, boolean isParallel) {
+		return getValues(expiryIndices, tenorLengths, strikes, volatilities, notional, isParallel, false);
+	}
+
+	/**
+	 * It values the cube of swaptions under the Bachelier model, where the par swap rates have normal dynamics.
+	 *
+	 * @param expiryIndices, the indices s of the expiries T_{s+1} in the tenure structure
+	 * @param tenorLengths, the numbers of periods of the underlying swaps
+	 * @param strikes, the strikes
+	 * @param volatilities, the normal volatilities: the entry [i][j][k] refers to the i-th expiry, the j-th tenor and
+	 * the k-th strike
+	 * @param notional, the notional of the swaptions
+	 * @param isParallel, if true the expiries are valued in parallel
+	 * @return the cube of the values, with the same indices as the volatilities
+	 */
+	public double[][][] getBachelierValues(int[] expiryIndices, int[] tenorLengths, double[] strikes,
+			double[][][] volatilities, double notional, boolean isParallel) {
+		return getValues(expiryIndices, tenorLengths, strikes, volatilities, notional, isParallel, true);
+	}
+
+	private double[][][] getValues(int[] expiryIndices, int[] tenorLengths, double[] strikes,
+			double[][][] volatilities, double notional, boolean isParallel, boolean isBachelier) {
+		final int numberOfExpiries = expiryIndices.length;
+		final int numberOfTenors = tenorLengths.length;
+		final int numberOfStrikes = strikes.length;
+		if (volatilities.length != numberOfExpiries) {
+			throw new IllegalArgumentException("The volatilities do not match the grid");
+		}
+		for (final double[][] volatilitiesOfExpiry : volatilities) {
+			if (volatilitiesOfExpiry.length != numberOfTenors) {
+				throw new IllegalArgumentException("The volatilities do not match the grid");
+			}
+			for (final double[] volatilitiesOfSwap : volatilitiesOfExpiry) {
+				if (volatilitiesOfSwap.length != numberOfStrikes) {
+					throw new IllegalArgumentException("The volatilities do not match the grid");
+				}
+			}
+		}
+		// computed once for all the strikes
+		final double[][] annuities = getAnnuities(expiryIndices, tenorLengths);
+		final double[][] forwardSwapRates = getForwardSwapRates(expiryIndices, tenorLengths);
+
+		final double[][][] values = new double[numberOfExpiries][numberOfTenors][numberOfStrikes];
+		IntStream expiries = IntStream.range(0, numberOfExpiries);
+		if (isParallel) {
+			expiries = expiries.parallel();
+		}
+		expiries.forEach(i -> {
+			final double exerciseDate = swapDates.getTime(expiryIndices[i]);
+			for (int j = 0; j < numberOfTenors; j++) {
+				final double forwardSwapRate = forwardSwapRates[i][j];
+				final double notionalTimesAnnuity = notional * annuities[i][j];
+				final double[] volatilitiesOfSwap = volatilities[i][j];
+				final double[] valuesOfSwap = values[i][j];
+				for (int k = 0; k < numberOfStrikes; k++) {
+					final double optionValue = isBachelier
+							? InterestRateProducts.bachelierCallValue(forwardSwapRate, volatilitiesOfSwap[k],
+									exerciseDate, strikes[k])
+							: InterestRateProducts.blackCallValue(forwardSwapRate, volatilitiesOfSwap[k], exerciseDate,
+									strikes[k]);
+					valuesOfSwap[k] = notionalTimesAnnuity * optionValue;
+				}
+			}
+		});
+		return values;
+	}
+
+	/*
+	 * Every swap of the grid must end within the tenure structure.
+	 */
+	private void checkGrid(int[] expiryIndices, int[] tenorLengths) {
+		final int curveLength = annuityIndex.getCurveLength();
+		for (final int expiryIndex : expiryIndices) {
+			for (final int tenorLength : tenorLengths) {
+				if (expiryIndex < 0 || tenorLength <= 0 || expiryIndex + tenorLength >= curveLength) {
+					throw new IllegalArgumentException("The swap with expiry index " + expiryIndex + " and tenor "
+							+ tenorLength + " is not in the tenure structure");
+				}
+			}
+		}
+	}
+}
@@ -9,9 +9,13 @@ import net.finmath.marketdata.model.curves.ForwardCurveInterpolation;
 import net.finmath.montecarlo.BrownianMotion;
 import net.finmath.montecarlo.BrownianMotionFromMersenneRandomNumbers;
 import net.finmath.montecarlo.IndependentIncrements;
+import net.finmath.montecarlo.RandomVariableFactory;
+import net.finmath.montecarlo.RandomVariableFromArrayFactory;
+import net.finmath.montecarlo.interestrate.CalibrationProduct;
 import net.finmath.montecarlo.interestrate.LIBORMarketModel;
 import net.finmath.montecarlo.interestrate.LIBORModelMonteCarloSimulationModel;
 import net.finmath.montecarlo.interestrate.LIBORMonteCarloSimulationFromLIBORModel;
+import net.finmath.montecarlo.interestrate.models.LIBORMarketModelFromCovarianceModel;
 import net.finmath.montecarlo.interestrate.models.LIBORMarketModelStandard;
 import net.finmath.montecarlo.interestrate.models.covariance.LIBORCorrelationModel;
 import net.finmath.montecarlo.interestrate.models.covariance.LIBORCorrelationModelExponentialDecay;
@@ -112,6 +116,98 @@ public class LIBORMarketModelConstruction {
 			double a, double b, double c, double d
 			)
 					throws CalculationException {
+		return createLIBORMarketModel(numberOfPaths, simulationTimeStep, LIBORPeriodLength, LIBORRateTimeHorizon,
+				fixingForGivenForwards, givenForwards, correlationDecayParam, a, b, c, d, 1897);
+	}
+
+	/**
+	 * It simulates a LIBOR Market Model as the method above, but with the Brownian motion generated from the given
+	 * seed. Simulations with different seeds give independent blocks of paths, which can be valued separately (even in
+	 * different processes) and then merged.
+	 * @param numberOfPaths: number of simulations
+	 * @param simulationTimeStep: the time step for the simulation of the LIBOR processes
+	 * @param LIBORPeriodLength: the length of the interval between times of the tenure structure
+	 * @param LIBORRateTimeHorizon: final LIBOR maturity
+	 * @param fixingForGivenForwards: the times of the tenure structure where the initial forwards are given
+	 * @param givenForwards: the given initial forwards (from which the others are interpolated)
+	 * @param correlationDecayParam, parameter \alpha>0, for the correlation of the LIBORs
+	 * @param a, the first term for the volatility structure
+	 * @param b, the second term for the volatility structure
+	 * @param c, the third term for the volatility structure
+	 * @param d, the fourth term for the volatility structure
+	 * @param seed, the seed of the Mersenne Twister generating the Brownian motion
+	 * @return an object implementing LIBORModelMonteCarloSimulationModel, i.e., representing the simulation of a LMM
+	 * @throws CalculationException
+	 */
+	public static LIBORModelMonteCarloSimulationModel
+	createLIBORMarketModel(int numberOfPaths,
+			double simulationTimeStep,
+			double LIBORPeriodLength, //T_i-T_{i-1}, we suppose it to be fixed
+			double LIBORRateTimeHorizon, //T_n
+			double[] fixingForGivenForwards,
+			double[] givenForwards,
+			double correlationDecayParam, // decay of the correlation between LIBOR rates
+			double a, double b, double c, double d,
+			int seed
+			)
+					throws CalculationException {
+		return createLIBORMarketModelWithGivenFactory(numberOfPaths, simulationTimeStep, LIBORPeriodLength,
+				LIBORRateTimeHorizon, fixingForGivenForwards, givenForwards, correlationDecayParam, a, b, c, d, null,
+				seed);
+	}
+
+	/**
+	 * It simulates a LIBOR Market Model as the method above, but the random variables of the simulation (the Brownian
+	 * increments and the LIBOR processes) are constructed by the given RandomVariableFactory. For example, with a
+	 * RandomVariableFloatFactory the realizations are stored in single precision, so that the simulation needs half of
+	 * the memory. Since LIBORMarketModelStandard always works with double precision, the model is in this case a
+	 * LIBORMarketModelFromCovarianceModel, whatever the factory, with its default properties (log-normal LIBORs under
+	 * the spot measure, as LIBORMarketModelStandard).
+	 * @param numberOfPaths: number of simulations
+	 * @param simulationTimeStep: the time step for the simulation of the LIBOR processes
+	 * @param LIBORPeriodLength: the length of the interval between times of the tenure structure
+	 * @param LIBORRateTimeHorizon: final LIBOR maturity
+	 * @param fixingForGivenForwards: the times of the tenure structure where the initial forwards are given
+	 * @param givenForwards: the given initial forwards (from which the others are interpolated)
+	 * @param correlationDecayParam, parameter \alpha>0, for the correlation of the LIBORs
+	 * @param a, the first term for the volatility structure
+	 * @param b, the second term for the volatility structure
+	 * @param c, the third term for the volatility structure
+	 * @param d, the fourth term for the volatility structure
+	 * @param randomVariableFactory, the factory constructing the random variables of the simulation
+	 * @return an object implementing LIBORModelMonteCarloSimulationModel, i.e., representing the simulation of a LMM
+	 * @throws CalculationException
+	 */
+	public static LIBORModelMonteCarloSimulationModel
+	createLIBORMarketModel(int numberOfPaths,
+			double simulationTimeStep,
+			double LIBORPeriodLength, //T_i-T_{i-1}, we suppose it to be fixed
+			double LIBORRateTimeHorizon, //T_n
+			double[] fixingForGivenForwards,
+			double[] givenForwards,
+			double correlationDecayParam, // decay of the correlation between LIBOR rates
+			double a, double b, double c, double d,
+			RandomVariableFactory randomVariableFactory
+			)
+					throws CalculationException {
+		if (randomVariableFactory == null) {
+			throw new IllegalArgumentException("The factory of the random variables must be given");
+		}
+		return createLIBORMarketModelWithGivenFactory(numberOfPaths, simulationTimeStep, LIBORPeriodLength,
+				LIBORRateTimeHorizon, fixingForGivenForwards, givenForwards, correlationDecayParam, a, b, c, d,
+				randomVariableFactory, 1897);
+	}
+
+	/*
+	 * It simulates the LIBOR Market Model: with a null factory, the model is a LIBORMarketModelStandard and the
+	 * random variables have double precision, otherwise the model is a LIBORMarketModelFromCovarianceModel and all the
+	 * random variables are constructed by the factory. The Brownian motion is generated from the given seed.
+	 */
+	private static LIBORModelMonteCarloSimulationModel createLIBORMarketModelWithGivenFactory(int numberOfPaths,
+			double simulationTimeStep, double LIBORPeriodLength, double LIBORRateTimeHorizon,
+			double[] fixingForGivenForwards, double[] givenForwards, double correlationDecayParam,
+			double a, double b, double c, double d, RandomVariableFactory randomVariableFactory, int seed)
+					throws CalculationException {
 		/*
 		 In order to simulate a LIBOR market model, we need to proceed along the following steps:
 		 1) provide the time discretization for the evolution of the processes
@@ -187,18 +283,39 @@ public class LIBORMarketModelConstruction {
 		 Combine the forward curve and the covariance model, together with the time discretization of the
 		 tenure structure, to define the model
 		 */
-		final ProcessModel LIBORMarketModel = new LIBORMarketModelStandard(
-				LIBORPeriodDiscretization,
-				forwardCurve,
-				covarianceModel
-				);
+		final ProcessModel LIBORMarketModel;
+		if (randomVariableFactory == null) {
+			LIBORMarketModel = new LIBORMarketModelStandard(
+					LIBORPeriodDiscretization,
+					forwardCurve,
+					covarianceModel
+					);
+		} else {
+			/*
+			 * LIBORMarketModelStandard always works with double precision: when a factory is given we use
+			 * LIBORMarketModelFromCovarianceModel, with its default properties (log-normal LIBORs under the spot
+			 * measure, as LIBORMarketModelStandard)
+			 */
+			LIBORMarketModel = new LIBORMarketModelFromCovarianceModel(
+					LIBORPeriodDiscretization,
+					null,//no analytic model
+					forwardCurve,
+					null,//the discount curve is derived from the forward curve
+					randomVariableFactory,
+					covarianceModel,
+					new CalibrationProduct[0],
+					null//default properties
+					);
+		}
 
 		//Step 8: create an Euler scheme of the LIBOR model defined above
 		final BrownianMotion brownianMotion = new BrownianMotionFromMersenneRandomNumbers(
 				timeDiscretization,
 				LIBORPeriodDiscretization.getNumberOfTimes()-1,//no factor reduction for now
 				numberOfPaths,
-				1897 // seed
+				seed,
+				//the Brownian increments are constructed with the same factory as the model
+				randomVariableFactory != null ? randomVariableFactory : new RandomVariableFromArrayFactory()
 				);
 
 		final MonteCarloProcess process = new
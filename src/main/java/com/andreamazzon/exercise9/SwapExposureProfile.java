@@ -0,0 +1,131 @@
+package com.andreamazzon.exercise9;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import net.finmath.exception.CalculationException;
+import net.finmath.montecarlo.RandomVariableFromDoubleArray;
+import net.finmath.montecarlo.interestrate.LIBORModelMonteCarloSimulationModel;
+import net.finmath.stochastic.RandomVariable;
+import net.finmath.time.TimeDiscretization;
+
+/**
+ * This class computes the exposure profile of a payer swap simulated with a LIBOR market model, i.e., the
+ * mark-to-market value of the swap at the dates of the tenure structure, path by path.
+ * The swap has notional N, fixed rate K, and pays on the periods [T_k,T_{k+1}] of the tenure structure from
+ * swapStart = T_s to swapEnd = T_e. Its value at a date T_j of the tenure structure, with j < e, is
+ * V(T_j) = N (P(T_{max(s,j)};T_j) - P(T_e;T_j) - K sum_{k=max(s,j)}^{e-1} (T_{k+1}-T_k) P(T_{k+1};T_j)),
+ * where the zero coupon bonds are obtained by the LIBOR rates at T_j:
+ * P(T_{k+1};T_j) = P(T_k;T_j) / (1 + (T_{k+1}-T_k) L(T_k,T_{k+1};T_j)), P(T_j;T_j) = 1.
+ * The bonds and the annuity are then computed together in a single loop over the periods, as running product and
+ * running sum. For the exposure profile, at every date we only keep the expected positive exposure and the quantile
+ * of the value: the values at the different dates are not stored.
+ *
+ * @author Andrea Mazzon
+ */
+public class SwapExposureProfile {
+
+	private final double swapStart; // T_s
+	private final double swapEnd; // T_e
+	private final double fixedRate;
+	private final double notional;
+
+	/**
+	 * @param swapStart, the start T_s of the first period of the swap: it must be a date of the tenure structure
+	 * @param swapEnd, the end T_e of the last period of the swap: it must be a date of the tenure structure
+	 * @param fixedRate, the fixed rate K of the swap
+	 * @param notional, the notional N of the swap
+	 */
+	public SwapExposureProfile(double swapStart, double swapEnd, double fixedRate, double notional) {
+		this.swapStart = swapStart;
+		this.swapEnd = swapEnd;
+		this.fixedRate = fixedRate;
+		this.notional = notional;
+	}
+
+	/**
+	 * It computes the value of the swap at a date of the tenure structure before the end of the swap, path by path.
+	 *
+	 * @param evaluationTime, the date T_j of the tenure structure at which the swap is valued
+	 * @param model, the simulation of the LIBOR market model
+	 * @return the random variable representing the value V(T_j) of the swap (not discounted)
+	 * @throws CalculationException
+	 */
+	public RandomVariable getValue(double evaluationTime, LIBORModelMonteCarloSimulationModel model)
+			throws CalculationException {
+		final TimeDiscretization tenureStructure = model.getLiborPeriodDiscretization();
+		final int evaluationIndex = getTenureStructureIndex(tenureStructure, evaluationTime);
+		final int startIndex = Math.max(getTenureStructureIndex(tenureStructure, swapStart), evaluationIndex);
+		final int endIndex = getTenureStructureIndex(tenureStructure, swapEnd);
+
+		//running product giving P(T_k;T_j), starting from P(T_j;T_j) = 1
+		RandomVariable bond = new RandomVariableFromDoubleArray(1.0);
+		RandomVariable bondAtStart = bond;
+		RandomVariable annuity = new RandomVariableFromDoubleArray(0.0);
+		for (int periodIndex = evaluationIndex; periodIndex < endIndex; periodIndex++) {
+			final double periodStart = tenureStructure.getTime(periodIndex);
+			final double periodEnd = tenureStructure.getTime(periodIndex + 1);
+			final double periodLength = periodEnd - periodStart;
+			final RandomVariable libor = model.getLIBOR(evaluationTime, periodStart, periodEnd);
+
+			//P(T_{k+1};T_j) = P(T_k;T_j) / (1 + (T_{k+1}-T_k) L(T_k,T_{k+1};T_j))
+			bond = bond.discount(libor, periodLength);
+			if (periodIndex + 1 == startIndex) {
+				bondAtStart = bond;
+			}
+			if (periodIndex >= startIndex) {
+				annuity = annuity.addProduct(bond, periodLength);
+			}
+		}
+		return bondAtStart.sub(bond).sub(annuity.mult(fixedRate)).mult(notional);
+	}
+
+	/**
+	 * It computes the exposure profile of the swap at the dates of the tenure structure from 0 to the one before the
+	 * end of the swap. The result is a map with the following entries:
+	 * "times": the dates T_j;
+	 * "expectedPositiveExposure": the expectation of max(V(T_j),0) N(0)/N(T_j), where N is the numeraire;
+	 * "potentialFutureExposure": the quantile of V(T_j) at the given level, floored at zero.
+	 *
+	 * @param model, the simulation of the LIBOR market model
+	 * @param quantileLevel, the level of the quantile for the potential future exposure, for example 0.95
+	 * @return the map described above
+	 * @throws CalculationException
+	 */
+	public Map<String, double[]> getExposureProfile(LIBORModelMonteCarloSimulationModel model, double quantileLevel)
+			throws CalculationException {
+		final TimeDiscretization tenureStructure = model.getLiborPeriodDiscretization();
+		final int numberOfDates = getTenureStructureIndex(tenureStructure, swapEnd);
+
+		final double[] times = new double[numberOfDates];
+		final double[] expectedPositiveExposure = new double[numberOfDates];
+		final double[] potentialFutureExposure = new double[numberOfDates];
+
+		final RandomVariable numeraireAtZero = model.getNumeraire(0.0);
+		for (int dateIndex = 0; dateIndex < numberOfDates; dateIndex++) {
+			final double time = tenureStructure.getTime(dateIndex);
+			//the value at this date is used for the two statistics and then thrown away
+			final RandomVariable value = getValue(time, model);
+			final RandomVariable positiveExposure = value.floor(0.0);
+
+			times[dateIndex] = time;
+			expectedPositiveExposure[dateIndex] = positiveExposure.div(model.getNumeraire(time)).mult(numeraireAtZero)
+					.getAverage();
+			potentialFutureExposure[dateIndex] = Math.max(value.getQuantile(quantileLevel), 0.0);
+		}
+
+		final Map<String, double[]> exposureProfile = new HashMap<>();
+		exposureProfile.put("times", times);
+		exposureProfile.put("expectedPositiveExposure", expectedPositiveExposure);
+		exposureProfile.put("potentialFutureExposure", potentialFutureExposure);
+		return exposureProfile;
+	}
+
+	private static int getTenureStructureIndex(TimeDiscretization tenureStructure, double time) {
+		final int index = tenureStructure.getTimeIndex(time);
+		if (index < 0) {
+			throw new IllegalArgumentException("The time " + time + " is not a date of the tenure structure");
+		}
+		return index;
+	}
+}
@@ -0,0 +1,135 @@
+package com.andreamazzon.montecarlo;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import net.finmath.exception.CalculationException;
+import net.finmath.montecarlo.RandomVariableFromDoubleArray;
+import net.finmath.montecarlo.assetderivativevaluation.AssetModelMonteCarloSimulationModel;
+import net.finmath.montecarlo.assetderivativevaluation.products.AbstractAssetMonteCarloProduct;
+
+/**
+ * This class computes the Monte-Carlo value of a product with a number of paths which is not fixed a priori, but
+ * depends on the accuracy we want. The paths are simulated in batches: the first batch is given by the model passed
+ * in the constructor, and every new batch is given by a clone of this model with a different seed. After every batch,
+ * the standard error of the average is updated (see BatchStatistics) and the valuation stops as soon as it is smaller
+ * than the requested absolute error or than the requested relative error (with respect to the value), or when the
+ * maximum number of paths is reached. If the maximum number of paths is smaller than the size of a batch, only the first
+ * maximumNumberOfPaths paths of the first batch are used.
+ *
+ * @author Andrea Mazzon
+ *
+ */
+public class AdaptiveMonteCarloValuation {
+
+	private final AssetModelMonteCarloSimulationModel batchModel;
+	private final double targetAbsoluteError;
+	private final double targetRelativeError;
+	private final long maximumNumberOfPaths;
+	private final int seed;//used to generate the seeds of the batches after the first one
+
+	/**
+	 * @param batchModel, the model simulating one batch: its number of paths is the size of every batch
+	 * @param targetAbsoluteError, the valuation stops when the standard error is smaller than this value. If it is zero,
+	 * 	this criterion is not used
+	 * @param targetRelativeError, the valuation stops when the standard error divided by the absolute value of the
+	 * 	Monte-Carlo value is smaller than this value. If it is zero, this criterion is not used
+	 * @param maximumNumberOfPaths, the valuation stops when the next batch would exceed this number of paths. It must
+	 * be positive
+	 * @param seed, the seed used to generate the seeds of the batches after the first one
+	 */
+	public AdaptiveMonteCarloValuation(AssetModelMonteCarloSimulationModel batchModel, double targetAbsoluteError,
+			double targetRelativeError, long maximumNumberOfPaths, int seed) {
+		if (maximumNumberOfPaths <= 0) {
+			throw new IllegalArgumentException("The maximum number of paths must be positive");
+		}
+		this.batchModel = batchModel;
+		this.targetAbsoluteError = targetAbsoluteError;
+		this.targetRelativeError = targetRelativeError;
+		this.maximumNumberOfPaths = maximumNumberOfPaths;
+		this.seed = seed;
+	}
+
+	/**
+	 * @param batchModel, the model simulating one batch: its number of paths is the size of every batch
+	 * @param targetAbsoluteError, the valuation stops when the standard error is smaller than this value. If it is zero,
+	 * 	this criterion is not used
+	 * @param targetRelativeError, the valuation stops when the standard error divided by the absolute value of the
+	 * 	Monte-Carlo value is smaller than this value. If it is zero, this criterion is not used
+	 * @param maximumNumberOfPaths, the valuation stops when the next batch would exceed this number of paths
+	 */
+	public AdaptiveMonteCarloValuation(AssetModelMonteCarloSimulationModel batchModel, double targetAbsoluteError,
+			double targetRelativeError, long maximumNumberOfPaths) {
+		this(batchModel, targetAbsoluteError, targetRelativeError, maximumNumberOfPaths, 1897);
+	}
+
+	/**
+	 * It computes the value of the product at time 0, simulating batches of paths until the requested accuracy is
+	 * reached.
+	 *
+	 * @param product, the product to be valued
+	 * @return the statistics of the valuation: average, standard error and number of paths
+	 * @throws CalculationException
+	 */
+	public BatchStatistics getStatistics(AbstractAssetMonteCarloProduct product) throws CalculationException {
+		final BatchStatistics statistics = new BatchStatistics();
+		//it gives us the seeds of the batches: in this way, the result only depends on the seed given in the constructor
+		final Random seedGenerator = new Random(seed);
+		final int batchSize = batchModel.getNumberOfPaths();
+
+		if (batchSize > maximumNumberOfPaths) {
+			//the first batch alone would exceed the maximum: we only take its first paths
+			final double[] batchValues = product.getValue(0.0, batchModel).getRealizations();
+			statistics.addBatch(new RandomVariableFromDoubleArray(0.0,
+					Arrays.copyOf(batchValues, (int) maximumNumberOfPaths)));
+			return statistics;
+		}
+
+		AssetModelMonteCarloSimulationModel currentBatchModel = batchModel;
+		while (true) {
+			statistics.addBatch(product.getValue(0.0, currentBatchModel));
+			if (isAccurateEnough(statistics) || statistics.getNumberOfPaths() + batchSize > maximumNumberOfPaths) {
+				return statistics;
+			}
+			currentBatchModel = batchModel.getCloneWithModifiedSeed(seedGenerator.nextInt());
+		}
+	}
+
+	/**
+	 * It computes the value of the product at time 0, simulating batches of paths until the requested accuracy is
+	 * reached, and returns a map with the value (key "value"), the standard error (key "error") and the number of
+	 * simulated paths (key "numberOfPaths").
+	 *
+	 * @param product, the product to be valued
+	 * @return the map described above
+	 * @throws CalculationException
+	 */
+	public Map<String, Object> getValues(AbstractAssetMonteCarloProduct product) throws CalculationException {
+		final BatchStatistics statistics = getStatistics(product);
+		final Map<String, Object> result = new HashMap<>();
+		result.put("value", statistics.getAverage());
+		result.put("error", statistics.getStandardError());
+		result.put("numberOfPaths", statistics.getNumberOfPaths());
+		return result;
+	}
+
+	/**
+	 * It computes the value of the product at time 0, simulating batches of paths until the requested accuracy is
+	 * reached.
+	 *
+	 * @param product, the product to be valued
+	 * @return the Monte-Carlo value of the product
+	 * @throws CalculationException
+	 */
+	public double getValue(AbstractAssetMonteCarloProduct product) throws CalculationException {
+		return getStatistics(product).getAverage();
+	}
+
+	private boolean isAccurateEnough(BatchStatistics statistics) {
+		final double standardError = statistics.getStandardError();
+		return (targetAbsoluteError > 0 && standardError <= targetAbsoluteError)
+				|| (targetRelativeError > 0 && standardError <= targetRelativeError * Math.abs(statistics.getAverage()));
+	}
+}
@@ -0,0 +1,75 @@
+package com.andreamazzon.montecarlo;
+
+import net.finmath.stochastic.RandomVariable;
+
+/**
+ * This class collects the statistics (number of paths, average and sum of the squared deviations from the average) of
+ * a Monte-Carlo valuation which is run in batches of paths. Every time a new batch is added, the statistics are
+ * updated by merging the ones of the batch with the ones computed so far: in this way, we never have to store the
+ * realizations of the previous batches.
+ *
+ * @author Andrea Mazzon
+ *
+ */
+public class BatchStatistics {
+
+	private long numberOfPaths;
+	private double average;
+	private double sumOfSquaredDeviations;//sum over all the paths of (x_i - average)^2
+
+	/**
+	 * It adds the realizations of a new batch of paths to the statistics.
+	 *
+	 * @param batchValues, the random variable whose realizations are the values of the batch
+	 */
+	public void addBatch(RandomVariable batchValues) {
+		final int batchSize = batchValues.size();
+		/*
+		 * getVariance() of the Finmath library is the (biased) variance of the realizations, i.e., the sum of the
+		 * squared deviations divided by the number of realizations
+		 */
+		addBatch(batchSize, batchValues.getAverage(), batchValues.getVariance() * batchSize);
+	}
+
+	/**
+	 * It adds the statistics of a new batch of paths to the statistics.
+	 *
+	 * @param batchSize, the number of paths of the batch
+	 * @param batchAverage, the average of the values of the batch
+	 * @param batchSumOfSquaredDeviations, the sum of the squared deviations of the values of the batch from batchAverage
+	 */
+	public void addBatch(long batchSize, double batchAverage, double batchSumOfSquaredDeviations) {
+		if (batchSize == 0) {
+			return;
+		}
+		final long newNumberOfPaths = numberOfPaths + batchSize;
+		final double deviationOfAverages = batchAverage - average;
+		//the merge formula for averages and sums of squared deviations of two samples
+		average += deviationOfAverages * batchSize / newNumberOfPaths;
+		sumOfSquaredDeviations += batchSumOfSquaredDeviations
+				+ deviationOfAverages * deviationOfAverages * numberOfPaths * batchSize / newNumberOfPaths;
+		numberOfPaths = newNumberOfPaths;
+	}
+
+	public long getNumberOfPaths() {
+		return numberOfPaths;
+	}
+
+	public double getAverage() {
+		return average;
+	}
+
+	/**
+	 * @return the (unbiased) sample variance of the values of all the paths added so far
+	 */
+	public double getVariance() {
+		return numberOfPaths > 1 ? sumOfSquaredDeviations / (numberOfPaths - 1) : 0.0;
+	}
+
+	/**
+	 * @return the standard error of the average, i.e., the square root of the sample variance divided by the number of paths
+	 */
+	public double getStandardError() {
+		return numberOfPaths > 0 ? Math.sqrt(getVariance() / numberOfPaths) : Double.POSITIVE_INFINITY;
+	}
+}
@@ -0,0 +1,180 @@
+package com.andreamazzon.montecarlo;
+
+import java.util.function.DoubleUnaryOperator;
+
+import net.finmath.exception.CalculationException;
+import net.finmath.montecarlo.BrownianMotion;
+import net.finmath.montecarlo.RandomVariableFromDoubleArray;
+import net.finmath.montecarlo.assetderivativevaluation.MonteCarloBlackScholesModel;
+import net.finmath.montecarlo.assetderivativevaluation.products.AbstractAssetMonteCarloProduct;
+import net.finmath.stochastic.RandomVariable;
+import net.finmath.time.TimeDiscretization;
+import net.finmath.time.TimeDiscretizationFromArray;
+
+/**
+ * This class values a European payoff f(S(T)) under the Black-Scholes model for a whole grid of scenarios for the initial
+ * value S(0) and for the volatility sigma, without a new simulation for every scenario. The idea is that
+ * S(T) = S(0) exp((r - sigma^2/2)T + sigma W(T)),
+ * so that once we know the realizations of W(T), S(T) for any other initial value and volatility is obtained by
+ * rescaling. The realizations of W(T) are taken once from the simulation given in the constructor, and then all the
+ * scenarios are valued in a single pass over the paths: for every path, the exponential is computed once per
+ * volatility and multiplied by all the initial values.
+ * The products of the Finmath library whose payoff only depends on S(T), as EuropeanOption or the AssetOrNothing
+ * option of exercise1, can also be valued on the grid: for every scenario, they are valued on a
+ * MonteCarloBlackScholesModel with the single time step [0,T], whose Brownian increment is given by the stored
+ * realizations of W(T). No random numbers are generated again, and the log-Euler step of this model gives exactly the
+ * S(T) above.
+ *
+ * @author Andrea Mazzon
+ *
+ */
+public class BlackScholesScenarioGrid {
+
+	private final double maturity;
+	private final double riskFreeRate;
+	private final double[] brownianMotionAtMaturity;//the realizations of W(T)
+
+	/**
+	 * @param model, the simulation of the Black-Scholes model from which we take the realizations of W(T)
+	 * @param maturity, the maturity T of the payoffs to be valued
+	 * @throws CalculationException
+	 */
+	public BlackScholesScenarioGrid(MonteCarloBlackScholesModel model, double maturity) throws CalculationException {
+		this.maturity = maturity;
+		final double initialValue = model.getAssetValue(0.0, 0).getAverage();
+		riskFreeRate = model.getModel().getRiskFreeRate().getAverage();
+		final double volatility = model.getModel().getVolatility().getAverage();
+
+		// W(T) = (log(S(T)/S(0)) - (r - sigma^2/2)T)/sigma
+		final RandomVariable brownianMotion = model.getAssetValue(maturity, 0).div(initialValue).log()
+				.sub((riskFreeRate - 0.5 * volatility * volatility) * maturity).div(volatility);
+		brownianMotionAtMaturity = brownianMotion.getRealizations();
+	}
+
+	/**
+	 * It computes the values at time 0 of the payoff f(S(T)) for all the scenarios of initial value and volatility.
+	 *
+	 * @param payoff, the function f in the payoff f(S(T))
+	 * @param initialValues, the initial values S(0) of the scenarios
+	 * @param volatilities, the volatilities sigma of the scenarios
+	 * @return the matrix of the values: the entry [i][j] is the value for initialValues[i] and volatilities[j]
+	 */
+	public double[][] getValues(DoubleUnaryOperator payoff, double[] initialValues, double[] volatilities) {
+		final int numberOfInitialValues = initialValues.length;
+		final int numberOfVolatilities = volatilities.length;
+
+		// the deterministic part of the exponent, (r - sigma^2/2)T, for every volatility
+		final double[] drifts = new double[numberOfVolatilities];
+		for (int volatilityIndex = 0; volatilityIndex < numberOfVolatilities; volatilityIndex++) {
+			drifts[volatilityIndex] = (riskFreeRate - 0.5 * volatilities[volatilityIndex] * volatilities[volatilityIndex])
+					* maturity;
+		}
+
+		final double[][] sumsOfPayoffs = new double[numberOfInitialValues][numberOfVolatilities];
+		for (final double brownianMotionValue : brownianMotionAtMaturity) {
+			for (int volatilityIndex = 0; volatilityIndex < numberOfVolatilities; volatilityIndex++) {
+				// S(T)/S(0), the same for all the initial values
+				final double growthFactor = Math.exp(drifts[volatilityIndex] + volatilities[volatilityIndex] * brownianMotionValue);
+				for (int initialValueIndex = 0; initialValueIndex < numberOfInitialValues; initialValueIndex++) {
+					sumsOfPayoffs[initialValueIndex][volatilityIndex] += payoff.applyAsDouble(
+							initialValues[initialValueIndex] * growthFactor);
+				}
+			}
+		}
+
+		// average and discounting
+		final double discountFactor = Math.exp(-riskFreeRate * maturity) / brownianMotionAtMaturity.length;
+		for (final double[] row : sumsOfPayoffs) {
+			for (int volatilityIndex = 0; volatilityIndex < numberOfVolatilities; volatilityIndex++) {
+				row[volatilityIndex] *= discountFactor;
+			}
+		}
+		return sumsOfPayoffs;
+	}
+
+	/**
+	 * It computes the values at time 0 of the product for all the scenarios of initial value and volatility. The payoff
+	 * of the product must only depend on the value of the underlying at the maturity given in the constructor.
+	 *
+	 * @param product, the product to be valued
+	 * @param initialValues, the initial values S(0) of the scenarios
+	 * @param volatilities, the volatilities sigma of the scenarios
+	 * @return the matrix of the values: the entry [i][j] is the value for initialValues[i] and volatilities[j]
+	 * @throws CalculationException
+	 */
+	public double[][] getValues(AbstractAssetMonteCarloProduct product, double[] initialValues, double[] volatilities)
+			throws CalculationException {
+		final BrownianMotion brownianMotion = new TerminalBrownianMotion(maturity, brownianMotionAtMaturity);
+		final double[][] values = new double[initialValues.length][volatilities.length];
+		for (int initialValueIndex = 0; initialValueIndex < initialValues.length; initialValueIndex++) {
+			for (int volatilityIndex = 0; volatilityIndex < volatilities.length; volatilityIndex++) {
+				values[initialValueIndex][volatilityIndex] = product.getValue(new MonteCarloBlackScholesModel(
+						initialValues[initialValueIndex], riskFreeRate, volatilities[volatilityIndex], brownianMotion));
+			}
+		}
+		return values;
+	}
+
+	/*
+	 * A one-dimensional Brownian motion on the time discretization {0, T}, whose only increment is given by the stored
+	 * realizations of W(T).
+	 */
+	private static class TerminalBrownianMotion implements BrownianMotion {
+
+		private final TimeDiscretization timeDiscretization;
+		private final RandomVariable increment;
+
+		TerminalBrownianMotion(double maturity, double[] brownianMotionAtMaturity) {
+			timeDiscretization = new TimeDiscretizationFromArray(0.0, maturity);
+			increment = new RandomVariableFromDoubleArray(maturity, brownianMotionAtMaturity);
+		}
+
+		@Override
+		public RandomVariable getBrownianIncrement(int timeIndex, int factor) {
+			return increment;
+		}
+
+		@Override
+		public RandomVariable getIncrement(int timeIndex, int factor) {
+			return increment;
+		}
+
+		@Override
+		public TimeDiscretization getTimeDiscretization() {
+			return timeDiscretization;
+		}
+
+		@Override
+		public int getNumberOfFactors() {
+			return 1;
+		}
+
+		@Override
+		public int getNumberOfPaths() {
+			return increment.size();
+		}
+
+		@Override
+		public RandomVariable getRandomVariableForConstant(double value) {
+			return new RandomVariableFromDoubleArray(value);
+		}
+
+		@Override
+		public BrownianMotion getCloneWithModifiedSeed(int seed) {
+			throw new UnsupportedOperationException("The realizations of W(T) are given");
+		}
+
+		@Override
+		public BrownianMotion getCloneWithModifiedTimeDiscretization(TimeDiscretization newTimeDiscretization) {
+			throw new UnsupportedOperationException("The realizations of W(T) are given");
+		}
+	}
+
+	public double getMaturity() {
+		return maturity;
+	}
+
+	public int getNumberOfPaths() {
+		return brownianMotionAtMaturity.length;
+	}
+}
@@ -0,0 +1,174 @@
+package com.andreamazzon.montecarlo;
+
+import com.andreamazzon.exercise9.LIBORMarketModelConstruction;
+
+import net.finmath.exception.CalculationException;
+import net.finmath.montecarlo.interestrate.LIBORModelMonteCarloSimulationModel;
+import net.finmath.montecarlo.interestrate.products.TermStructureMonteCarloProduct;
+
+/**
+ * This class computes the Monte-Carlo value of a product under the LIBOR Market Model constructed by
+ * LIBORMarketModelConstruction, by splitting the paths in blocks, as BlockedMonteCarloBlackScholesValuation does for
+ * the Black-Scholes model. Every block is a LIBORMonteCarloSimulationFromLIBORModel with its own paths: the product is
+ * valued on it and the block is then thrown away before the next one is simulated, so that only the statistics of the
+ * blocks are merged (see BatchStatistics).
+ * Block number b is simulated by reseeding the Brownian motion with seed seed + b, so that every block can be generated
+ * independently of the others, also in another process (see ShardedLIBORMarketModelValuation).
+ *
+ * @author Andrea Mazzon
+ *
+ */
+public class BlockedLIBORMarketModelValuation {
+
+	private final long numberOfPaths;
+	private final int blockSize;
+
+	//parameters of the model, see LIBORMarketModelConstruction.createLIBORMarketModel
+	private final double simulationTimeStep;
+	private final double LIBORPeriodLength;
+	private final double LIBORRateTimeHorizon;
+	private final double[] fixingForGivenForwards;
+	private final double[] givenForwards;
+	private final double correlationDecayParam;
+	private final double a, b, c, d;
+
+	private final int seed;
+
+	/**
+	 * @param numberOfPaths, the total number of simulated paths
+	 * @param blockSize, the number of paths of every block (the last one might be smaller)
+	 * @param simulationTimeStep, the time step for the simulation of the LIBOR processes
+	 * @param LIBORPeriodLength, the length of the interval between times of the tenure structure
+	 * @param LIBORRateTimeHorizon, final LIBOR maturity
+	 * @param fixingForGivenForwards, the times of the tenure structure where the initial forwards are given
+	 * @param givenForwards, the given initial forwards (from which the others are interpolated)
+	 * @param correlationDecayParam, parameter \alpha>0, for the correlation of the LIBORs
+	 * @param a, the first term for the volatility structure
+	 * @param b, the second term for the volatility structure
+	 * @param c, the third term for the volatility structure
+	 * @param d, the fourth term for the volatility structure
+	 * @param seed, the seed of the first block
+	 */
+	public BlockedLIBORMarketModelValuation(long numberOfPaths, int blockSize, double simulationTimeStep,
+			double LIBORPeriodLength, double LIBORRateTimeHorizon, double[] fixingForGivenForwards,
+			double[] givenForwards, double correlationDecayParam, double a, double b, double c, double d, int seed) {
+		this.numberOfPaths = numberOfPaths;
+		this.blockSize = blockSize;
+		this.simulationTimeStep = simulationTimeStep;
+		this.LIBORPeriodLength = LIBORPeriodLength;
+		this.LIBORRateTimeHorizon = LIBORRateTimeHorizon;
+		this.fixingForGivenForwards = fixingForGivenForwards.clone();
+		this.givenForwards = givenForwards.clone();
+		this.correlationDecayParam = correlationDecayParam;
+		this.a = a;
+		this.b = b;
+		this.c = c;
+		this.d = d;
+		this.seed = seed;
+	}
+
+	/**
+	 * @return the number of blocks in which the paths are split
+	 */
+	public int getNumberOfBlocks() {
+		return (int) ((numberOfPaths + blockSize - 1) / blockSize);
+	}
+
+	/**
+	 * It returns the simulation of the block with given index. The blocks can be simulated independently of each other.
+	 *
+	 * @param blockIndex, the index of the block, between 0 and getNumberOfBlocks() - 1
+	 * @return the simulation of the LIBOR Market Model for the paths of the block
+	 * @throws CalculationException
+	 */
+	public LIBORModelMonteCarloSimulationModel getBlockModel(int blockIndex) throws CalculationException {
+		final int numberOfPathsOfTheBlock = (int) Math.min(blockSize, numberOfPaths - (long) blockIndex * blockSize);
+		return LIBORMarketModelConstruction.createLIBORMarketModel(numberOfPathsOfTheBlock, simulationTimeStep,
+				LIBORPeriodLength, LIBORRateTimeHorizon, fixingForGivenForwards, givenForwards, correlationDecayParam,
+				a, b, c, d, seed + blockIndex);
+	}
+
+	/**
+	 * It computes the statistics of the value of the product at time 0 for the blocks from firstBlockIndex (included)
+	 * to lastBlockIndex (excluded), simulating one block after the other.
+	 *
+	 * @param product, the product to be valued
+	 * @param firstBlockIndex, the index of the first block
+	 * @param lastBlockIndex, the index after the one of the last block
+	 * @return the statistics of the valuation for the given blocks
+	 * @throws CalculationException
+	 */
+	public BatchStatistics getStatistics(TermStructureMonteCarloProduct product, int firstBlockIndex,
+			int lastBlockIndex) throws CalculationException {
+		final BatchStatistics statistics = new BatchStatistics();
+		for (int blockIndex = firstBlockIndex; blockIndex < lastBlockIndex; blockIndex++) {
+			statistics.addBatch(product.getValue(0.0, getBlockModel(blockIndex)));
+		}
+		return statistics;
+	}
+
+	/**
+	 * It computes the statistics of the value of the product at time 0, simulating one block after the other.
+	 *
+	 * @param product, the product to be valued
+	 * @return the statistics of the valuation
+	 * @throws CalculationException
+	 */
+	public BatchStatistics getStatistics(TermStructureMonteCarloProduct product) throws CalculationException {
+		return getStatistics(product, 0, getNumberOfBlocks());
+	}
+
+	/**
+	 * It computes the value of the product at time 0, simulating one block after the other.
+	 *
+	 * @param product, the product to be valued
+	 * @return the Monte-Carlo value of the product
+	 * @throws CalculationException
+	 */
+	public double getValue(TermStructureMonteCarloProduct product) throws CalculationException {
+		return getStatistics(product).getAverage();
+	}
+
+	public long getNumberOfPaths() {
+		return numberOfPaths;
+	}
+
+	public int getBlockSize() {
+		return blockSize;
+	}
+
+	public double getSimulationTimeStep() {
+		return simulationTimeStep;
+	}
+
+	public double getLIBORPeriodLength() {
+		return LIBORPeriodLength;
+	}
+
+	public double getLIBORRateTimeHorizon() {
+		return LIBORRateTimeHorizon;
+	}
+
+	public double[] getFixingForGivenForwards() {
+		return fixingForGivenForwards.clone();
+	}
+
+	public double[] getGivenForwards() {
+		return givenForwards.clone();
+	}
+
+	public double getCorrelationDecayParam() {
+		return correlationDecayParam;
+	}
+
+	/**
+	 * @return the four terms a, b, c, d of the volatility structure
+	 */
+	public double[] getVolatilityParameters() {
+		return new double[] { a, b, c, d };
+	}
+
+	public int getSeed() {
+		return seed;
+	}
+}
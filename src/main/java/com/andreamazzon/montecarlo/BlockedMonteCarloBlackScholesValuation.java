@@ -0,0 +1,273 @@
+package com.andreamazzon.montecarlo;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.DoubleUnaryOperator;
+
+import net.finmath.exception.CalculationException;
+import net.finmath.functions.NormalDistribution;
+import net.finmath.montecarlo.BrownianMotion;
+import net.finmath.montecarlo.BrownianMotionFromMersenneRandomNumbers;
+import net.finmath.montecarlo.RandomVariableFromDoubleArray;
+import net.finmath.montecarlo.assetderivativevaluation.AssetModelMonteCarloSimulationModel;
+import net.finmath.montecarlo.assetderivativevaluation.MonteCarloBlackScholesModel;
+import net.finmath.montecarlo.assetderivativevaluation.products.AbstractAssetMonteCarloProduct;
+import net.finmath.randomnumbers.MersenneTwister;
+import net.finmath.time.TimeDiscretization;
+
+/**
+ * This class computes the Monte-Carlo value of a product under the Black-Scholes model by splitting the paths in blocks
+ * of small size (a few thousands paths). Every block is simulated through all the times of the time discretization,
+ * the payoff of the product is computed on it and the block is then thrown away before the next one is simulated: only
+ * the statistics of the blocks are merged (see BatchStatistics). In this way, the memory needed does not depend on the
+ * total number of paths.
+ * There are two ways to value a block:
+ * - for a payoff depending on the value of the underlying at maturity, given as a DoubleUnaryOperator, the evolution
+ * and the payoff are fused: every path of the block is evolved with the log-Euler scheme keeping only its current
+ * value, and at maturity the discounted payoff is stored. The memory needed is then the one of the discounted payoffs
+ * of the block, which stay in the cache of the processor, independently of the number of time steps;
+ * - for any product of the Finmath library, the block is a MonteCarloBlackScholesModel, which stores the values of the
+ * paths of the block at all the times (see getBlockModel).
+ * Block number b is simulated with seed seed + b, so that every block can be generated independently of the others.
+ * The random numbers of a block are the ones of BrownianMotionFromMersenneRandomNumbers with that seed, so the two ways
+ * simulate the same paths.
+ *
+ * @author Andrea Mazzon
+ *
+ */
+public class BlockedMonteCarloBlackScholesValuation {
+
+	private final TimeDiscretization times;
+	private final long numberOfPaths;
+	private final int blockSize;
+
+	//parameters of the model
+	private final double initialValue;
+	private final double riskFreeRate;
+	private final double volatility;
+
+	private final int seed;
+
+	/**
+	 * @param times, the time discretization of the simulation
+	 * @param numberOfPaths, the total number of simulated paths
+	 * @param blockSize, the number of paths of every block (the last one might be smaller)
+	 * @param initialValue, the initial value of the underlying
+	 * @param riskFreeRate, the risk free rate of the model
+	 * @param volatility, the volatility of the underlying
+	 * @param seed, the seed of the first block
+	 */
+	public BlockedMonteCarloBlackScholesValuation(TimeDiscretization times, long numberOfPaths, int blockSize,
+			double initialValue, double riskFreeRate, double volatility, int seed) {
+		this.times = times;
+		this.numberOfPaths = numberOfPaths;
+		this.blockSize = blockSize;
+		this.initialValue = initialValue;
+		this.riskFreeRate = riskFreeRate;
+		this.volatility = volatility;
+		this.seed = seed;
+	}
+
+	/**
+	 * @param times, the time discretization of the simulation
+	 * @param numberOfPaths, the total number of simulated paths
+	 * @param blockSize, the number of paths of every block (the last one might be smaller)
+	 * @param initialValue, the initial value of the underlying
+	 * @param riskFreeRate, the risk free rate of the model
+	 * @param volatility, the volatility of the underlying
+	 */
+	public BlockedMonteCarloBlackScholesValuation(TimeDiscretization times, long numberOfPaths, int blockSize,
+			double initialValue, double riskFreeRate, double volatility) {
+		this(times, numberOfPaths, blockSize, initialValue, riskFreeRate, volatility, 3141);
+	}
+
+	/**
+	 * @return the number of blocks in which the paths are split
+	 */
+	public int getNumberOfBlocks() {
+		return (int) ((numberOfPaths + blockSize - 1) / blockSize);
+	}
+
+	/**
+	 * It returns the simulation of the block with given index. The blocks can be simulated independently of each other.
+	 *
+	 * @param blockIndex, the index of the block, between 0 and getNumberOfBlocks() - 1
+	 * @return the simulation of the Black-Scholes model for the paths of the block
+	 */
+	public AssetModelMonteCarloSimulationModel getBlockModel(int blockIndex) {
+		final int numberOfPathsOfTheBlock = getNumberOfPathsOfTheBlock(blockIndex);
+		final BrownianMotion brownianMotion = new BrownianMotionFromMersenneRandomNumbers(
+				times, 1, numberOfPathsOfTheBlock, seed + blockIndex);
+		return new MonteCarloBlackScholesModel(initialValue, riskFreeRate, volatility, brownianMotion);
+	}
+
+	private int getNumberOfPathsOfTheBlock(int blockIndex) {
+		return (int) Math.min(blockSize, numberOfPaths - (long) blockIndex * blockSize);
+	}
+
+	/**
+	 * It computes the statistics of the value of the product at time 0 for the blocks from firstBlockIndex (included)
+	 * to lastBlockIndex (excluded), simulating one block after the other.
+	 *
+	 * @param product, the product to be valued
+	 * @param firstBlockIndex, the index of the first block
+	 * @param lastBlockIndex, the index after the one of the last block
+	 * @return the statistics of the valuation for the given blocks
+	 * @throws CalculationException
+	 */
+	public BatchStatistics getStatistics(AbstractAssetMonteCarloProduct product, int firstBlockIndex, int lastBlockIndex)
+			throws CalculationException {
+		final BatchStatistics statistics = new BatchStatistics();
+		for (int blockIndex = firstBlockIndex; blockIndex < lastBlockIndex; blockIndex++) {
+			/*
+			 * the block model is only referenced here: once its payoff is computed, it can be garbage collected
+			 * before the next block is simulated
+			 */
+			statistics.addBatch(product.getValue(0.0, getBlockModel(blockIndex)));
+		}
+		return statistics;
+	}
+
+	/**
+	 * It computes the statistics of the value at time 0 of the payoff for the blocks from firstBlockIndex (included) to
+	 * lastBlockIndex (excluded), evolving every path of a block up to maturity and applying the payoff, without storing
+	 * the paths.
+	 *
+	 * @param payoff, the payoff as a function of the value of the underlying at maturity
+	 * @param maturity, the maturity of the payoff, which must be a time of the time discretization
+	 * @param firstBlockIndex, the index of the first block
+	 * @param lastBlockIndex, the index after the one of the last block
+	 * @return the statistics of the valuation for the given blocks
+	 */
+	public BatchStatistics getStatistics(DoubleUnaryOperator payoff, double maturity, int firstBlockIndex,
+			int lastBlockIndex) {
+		final int maturityIndex = times.getTimeIndex(maturity);
+		if (maturityIndex < 0) {
+			throw new IllegalArgumentException("The maturity " + maturity
+					+ " is not a time of the time discretization");
+		}
+		final int numberOfTimeSteps = times.getNumberOfTimeSteps();
+		final double[] squareRootsOfTimeSteps = new double[numberOfTimeSteps];
+		final double[] drifts = new double[numberOfTimeSteps];//of the logarithm of the underlying
+		for (int timeIndex = 0; timeIndex < numberOfTimeSteps; timeIndex++) {
+			final double timeStep = times.getTimeStep(timeIndex);
+			squareRootsOfTimeSteps[timeIndex] = Math.sqrt(timeStep);
+			drifts[timeIndex] = (riskFreeRate - 0.5 * volatility * volatility) * timeStep;
+		}
+		final double logInitialValue = Math.log(initialValue);
+		final double discountFactor = Math.exp(-riskFreeRate * maturity);
+
+		final BatchStatistics statistics = new BatchStatistics();
+		for (int blockIndex = firstBlockIndex; blockIndex < lastBlockIndex; blockIndex++) {
+			final int numberOfPathsOfTheBlock = getNumberOfPathsOfTheBlock(blockIndex);
+			//the random numbers are drawn path after path, and for every path time after time
+			final MersenneTwister randomNumberGenerator = new MersenneTwister(seed + blockIndex);
+			final double[] discountedPayoffs = new double[numberOfPathsOfTheBlock];
+			for (int pathIndex = 0; pathIndex < numberOfPathsOfTheBlock; pathIndex++) {
+				double logValue = logInitialValue;//the current state of the path
+				for (int timeIndex = 0; timeIndex < numberOfTimeSteps; timeIndex++) {
+					final double uniform = randomNumberGenerator.nextDouble();
+					//the numbers after maturity are drawn anyway, in order to stay on the same paths as getBlockModel
+					if (timeIndex < maturityIndex) {
+						final double brownianIncrement = NormalDistribution.inverseCumulativeDistribution(uniform)
+								* squareRootsOfTimeSteps[timeIndex];
+						logValue += drifts[timeIndex] + volatility * brownianIncrement;
+					}
+				}
+				discountedPayoffs[pathIndex] = payoff.applyAsDouble(Math.exp(logValue)) * discountFactor;
+			}
+			statistics.addBatch(new RandomVariableFromDoubleArray(0.0, discountedPayoffs));
+		}
+		return statistics;
+	}
+
+	/**
+	 * It computes the statistics of the value at time 0 of the payoff, fusing the evolution and the payoff block by
+	 * block.
+	 *
+	 * @param payoff, the payoff as a function of the value of the underlying at maturity
+	 * @param maturity, the maturity of the payoff, which must be a time of the time discretization
+	 * @return the statistics of the valuation
+	 */
+	public BatchStatistics getStatistics(DoubleUnaryOperator payoff, double maturity) {
+		return getStatistics(payoff, maturity, 0, getNumberOfBlocks());
+	}
+
+	/**
+	 * It computes the value at time 0 of the payoff, fusing the evolution and the payoff block by block.
+	 *
+	 * @param payoff, the payoff as a function of the value of the underlying at maturity
+	 * @param maturity, the maturity of the payoff, which must be a time of the time discretization
+	 * @return the Monte-Carlo value of the payoff
+	 */
+	public double getValue(DoubleUnaryOperator payoff, double maturity) {
+		return getStatistics(payoff, maturity).getAverage();
+	}
+
+	/**
+	 * It computes the statistics of the value of the product at time 0, simulating one block after the other.
+	 *
+	 * @param product, the product to be valued
+	 * @return the statistics of the valuation
+	 * @throws CalculationException
+	 */
+	public BatchStatistics getStatistics(AbstractAssetMonteCarloProduct product) throws CalculationException {
+		return getStatistics(product, 0, getNumberOfBlocks());
+	}
+
+	/**
+	 * It computes the value of the product at time 0 and returns a map with the value (key "value"), the standard error
+	 * (key "error") and the number of simulated paths (key "numberOfPaths").
+	 *
+	 * @param product, the product to be valued
+	 * @return the map described above
+	 * @throws CalculationException
+	 */
+	public Map<String, Object> getValues(AbstractAssetMonteCarloProduct product) throws CalculationException {
+		final BatchStatistics statistics = getStatistics(product);
+		final Map<String, Object> result = new HashMap<>();
+		result.put("value", statistics.getAverage());
+		result.put("error", statistics.getStandardError());
+		result.put("numberOfPaths", statistics.getNumberOfPaths());
+		return result;
+	}
+
+	/**
+	 * It computes the value of the product at time 0, simulating one block after the other.
+	 *
+	 * @param product, the product to be valued
+	 * @return the Monte-Carlo value of the product
+	 * @throws CalculationException
+	 */
+	public double getValue(AbstractAssetMonteCarloProduct product) throws CalculationException {
+		return getStatistics(product).getAverage();
+	}
+
+	public long getNumberOfPaths() {
+		return numberOfPaths;
+	}
+
+	public int getBlockSize() {
+		return blockSize;
+	}
+
+	public TimeDiscretization getTimes() {
+		return times;
+	}
+
+	public double getInitialValue() {
+		return initialValue;
+	}
+
+	public double getRiskFreeRate() {
+		return riskFreeRate;
+	}
+
+	public double getVolatility() {
+		return volatility;
+	}
+
+	public int getSeed() {
+		return seed;
+	}
+}
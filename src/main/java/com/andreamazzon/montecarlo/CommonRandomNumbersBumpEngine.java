@@ -0,0 +1,157 @@
+package com.andreamazzon.montecarlo;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
+
+import net.finmath.exception.CalculationException;
+import net.finmath.montecarlo.BrownianMotion;
+import net.finmath.montecarlo.assetderivativevaluation.AssetModelMonteCarloSimulationModel;
+import net.finmath.montecarlo.assetderivativevaluation.MonteCarloBlackScholesModel;
+import net.finmath.montecarlo.assetderivativevaluation.products.AbstractAssetMonteCarloProduct;
+
+/**
+ * This class values a product under the Black-Scholes model for a list of "bumped" parameters (initial value, risk free
+ * rate and volatility), for example in order to compute sensitivities by finite differences. Differently from what we do
+ * with getCloneWithModifiedData in CallWithFinmath, all the bumped simulations are constructed from the same
+ * BrownianMotion object given in the constructor: the increments are then generated only once and shared by all the
+ * scenarios (common random numbers), which also makes the finite differences much less noisy. The simulation with the
+ * base parameters is constructed once and for all, and the bumped revaluations are run in parallel.
+ * The bumps are given as maps from the names of the parameters ("initialValue", "riskFreeRate", "volatility") to their
+ * new values, as for getCloneWithModifiedData. The parameters which are not in the map are the ones of the base model.
+ *
+ * @author Andrea Mazzon
+ *
+ */
+public class CommonRandomNumbersBumpEngine {
+
+	private final double initialValue;
+	private final double riskFreeRate;
+	private final double volatility;
+	private final BrownianMotion brownianMotion;
+
+	private final AssetModelMonteCarloSimulationModel baseModel;
+
+	/**
+	 * @param initialValue, the initial value of the underlying in the base scenario
+	 * @param riskFreeRate, the risk free rate in the base scenario
+	 * @param volatility, the volatility in the base scenario
+	 * @param brownianMotion, the Brownian motion shared by all the scenarios
+	 */
+	public CommonRandomNumbersBumpEngine(double initialValue, double riskFreeRate, double volatility,
+			BrownianMotion brownianMotion) {
+		this.initialValue = initialValue;
+		this.riskFreeRate = riskFreeRate;
+		this.volatility = volatility;
+		this.brownianMotion = brownianMotion;
+		baseModel = new MonteCarloBlackScholesModel(initialValue, riskFreeRate, volatility, brownianMotion);
+	}
+
+	/**
+	 * It returns the simulation of the model for the given bump, constructed with the Brownian motion of the engine.
+	 *
+	 * @param bump, the map from the names of the bumped parameters to their new values. If empty, the base model is returned
+	 * @return the simulation of the bumped model
+	 */
+	public AssetModelMonteCarloSimulationModel getBumpedModel(Map<String, Object> bump) {
+		if (bump.isEmpty()) {
+			return baseModel;
+		}
+		final double newInitialValue = ((Number) bump.getOrDefault("initialValue", initialValue)).doubleValue();
+		final double newRiskFreeRate = ((Number) bump.getOrDefault("riskFreeRate", riskFreeRate)).doubleValue();
+		final double newVolatility = ((Number) bump.getOrDefault("volatility", volatility)).doubleValue();
+		return new MonteCarloBlackScholesModel(newInitialValue, newRiskFreeRate, newVolatility, brownianMotion);
+	}
+
+	/**
+	 * It values the product at time 0 for all the given bumps, in parallel.
+	 *
+	 * @param product, the product to be valued
+	 * @param bumps, the list of the bumps: each of them is a map from the names of the parameters to their new values
+	 * @return the array of the values of the product, in the same order of the bumps
+	 * @throws CalculationException
+	 */
+	public double[] getValues(AbstractAssetMonteCarloProduct product, List<Map<String, Object>> bumps)
+			throws CalculationException {
+		/*
+		 * the increments of the Brownian motion are generated lazily: we ask for one of them here, so that they are
+		 * generated once, before the parallel valuations start
+		 */
+		brownianMotion.getBrownianIncrement(0, 0);
+
+		final double[] values = new double[bumps.size()];
+		final AtomicReference<CalculationException> exception = new AtomicReference<>();
+		IntStream.range(0, bumps.size()).parallel().forEach(bumpIndex -> {
+			try {
+				values[bumpIndex] = product.getValue(getBumpedModel(bumps.get(bumpIndex)));
+			} catch (final CalculationException e) {
+				exception.compareAndSet(null, e);
+			}
+		});
+		if (exception.get() != null) {
+			throw exception.get();
+		}
+		return values;
+	}
+
+	/**
+	 * It values the product at time 0 for the base parameters.
+	 *
+	 * @param product, the product to be valued
+	 * @return the value of the product
+	 * @throws CalculationException
+	 */
+	public double getValue(AbstractAssetMonteCarloProduct product) throws CalculationException {
+		return product.getValue(baseModel);
+	}
+
+	/**
+	 * It computes the central finite difference of the value of the product with respect to one parameter, i.e.,
+	 * (V(x+h)-V(x-h))/(2h), with the two revaluations computed with the same random numbers.
+	 *
+	 * @param product, the product to be valued
+	 * @param parameterName, the name of the parameter: "initialValue", "riskFreeRate" or "volatility"
+	 * @param shift, the shift h
+	 * @return the central finite difference
+	 * @throws CalculationException
+	 */
+	public double getCentralFiniteDifference(AbstractAssetMonteCarloProduct product, String parameterName, double shift)
+			throws CalculationException {
+		final double baseValueOfParameter = getParameter(parameterName);
+
+		final List<Map<String, Object>> bumps = new ArrayList<>();
+		final Map<String, Object> upBump = new HashMap<>();
+		upBump.put(parameterName, baseValueOfParameter + shift);
+		bumps.add(upBump);
+		final Map<String, Object> downBump = new HashMap<>();
+		downBump.put(parameterName, baseValueOfParameter - shift);
+		bumps.add(downBump);
+
+		final double[] values = getValues(product, bumps);
+		return (values[0] - values[1]) / (2 * shift);
+	}
+
+	private double getParameter(String parameterName) {
+		switch (parameterName) {
+		case "initialValue":
+			return initialValue;
+		case "riskFreeRate":
+			return riskFreeRate;
+		case "volatility":
+			return volatility;
+		default:
+			throw new IllegalArgumentException("Unknown parameter " + parameterName);
+		}
+	}
+
+	public AssetModelMonteCarloSimulationModel getBaseModel() {
+		return baseModel;
+	}
+
+	public BrownianMotion getBrownianMotion() {
+		return brownianMotion;
+	}
+}
@@ -0,0 +1,80 @@
+package com.andreamazzon.montecarlo;
+
+import net.finmath.montecarlo.interestrate.products.TermStructureMonteCarloProduct;
+
+/**
+ * This class is the program run by every worker process of ShardedLIBORMarketModelValuation. It reconstructs the
+ * blocked valuation from the command line arguments, values the product on the blocks of its shard and prints, for
+ * every block, one line with the statistics of the values (see MonteCarloShardWorker.formatBlockStatistics).
+ * The arguments are the ones written by getArguments, in this order: the number of paths, the block size, the
+ * simulation time step, the LIBOR period length, the LIBOR time horizon, the fixings and the values of the given
+ * forwards, the correlation decay parameter, the four terms of the volatility structure, the seed, the first and the
+ * last (excluded) block of the shard, the name of the class of the product and the parameters of its constructor.
+ * Arrays of doubles are written as comma separated values.
+ *
+ * @author Andrea Mazzon
+ *
+ */
+public class LIBORMarketModelShardWorker {
+
+	public static void main(String[] args) {
+		try {
+			final double[] volatilityParameters = MonteCarloShardWorker.parseArray(args[8]);
+			final BlockedLIBORMarketModelValuation valuation = new BlockedLIBORMarketModelValuation(
+					Long.parseLong(args[0]), Integer.parseInt(args[1]), Double.parseDouble(args[2]),
+					Double.parseDouble(args[3]), Double.parseDouble(args[4]), MonteCarloShardWorker.parseArray(args[5]),
+					MonteCarloShardWorker.parseArray(args[6]), Double.parseDouble(args[7]),
+					volatilityParameters[0], volatilityParameters[1], volatilityParameters[2], volatilityParameters[3],
+					Integer.parseInt(args[9]));
+			final int firstBlockIndex = Integer.parseInt(args[10]);
+			final int lastBlockIndex = Integer.parseInt(args[11]);
+
+			@SuppressWarnings("unchecked")
+			final Class<? extends TermStructureMonteCarloProduct> productClass =
+			(Class<? extends TermStructureMonteCarloProduct>) Class.forName(args[12]);
+			final TermStructureMonteCarloProduct product = MonteCarloShardWorker.createProduct(productClass,
+					MonteCarloShardWorker.parseArray(args[13]));
+
+			final StringBuilder output = new StringBuilder();
+			for (int blockIndex = firstBlockIndex; blockIndex < lastBlockIndex; blockIndex++) {
+				output.append(MonteCarloShardWorker.formatBlockStatistics(
+						product.getValue(0.0, valuation.getBlockModel(blockIndex))));
+			}
+			System.out.print(output);
+			System.out.flush();
+		} catch (final Exception e) {
+			e.printStackTrace();
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * It returns the arguments to be given to the worker for the given shard.
+	 *
+	 * @param valuation, the blocked valuation whose blocks are split among the workers
+	 * @param firstBlockIndex, the index of the first block of the shard
+	 * @param lastBlockIndex, the index after the one of the last block of the shard
+	 * @param productClass, the class of the product to be valued
+	 * @param productParameters, the parameters of the constructor of the product
+	 * @return the arguments of the worker
+	 */
+	static String[] getArguments(BlockedLIBORMarketModelValuation valuation, int firstBlockIndex, int lastBlockIndex,
+			Class<? extends TermStructureMonteCarloProduct> productClass, double[] productParameters) {
+		return new String[] {
+				Long.toString(valuation.getNumberOfPaths()),
+				Integer.toString(valuation.getBlockSize()),
+				Double.toHexString(valuation.getSimulationTimeStep()),
+				Double.toHexString(valuation.getLIBORPeriodLength()),
+				Double.toHexString(valuation.getLIBORRateTimeHorizon()),
+				MonteCarloShardWorker.formatArray(valuation.getFixingForGivenForwards()),
+				MonteCarloShardWorker.formatArray(valuation.getGivenForwards()),
+				Double.toHexString(valuation.getCorrelationDecayParam()),
+				MonteCarloShardWorker.formatArray(valuation.getVolatilityParameters()),
+				Integer.toString(valuation.getSeed()),
+				Integer.toString(firstBlockIndex),
+				Integer.toString(lastBlockIndex),
+				productClass.getName(),
+				MonteCarloShardWorker.formatArray(productParameters)
+		};
+	}
+}
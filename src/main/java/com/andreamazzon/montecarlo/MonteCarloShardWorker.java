@@ -0,0 +1,130 @@
+package com.andreamazzon.montecarlo;
+
+import java.lang.reflect.Constructor;
+import java.util.Arrays;
+
+import net.finmath.montecarlo.assetderivativevaluation.products.AbstractAssetMonteCarloProduct;
+import net.finmath.stochastic.RandomVariable;
+import net.finmath.time.TimeDiscretization;
+import net.finmath.time.TimeDiscretizationFromArray;
+
+/**
+ * This class is the program run by every worker process of ShardedMonteCarloBlackScholesValuation. It reconstructs
+ * the blocked valuation from the command line arguments, values the product on the blocks of its shard and prints,
+ * for every block, one line with the number of paths, the average and the sum of the squared deviations of the values.
+ * The doubles are written with Double.toHexString, so that the coordinator reads back exactly the same numbers.
+ * The arguments are the ones written by getArguments, in this order: the times of the discretization, the number of
+ * paths, the block size, the initial value, the risk free rate, the volatility, the seed, the first and the last
+ * (excluded) block of the shard, the name of the class of the product and the parameters of its constructor. Arrays
+ * of doubles are written as comma separated values.
+ *
+ * @author Andrea Mazzon
+ *
+ */
+public class MonteCarloShardWorker {
+
+	public static void main(String[] args) {
+		try {
+			final TimeDiscretization times = new TimeDiscretizationFromArray(parseArray(args[0]));
+			final BlockedMonteCarloBlackScholesValuation valuation = new BlockedMonteCarloBlackScholesValuation(
+					times, Long.parseLong(args[1]), Integer.parseInt(args[2]), Double.parseDouble(args[3]),
+					Double.parseDouble(args[4]), Double.parseDouble(args[5]), Integer.parseInt(args[6]));
+			final int firstBlockIndex = Integer.parseInt(args[7]);
+			final int lastBlockIndex = Integer.parseInt(args[8]);
+
+			@SuppressWarnings("unchecked")
+			final Class<? extends AbstractAssetMonteCarloProduct> productClass =
+			(Class<? extends AbstractAssetMonteCarloProduct>) Class.forName(args[9]);
+			final AbstractAssetMonteCarloProduct product = createProduct(productClass, parseArray(args[10]));
+
+			final StringBuilder output = new StringBuilder();
+			for (int blockIndex = firstBlockIndex; blockIndex < lastBlockIndex; blockIndex++) {
+				output.append(formatBlockStatistics(product.getValue(0.0, valuation.getBlockModel(blockIndex))));
+			}
+			System.out.print(output);
+			System.out.flush();
+		} catch (final Exception e) {
+			e.printStackTrace();
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * It returns the arguments to be given to the worker for the given shard.
+	 *
+	 * @param valuation, the blocked valuation whose blocks are split among the workers
+	 * @param firstBlockIndex, the index of the first block of the shard
+	 * @param lastBlockIndex, the index after the one of the last block of the shard
+	 * @param productClass, the class of the product to be valued
+	 * @param productParameters, the parameters of the constructor of the product
+	 * @return the arguments of the worker
+	 */
+	static String[] getArguments(BlockedMonteCarloBlackScholesValuation valuation, int firstBlockIndex,
+			int lastBlockIndex, Class<? extends AbstractAssetMonteCarloProduct> productClass, double[] productParameters) {
+		return new String[] {
+				formatArray(valuation.getTimes().getAsDoubleArray()),
+				Long.toString(valuation.getNumberOfPaths()),
+				Integer.toString(valuation.getBlockSize()),
+				Double.toHexString(valuation.getInitialValue()),
+				Double.toHexString(valuation.getRiskFreeRate()),
+				Double.toHexString(valuation.getVolatility()),
+				Integer.toString(valuation.getSeed()),
+				Integer.toString(firstBlockIndex),
+				Integer.toString(lastBlockIndex),
+				productClass.getName(),
+				formatArray(productParameters)
+		};
+	}
+
+	/**
+	 * It returns the line sent back to the coordinator for a block: the number of paths, the average and the sum of the
+	 * squared deviations of the values of the block, i.e., the numbers given by BatchStatistics.addBatch(RandomVariable)
+	 * to the merge formula.
+	 *
+	 * @param values, the values of the product on the paths of the block
+	 * @return the line with the statistics of the block
+	 */
+	static String formatBlockStatistics(RandomVariable values) {
+		return values.size() + " " + Double.toHexString(values.getAverage()) + " "
+				+ Double.toHexString(values.getVariance() * values.size()) + "\n";
+	}
+
+	/**
+	 * It constructs the product by calling the constructor of its class which takes as many doubles as the given
+	 * parameters, for example EuropeanOption(maturity, strike).
+	 *
+	 * @param productClass, the class of the product
+	 * @param productParameters, the parameters to be given to the constructor
+	 * @return the product
+	 */
+	static <T> T createProduct(Class<? extends T> productClass, double[] productParameters) {
+		final Class<?>[] parameterTypes = new Class<?>[productParameters.length];
+		Arrays.fill(parameterTypes, double.class);
+		final Object[] arguments = Arrays.stream(productParameters).boxed().toArray();
+		try {
+			final Constructor<? extends T> constructor = productClass.getConstructor(parameterTypes);
+			return constructor.newInstance(arguments);
+		} catch (final ReflectiveOperationException e) {
+			throw new IllegalArgumentException("The class " + productClass.getName() + " has no public constructor taking "
+					+ productParameters.length + " doubles", e);
+		}
+	}
+
+	static String formatArray(double[] values) {
+		final StringBuilder formatted = new StringBuilder();
+		for (int index = 0; index < values.length; index++) {
+			if (index > 0) {
+				formatted.append(',');
+			}
+			formatted.append(Double.toHexString(values[index]));
+		}
+		return formatted.toString();
+	}
+
+	static double[] parseArray(String formatted) {
+		if (formatted.isEmpty()) {
+			return new double[0];
+		}
+		return Arrays.stream(formatted.split(",")).mapToDouble(Double::parseDouble).toArray();
+	}
+}
@@ -0,0 +1,137 @@
+package com.andreamazzon.montecarlo;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import net.finmath.exception.CalculationException;
+
+/**
+ * This class runs the worker processes of a sharded valuation and merges the statistics they send back. Every worker
+ * is a separate JVM, with the same class path as this one, running the main method of a worker class, which prints one
+ * line for every block of its shard (see MonteCarloShardWorker.formatBlockStatistics). The statistics of the blocks are
+ * merged one after the other, in the order of the blocks, so that the result is the same as the one of a single
+ * process valuation. Workers which do not exit within the given time are killed.
+ *
+ * @author Andrea Mazzon
+ *
+ */
+final class ShardWorkerProcesses {
+
+	private ShardWorkerProcesses() {
+	}
+
+	/**
+	 * It returns the limits of the shards: worker number w values the blocks from shardLimits[w] (included) to
+	 * shardLimits[w + 1] (excluded). The shards differ by at most one block.
+	 *
+	 * @param numberOfBlocks, the total number of blocks
+	 * @param numberOfWorkers, the number of workers
+	 * @return the array of the limits of the shards
+	 */
+	static int[] getShardLimits(int numberOfBlocks, int numberOfWorkers) {
+		final int[] shardLimits = new int[numberOfWorkers + 1];
+		for (int workerIndex = 0; workerIndex <= numberOfWorkers; workerIndex++) {
+			shardLimits[workerIndex] = (int) ((long) numberOfBlocks * workerIndex / numberOfWorkers);
+		}
+		return shardLimits;
+	}
+
+	/**
+	 * It runs the workers in parallel and merges the statistics of their blocks.
+	 *
+	 * @param workerClass, the class whose main method is run by the workers
+	 * @param argumentsOfWorkers, the arguments of the main method for every worker
+	 * @param shardLimits, the limits of the shards, as given by getShardLimits
+	 * @param timeoutInSeconds, the time the workers are given to finish, all together
+	 * @return the statistics of the valuation
+	 * @throws CalculationException if a worker fails or does not finish in time
+	 */
+	static BatchStatistics run(Class<?> workerClass, List<String[]> argumentsOfWorkers, int[] shardLimits,
+			long timeoutInSeconds) throws CalculationException {
+		final int numberOfWorkers = argumentsOfWorkers.size();
+		final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeoutInSeconds);
+		final ExecutorService executor = Executors.newFixedThreadPool(numberOfWorkers);
+		//all the started workers, which are killed at the end if they are still running (for example after a failure)
+		final List<Process> workers = new ArrayList<>();
+		try {
+			final List<Future<List<String>>> outputsOfWorkers = new ArrayList<>();
+			for (final String[] arguments : argumentsOfWorkers) {
+				final Process worker = startWorker(workerClass, arguments);
+				workers.add(worker);
+				//the output is read while the worker runs, so that the worker never waits for the pipe to be emptied
+				outputsOfWorkers.add(executor.submit(() -> readOutput(worker)));
+			}
+
+			final BatchStatistics statistics = new BatchStatistics();
+			for (int workerIndex = 0; workerIndex < numberOfWorkers; workerIndex++) {
+				final Process worker = workers.get(workerIndex);
+				if (!worker.waitFor(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+					throw new CalculationException("The worker " + workerIndex + " did not finish within "
+							+ timeoutInSeconds + " seconds");
+				}
+				//the output is complete when the worker has exited: it is used only if the worker succeeded
+				final List<String> outputOfWorker = outputsOfWorkers.get(workerIndex).get();
+				final int exitValue = worker.exitValue();
+				if (exitValue != 0) {
+					throw new CalculationException("The worker " + workerIndex + " exited with code " + exitValue);
+				}
+				if (outputOfWorker.size() != shardLimits[workerIndex + 1] - shardLimits[workerIndex]) {
+					throw new CalculationException("The worker " + workerIndex
+							+ " did not send the statistics of all its blocks");
+				}
+				for (final String line : outputOfWorker) {
+					final String[] blockStatistics = line.split(" ");
+					statistics.addBatch(Long.parseLong(blockStatistics[0]), Double.parseDouble(blockStatistics[1]),
+							Double.parseDouble(blockStatistics[2]));
+				}
+			}
+			return statistics;
+		} catch (final IOException | ExecutionException e) {
+			throw new CalculationException("A worker of the sharded valuation failed", e);
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new CalculationException("The sharded valuation was interrupted", e);
+		} finally {
+			for (final Process worker : workers) {
+				worker.destroyForcibly();
+			}
+			executor.shutdownNow();
+		}
+	}
+
+	/*
+	 * It starts a new JVM, with the same class path as this one, running the main method of the worker class.
+	 */
+	private static Process startWorker(Class<?> workerClass, String[] arguments) throws IOException {
+		final List<String> command = new ArrayList<>();
+		command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+		command.add("-cp");
+		command.add(System.getProperty("java.class.path"));
+		command.add(workerClass.getName());
+		for (final String argument : arguments) {
+			command.add(argument);
+		}
+		return new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+	}
+
+	/*
+	 * It reads the whole output of the worker, until the worker closes it (at the latest, when it exits or is killed).
+	 */
+	private static List<String> readOutput(Process worker) throws IOException {
+		try (BufferedReader reader = new BufferedReader(
+				new InputStreamReader(worker.getInputStream(), StandardCharsets.US_ASCII))) {
+			return reader.lines().collect(Collectors.toList());
+		}
+	}
+}
@@ -0,0 +1,107 @@
+package com.andreamazzon.montecarlo;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import net.finmath.exception.CalculationException;
+import net.finmath.montecarlo.interestrate.products.TermStructureMonteCarloProduct;
+
+/**
+ * This class runs the valuation of BlockedLIBORMarketModelValuation in several processes, in the same way as
+ * ShardedMonteCarloBlackScholesValuation does for the Black-Scholes model: the blocks are split in contiguous shards,
+ * every shard is valued by a worker process running LIBORMarketModelShardWorker, which reseeds the simulation of every
+ * block with seed + b, and the statistics of the blocks are merged in the order of the blocks. The result is then the
+ * same, to the last digit, as the one of the single process valuation.
+ * The product is given by its class and by the parameters of a constructor taking only doubles, for example
+ * Caplet.class with maturity, period length and strike.
+ *
+ * @author Andrea Mazzon
+ *
+ */
+public class ShardedLIBORMarketModelValuation {
+
+	private final BlockedLIBORMarketModelValuation valuation;
+	private final int numberOfWorkers;
+	private final long timeoutInSeconds;
+
+	/**
+	 * @param valuation, the blocked valuation whose blocks are split among the workers
+	 * @param numberOfWorkers, the number of worker processes
+	 * @param timeoutInSeconds, the time the workers are given to finish the valuation
+	 */
+	public ShardedLIBORMarketModelValuation(BlockedLIBORMarketModelValuation valuation, int numberOfWorkers,
+			long timeoutInSeconds) {
+		this.valuation = valuation;
+		this.numberOfWorkers = numberOfWorkers;
+		this.timeoutInSeconds = timeoutInSeconds;
+	}
+
+	/**
+	 * It constructs a sharded valuation whose workers have ten minutes to finish.
+	 *
+	 * @param valuation, the blocked valuation whose blocks are split among the workers
+	 * @param numberOfWorkers, the number of worker processes
+	 */
+	public ShardedLIBORMarketModelValuation(BlockedLIBORMarketModelValuation valuation, int numberOfWorkers) {
+		this(valuation, numberOfWorkers, 600);
+	}
+
+	/**
+	 * It returns the limits of the shards: worker number w values the blocks from getShardLimits()[w] (included) to
+	 * getShardLimits()[w + 1] (excluded). The shards differ by at most one block.
+	 *
+	 * @return the array of the limits of the shards
+	 */
+	public int[] getShardLimits() {
+		return ShardWorkerProcesses.getShardLimits(valuation.getNumberOfBlocks(), numberOfWorkers);
+	}
+
+	/**
+	 * It computes the statistics of the value of the product at time 0, running the shards in parallel in the worker
+	 * processes.
+	 *
+	 * @param productClass, the class of the product to be valued
+	 * @param productParameters, the parameters of the constructor of the product
+	 * @return the statistics of the valuation
+	 * @throws CalculationException if a worker fails or does not finish within the timeout
+	 */
+	public BatchStatistics getStatistics(Class<? extends TermStructureMonteCarloProduct> productClass,
+			double... productParameters) throws CalculationException {
+		//we check in this process that the product can be constructed, before starting the workers
+		MonteCarloShardWorker.createProduct(productClass, productParameters);
+
+		final int[] shardLimits = getShardLimits();
+		final List<String[]> argumentsOfWorkers = new ArrayList<>();
+		for (int workerIndex = 0; workerIndex < numberOfWorkers; workerIndex++) {
+			argumentsOfWorkers.add(LIBORMarketModelShardWorker.getArguments(valuation, shardLimits[workerIndex],
+					shardLimits[workerIndex + 1], productClass, productParameters));
+		}
+		return ShardWorkerProcesses.run(LIBORMarketModelShardWorker.class, argumentsOfWorkers, shardLimits,
+				timeoutInSeconds);
+	}
+
+	/**
+	 * It computes the value of the product at time 0, running the shards in parallel in the worker processes.
+	 *
+	 * @param productClass, the class of the product to be valued
+	 * @param productParameters, the parameters of the constructor of the product
+	 * @return the Monte-Carlo value of the product
+	 * @throws CalculationException if a worker fails or does not finish within the timeout
+	 */
+	public double getValue(Class<? extends TermStructureMonteCarloProduct> productClass, double... productParameters)
+			throws CalculationException {
+		return getStatistics(productClass, productParameters).getAverage();
+	}
+
+	public BlockedLIBORMarketModelValuation getValuation() {
+		return valuation;
+	}
+
+	public int getNumberOfWorkers() {
+		return numberOfWorkers;
+	}
+
+	public long getTimeoutInSeconds() {
+		return timeoutInSeconds;
+	}
+}
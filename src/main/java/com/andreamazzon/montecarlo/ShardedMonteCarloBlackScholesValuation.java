@@ -0,0 +1,110 @@
+package com.andreamazzon.montecarlo;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import net.finmath.exception.CalculationException;
+import net.finmath.montecarlo.assetderivativevaluation.products.AbstractAssetMonteCarloProduct;
+
+/**
+ * This class runs the valuation of BlockedMonteCarloBlackScholesValuation in several processes. The blocks of paths are
+ * split in contiguous ranges (the shards), one for every worker. Every worker is a separate JVM running
+ * MonteCarloShardWorker, which simulates its blocks and sends back the statistics of every single block. Block number
+ * b is always simulated by reseeding the generator with seed + b, so a worker can generate its blocks without
+ * generating the ones before them (the streams of the blocks are not consecutive pieces of one stream: they come from
+ * different seeds). The coordinator then merges the statistics of the blocks one after the other, in the order of the
+ * blocks, exactly as BlockedMonteCarloBlackScholesValuation does in a single process: the result is then the same, to
+ * the last digit, as the one of the single process valuation. Workers which do not finish within the timeout are
+ * killed, and the valuation fails.
+ * Since the product has to be constructed again in the worker processes, it is given by its class and by the
+ * parameters of a constructor taking only doubles, for example EuropeanOption.class with maturity and strike.
+ *
+ * @author Andrea Mazzon
+ *
+ */
+public class ShardedMonteCarloBlackScholesValuation {
+
+	private final BlockedMonteCarloBlackScholesValuation valuation;
+	private final int numberOfWorkers;
+	private final long timeoutInSeconds;
+
+	/**
+	 * @param valuation, the blocked valuation whose blocks are split among the workers
+	 * @param numberOfWorkers, the number of worker processes
+	 * @param timeoutInSeconds, the time the workers are given to finish the valuation
+	 */
+	public ShardedMonteCarloBlackScholesValuation(BlockedMonteCarloBlackScholesValuation valuation, int numberOfWorkers,
+			long timeoutInSeconds) {
+		this.valuation = valuation;
+		this.numberOfWorkers = numberOfWorkers;
+		this.timeoutInSeconds = timeoutInSeconds;
+	}
+
+	/**
+	 * It constructs a sharded valuation whose workers have ten minutes to finish.
+	 *
+	 * @param valuation, the blocked valuation whose blocks are split among the workers
+	 * @param numberOfWorkers, the number of worker processes
+	 */
+	public ShardedMonteCarloBlackScholesValuation(BlockedMonteCarloBlackScholesValuation valuation, int numberOfWorkers) {
+		this(valuation, numberOfWorkers, 600);
+	}
+
+	/**
+	 * It returns the limits of the shards: worker number w values the blocks from getShardLimits()[w] (included) to
+	 * getShardLimits()[w + 1] (excluded). The shards differ by at most one block.
+	 *
+	 * @return the array of the limits of the shards
+	 */
+	public int[] getShardLimits() {
+		return ShardWorkerProcesses.getShardLimits(valuation.getNumberOfBlocks(), numberOfWorkers);
+	}
+
+	/**
+	 * It computes the statistics of the value of the product at time 0, running the shards in parallel in the worker
+	 * processes.
+	 *
+	 * @param productClass, the class of the product to be valued
+	 * @param productParameters, the parameters of the constructor of the product
+	 * @return the statistics of the valuation
+	 * @throws CalculationException if a worker fails or does not finish within the timeout
+	 */
+	public BatchStatistics getStatistics(Class<? extends AbstractAssetMonteCarloProduct> productClass,
+			double... productParameters) throws CalculationException {
+		//we check in this process that the product can be constructed, before starting the workers
+		MonteCarloShardWorker.createProduct(productClass, productParameters);
+
+		final int[] shardLimits = getShardLimits();
+		final List<String[]> argumentsOfWorkers = new ArrayList<>();
+		for (int workerIndex = 0; workerIndex < numberOfWorkers; workerIndex++) {
+			argumentsOfWorkers.add(MonteCarloShardWorker.getArguments(valuation, shardLimits[workerIndex],
+					shardLimits[workerIndex + 1], productClass, productParameters));
+		}
+		return ShardWorkerProcesses.run(MonteCarloShardWorker.class, argumentsOfWorkers, shardLimits, timeoutInSeconds);
+	}
+
+	/**
+	 * It computes the value of the product at time 0, running the shards in parallel in the worker processes.
+	 *
+	 * @param productClass, the class of the product to be valued
+	 * @param productParameters, the parameters of the constructor of the product
+	 * @return the Monte-Carlo value of the product
+	 * @throws CalculationException if a worker fails or does not finish within the timeout
+	 */
+	public double getValue(Class<? extends AbstractAssetMonteCarloProduct> productClass, double... productParameters)
+			throws CalculationException {
+		return getStatistics(productClass, productParameters).getAverage();
+	}
+
+	public BlockedMonteCarloBlackScholesValuation getValuation() {
+		return valuation;
+	}
+
+	public int getNumberOfWorkers() {
+		return numberOfWorkers;
+	}
+
+	public long getTimeoutInSeconds() {
+		return timeoutInSeconds;
+	}
+}
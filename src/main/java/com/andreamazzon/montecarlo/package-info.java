@@ -0,0 +1,9 @@
+/**
+ * This package contains classes which take care of how Monte-Carlo valuations are run (how many paths, in which batches,
+ * with which random numbers) on top of the models and the products of the Finmath library, independently of the specific
+ * product.
+ *
+ * @author Andrea Mazzon
+ *
+ */
+package com.andreamazzon.montecarlo;
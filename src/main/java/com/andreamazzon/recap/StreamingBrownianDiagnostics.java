@@ -0,0 +1,139 @@
+package com.andreamazzon.recap;
+
+import java.text.DecimalFormat;
+
+import net.finmath.functions.NormalDistribution;
+import net.finmath.randomnumbers.MersenneTwister;
+import net.finmath.time.TimeDiscretization;
+import net.finmath.time.TimeDiscretizationFromArray;
+
+/**
+ * This class computes the same statistics of BrownianTests (mean and variance at every time of a Brownian motion W_1,
+ * of its quadratic variation and of the quadratic covariation of W_1 with an independent Brownian motion W_2) without
+ * storing the past of the paths. The increments are generated one time step at a time, for all the paths, and the
+ * running values of W_1, of its quadratic variation and of the quadratic covariation are updated in place in three
+ * arrays of doubles (W_2 only enters through its increments, so its values are not stored). The moments are computed at every time step from these arrays, which are then overwritten at the
+ * next step. In this way, the memory needed is proportional to the number of paths, and not to the number of paths
+ * times the number of times as in BrownianTests: we can then look at many more paths.
+ * Note that the random numbers are not the ones of BrownianMotionFromMersenneRandomNumbers, since there they are
+ * generated path by path and not time by time.
+ *
+ * @author: Andrea Mazzon
+ *
+ */
+public class StreamingBrownianDiagnostics {
+
+	static final DecimalFormat FORMATTERPOSITIVE2 = new DecimalFormat("0.00");
+	static final DecimalFormat FORMATTERREAL4 = new DecimalFormat(" 0.0000;-0.0000");
+
+	private final TimeDiscretization timeDiscretization;
+	private final int numberOfPaths;
+	private final int seed;
+
+	/**
+	 * @param timeDiscretization, the time discretization of the Brownian motions
+	 * @param numberOfPaths, the number of simulated paths
+	 * @param seed, the seed of the Mersenne twister generating the random numbers
+	 */
+	public StreamingBrownianDiagnostics(TimeDiscretization timeDiscretization, int numberOfPaths, int seed) {
+		this.timeDiscretization = timeDiscretization;
+		this.numberOfPaths = numberOfPaths;
+		this.seed = seed;
+	}
+
+	/**
+	 * It simulates the paths time step by time step and returns the table of the moments: the row i refers to the time
+	 * t_{i+1} of the time discretization, and has entries
+	 * t_{i+1}, mean and variance of W_1(t_{i+1}), mean and variance of int_0^{t_{i+1}} dW_1 dW_1,
+	 * mean and variance of int_0^{t_{i+1}} dW_1 dW_2.
+	 * As for the getVariance() method of the Finmath library, the variance is the sum of the squared deviations
+	 * divided by the number of paths.
+	 *
+	 * @return the table of the moments
+	 */
+	public double[][] getMomentsTable() {
+		final int numberOfTimeSteps = timeDiscretization.getNumberOfTimeSteps();
+		final double[][] moments = new double[numberOfTimeSteps][7];
+
+		// the running values at the current time, for all the paths: they are updated in place
+		final double[] firstBrownianMotion = new double[numberOfPaths];
+		final double[] firstQuadraticVariation = new double[numberOfPaths];
+		final double[] quadraticCovariation = new double[numberOfPaths];
+
+		final MersenneTwister randomNumberGenerator = new MersenneTwister(seed);
+
+		for (int timeIndex = 0; timeIndex < numberOfTimeSteps; timeIndex++) {
+			final double squareRootOfTimeStep = Math.sqrt(timeDiscretization.getTimeStep(timeIndex));
+
+			for (int pathIndex = 0; pathIndex < numberOfPaths; pathIndex++) {
+				final double firstIncrement = squareRootOfTimeStep
+						* NormalDistribution.inverseCumulativeDistribution(randomNumberGenerator.nextDouble());
+				final double secondIncrement = squareRootOfTimeStep
+						* NormalDistribution.inverseCumulativeDistribution(randomNumberGenerator.nextDouble());
+
+				firstBrownianMotion[pathIndex] += firstIncrement;
+				firstQuadraticVariation[pathIndex] += firstIncrement * firstIncrement;
+				quadraticCovariation[pathIndex] += firstIncrement * secondIncrement;
+			}
+
+			moments[timeIndex][0] = timeDiscretization.getTime(timeIndex + 1);
+			setMeanAndVariance(firstBrownianMotion, moments[timeIndex], 1);
+			setMeanAndVariance(firstQuadraticVariation, moments[timeIndex], 3);
+			setMeanAndVariance(quadraticCovariation, moments[timeIndex], 5);
+		}
+		return moments;
+	}
+
+	/*
+	 * It computes mean and variance of the values and writes them in the row, at position index and index + 1.
+	 * The sums are computed for the values shifted by the first value, in order to avoid cancellation errors when the
+	 * mean is big with respect to the standard deviation (as for the quadratic variation).
+	 */
+	private void setMeanAndVariance(double[] values, double[] row, int index) {
+		final double shift = values[0];
+		double sum = 0.0;
+		double sumOfSquares = 0.0;
+		for (final double value : values) {
+			final double shiftedValue = value - shift;
+			sum += shiftedValue;
+			sumOfSquares += shiftedValue * shiftedValue;
+		}
+		final double shiftedMean = sum / values.length;
+		row[index] = shift + shiftedMean;
+		row[index + 1] = Math.max(sumOfSquares / values.length - shiftedMean * shiftedMean, 0.0);
+	}
+
+	public static void main(final String[] args) {
+
+		// The parameters for the TimeDiscretization object
+		final double firstTime = 0.0;
+		final double lastTime = 1.0;
+		final double dt = 0.01;//the time step
+
+		final TimeDiscretization timeDiscretization = new TimeDiscretizationFromArray(
+				firstTime, (int) (lastTime / dt), dt);
+
+		//ten times the paths of BrownianTests, with less memory
+		final int numberOfPaths = 1000000;
+		final int seed = 1897;
+
+		final double[][] moments = new StreamingBrownianDiagnostics(timeDiscretization, numberOfPaths, seed)
+				.getMomentsTable();
+
+		System.out.println("Average, variance and other properties of a BrownianMotion."
+				+ "\n Time step size (dt): " + dt + "  Number of path: " + numberOfPaths + "\n");
+		System.out.println("      " + "\t" + "  int dW_1 " + "\t" + "int dW_1 dW_1" + "\t" + "int dW_1 dW_2" + "\t");
+		System.out.println("time" + "\t" + " mean" + "\t" + " var" + "\t" + " mean" + "\t" + " var" + "\t" + " mean"
+				+ "\t" + " var");
+
+		for (final double[] row : moments) {
+			System.out.println(FORMATTERPOSITIVE2.format(row[0]) + "\t"
+					+ FORMATTERREAL4.format(row[1]) + "\t"
+					+ FORMATTERREAL4.format(row[2]) + "\t"
+					+ FORMATTERREAL4.format(row[3]) + "\t"
+					+ FORMATTERREAL4.format(row[4]) + "\t"
+					+ FORMATTERREAL4.format(row[5]) + "\t"
+					+ FORMATTERREAL4.format(row[6]) + "\t" + "");
+		}
+	}
+}
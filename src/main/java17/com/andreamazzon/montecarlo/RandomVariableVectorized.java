@@ -0,0 +1,519 @@
+package com.andreamazzon.montecarlo;
+
+import java.util.List;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+import net.finmath.functions.DoubleTernaryOperator;
+import net.finmath.montecarlo.RandomVariableFromDoubleArray;
+import net.finmath.stochastic.ConditionalExpectationEstimator;
+import net.finmath.stochastic.RandomVariable;
+
+/**
+ * This class is a RandomVariableFromDoubleArray whose element-wise operations used in the inner loops of the products
+ * (add, sub, bus, mult, div, vid, cap, floor, pow, squared, sqrt, invert, abs, exp, expm1, log, sin, cos, addProduct,
+ * discount, choose and the average) are computed with explicit SIMD lanes of the (incubating) JDK Vector API, instead
+ * of relying on the auto-vectorization of the JIT compiler. The last elements of the arrays, which do not fill a whole
+ * vector, are processed with masked loads and stores.
+ * The results of the operations returning a RandomVariableFromDoubleArray are again of this type, so that a whole
+ * simulation stays vectorized: its type priority is higher than the one of RandomVariableFromDoubleArray, so that also
+ * an operation called on a RandomVariableFromDoubleArray with an argument of this type is computed here. The other
+ * operations (apply, accrue, addSumProduct, addRatio, subRatio, isNaN, getConditionalExpectation and cache), and the
+ * ones with random variables of different size, are computed by RandomVariableFromDoubleArray, and their results are
+ * wrapped in this type. The results of operations with random variables of higher type priority (for example the ones
+ * used for automatic differentiation) are left as they are.
+ * It needs JDK 17 or later with --add-modules jdk.incubator.vector: it is compiled only by the Maven profile
+ * vector-api, and it is created by RandomVariableVectorizedFactory.
+ *
+ * @author Andrea Mazzon
+ *
+ */
+public class RandomVariableVectorized extends RandomVariableFromDoubleArray {
+
+	private static final long serialVersionUID = -2183271924893011738L;
+
+	private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+	/*
+	 * Higher than the one of RandomVariableFromDoubleArray (1), so that its operations with a random variable of this
+	 * type are delegated to this class, and lower than the one of the random variables for automatic differentiation
+	 * (3), which then keep working as before.
+	 */
+	private static final int TYPE_PRIORITY = 2;
+
+	private final double[] realizations;//null if the random variable is deterministic
+
+	/**
+	 * It constructs a stochastic random variable. The array is not copied.
+	 *
+	 * @param time, the filtration time
+	 * @param realizations, the realizations
+	 */
+	public RandomVariableVectorized(double time, double[] realizations) {
+		super(time, realizations, TYPE_PRIORITY);
+		this.realizations = realizations;
+	}
+
+	/**
+	 * It constructs a deterministic random variable.
+	 *
+	 * @param time, the filtration time
+	 * @param value, the value
+	 */
+	public RandomVariableVectorized(double time, double value) {
+		super(time, value, TYPE_PRIORITY);
+		this.realizations = null;
+	}
+
+	@Override
+	public RandomVariable add(RandomVariable randomVariable) {
+		return binaryOperation(VectorOperators.ADD, randomVariable, false);
+	}
+
+	@Override
+	public RandomVariable sub(RandomVariable randomVariable) {
+		return binaryOperation(VectorOperators.SUB, randomVariable, false);
+	}
+
+	@Override
+	public RandomVariable mult(RandomVariable randomVariable) {
+		return binaryOperation(VectorOperators.MUL, randomVariable, false);
+	}
+
+	@Override
+	public RandomVariable div(RandomVariable randomVariable) {
+		return binaryOperation(VectorOperators.DIV, randomVariable, false);
+	}
+
+	/*
+	 * randomVariable - this: called by RandomVariableFromDoubleArray.sub with an argument of this type
+	 */
+	@Override
+	public RandomVariable bus(RandomVariable randomVariable) {
+		return binaryOperation(VectorOperators.SUB, randomVariable, true);
+	}
+
+	/*
+	 * randomVariable / this: called by RandomVariableFromDoubleArray.div with an argument of this type
+	 */
+	@Override
+	public RandomVariable vid(RandomVariable randomVariable) {
+		return binaryOperation(VectorOperators.DIV, randomVariable, true);
+	}
+
+	@Override
+	public RandomVariable cap(RandomVariable randomVariable) {
+		return binaryOperation(VectorOperators.MIN, randomVariable, false);
+	}
+
+	@Override
+	public RandomVariable floor(RandomVariable randomVariable) {
+		return binaryOperation(VectorOperators.MAX, randomVariable, false);
+	}
+
+	@Override
+	public RandomVariable add(double value) {
+		return isDeterministic() ? wrap(super.add(value)) : scalarOperation(VectorOperators.ADD, value);
+	}
+
+	@Override
+	public RandomVariable sub(double value) {
+		return isDeterministic() ? wrap(super.sub(value)) : scalarOperation(VectorOperators.SUB, value);
+	}
+
+	@Override
+	public RandomVariable mult(double value) {
+		return isDeterministic() ? wrap(super.mult(value)) : scalarOperation(VectorOperators.MUL, value);
+	}
+
+	@Override
+	public RandomVariable div(double value) {
+		return isDeterministic() ? wrap(super.div(value)) : scalarOperation(VectorOperators.DIV, value);
+	}
+
+	@Override
+	public RandomVariable cap(double value) {
+		return isDeterministic() ? wrap(super.cap(value)) : scalarOperation(VectorOperators.MIN, value);
+	}
+
+	@Override
+	public RandomVariable floor(double value) {
+		return isDeterministic() ? wrap(super.floor(value)) : scalarOperation(VectorOperators.MAX, value);
+	}
+
+	@Override
+	public RandomVariable bus(double value) {
+		return isDeterministic() ? wrap(super.bus(value))
+				: new RandomVariableVectorized(getFiltrationTime(), lanewise(VectorOperators.SUB, value, realizations));
+	}
+
+	@Override
+	public RandomVariable vid(double value) {
+		return isDeterministic() ? wrap(super.vid(value))
+				: new RandomVariableVectorized(getFiltrationTime(), lanewise(VectorOperators.DIV, value, realizations));
+	}
+
+	@Override
+	public RandomVariable pow(double exponent) {
+		return isDeterministic() ? wrap(super.pow(exponent)) : scalarOperation(VectorOperators.POW, exponent);
+	}
+
+	@Override
+	public RandomVariable squared() {
+		if (isDeterministic()) {
+			return wrap(super.squared());
+		}
+		final double[] result = lanewise(VectorOperators.MUL, realizations, realizations);
+		return new RandomVariableVectorized(getFiltrationTime(), result);
+	}
+
+	@Override
+	public RandomVariable sqrt() {
+		return isDeterministic() ? wrap(super.sqrt()) : unaryOperation(VectorOperators.SQRT);
+	}
+
+	@Override
+	public RandomVariable invert() {
+		return vid(1.0);
+	}
+
+	@Override
+	public RandomVariable abs() {
+		return isDeterministic() ? wrap(super.abs()) : unaryOperation(VectorOperators.ABS);
+	}
+
+	@Override
+	public RandomVariableFromDoubleArray exp() {
+		return isDeterministic() ? new RandomVariableVectorized(getFiltrationTime(), Math.exp(doubleValue()))
+				: unaryOperation(VectorOperators.EXP);
+	}
+
+	@Override
+	public RandomVariableFromDoubleArray log() {
+		return isDeterministic() ? new RandomVariableVectorized(getFiltrationTime(), Math.log(doubleValue()))
+				: unaryOperation(VectorOperators.LOG);
+	}
+
+	@Override
+	public RandomVariableFromDoubleArray expm1() {
+		return isDeterministic() ? new RandomVariableVectorized(getFiltrationTime(), Math.expm1(doubleValue()))
+				: unaryOperation(VectorOperators.EXPM1);
+	}
+
+	@Override
+	public RandomVariable sin() {
+		return isDeterministic() ? wrap(super.sin()) : unaryOperation(VectorOperators.SIN);
+	}
+
+	@Override
+	public RandomVariable cos() {
+		return isDeterministic() ? wrap(super.cos()) : unaryOperation(VectorOperators.COS);
+	}
+
+	/*
+	 * this + factor1 * factor2, with the product computed first as in RandomVariableFromDoubleArray (no fused
+	 * multiply-add, so that the results are the same)
+	 */
+	@Override
+	public RandomVariable addProduct(RandomVariable factor1, double factor2) {
+		final double[] factorRealizations = getVectorizableRealizations(factor1);
+		if (isDeterministic() || factorRealizations == null) {
+			return wrap(super.addProduct(factor1, factor2));
+		}
+		final int size = realizations.length;
+		final double[] result = new double[size];
+		for (int i = 0; i < size; i += SPECIES.length()) {
+			final VectorMask<Double> mask = SPECIES.indexInRange(i, size);
+			final DoubleVector x = DoubleVector.fromArray(SPECIES, realizations, i, mask);
+			final DoubleVector y = DoubleVector.fromArray(SPECIES, factorRealizations, i, mask);
+			x.add(y.mul(factor2)).intoArray(result, i, mask);
+		}
+		return new RandomVariableVectorized(Math.max(getFiltrationTime(), factor1.getFiltrationTime()), result);
+	}
+
+	@Override
+	public RandomVariable addProduct(RandomVariable factor1, RandomVariable factor2) {
+		final double[] factor1Realizations = getVectorizableRealizations(factor1);
+		final double[] factor2Realizations = getVectorizableRealizations(factor2);
+		if (isDeterministic() || factor1Realizations == null || factor2Realizations == null) {
+			return wrap(super.addProduct(factor1, factor2));
+		}
+		final int size = realizations.length;
+		final double[] result = new double[size];
+		for (int i = 0; i < size; i += SPECIES.length()) {
+			final VectorMask<Double> mask = SPECIES.indexInRange(i, size);
+			final DoubleVector x = DoubleVector.fromArray(SPECIES, realizations, i, mask);
+			final DoubleVector y = DoubleVector.fromArray(SPECIES, factor1Realizations, i, mask);
+			final DoubleVector z = DoubleVector.fromArray(SPECIES, factor2Realizations, i, mask);
+			x.add(y.mul(z)).intoArray(result, i, mask);
+		}
+		return new RandomVariableVectorized(Math.max(getFiltrationTime(),
+				Math.max(factor1.getFiltrationTime(), factor2.getFiltrationTime())), result);
+	}
+
+	/*
+	 * this / (1 + rate * periodLength)
+	 */
+	@Override
+	public RandomVariable discount(RandomVariable rate, double periodLength) {
+		final double[] rateRealizations = getVectorizableRealizations(rate);
+		if (isDeterministic() || rateRealizations == null) {
+			return wrap(super.discount(rate, periodLength));
+		}
+		final int size = realizations.length;
+		final double[] result = new double[size];
+		for (int i = 0; i < size; i += SPECIES.length()) {
+			final VectorMask<Double> mask = SPECIES.indexInRange(i, size);
+			final DoubleVector x = DoubleVector.fromArray(SPECIES, realizations, i, mask);
+			final DoubleVector r = DoubleVector.fromArray(SPECIES, rateRealizations, i, mask);
+			x.div(r.mul(periodLength).add(1.0)).intoArray(result, i, mask);
+		}
+		return new RandomVariableVectorized(Math.max(getFiltrationTime(), rate.getFiltrationTime()), result);
+	}
+
+	/*
+	 * this >= 0 ? valueIfTriggerNonNegative : valueIfTriggerNegative, with this as the trigger
+	 */
+	@Override
+	public RandomVariable choose(RandomVariable valueIfTriggerNonNegative, RandomVariable valueIfTriggerNegative) {
+		final double[] nonNegativeRealizations = getVectorizableRealizations(valueIfTriggerNonNegative);
+		final double[] negativeRealizations = getVectorizableRealizations(valueIfTriggerNegative);
+		if (isDeterministic() || nonNegativeRealizations == null || negativeRealizations == null) {
+			return wrap(super.choose(valueIfTriggerNonNegative, valueIfTriggerNegative));
+		}
+		final int size = realizations.length;
+		final double[] result = new double[size];
+		for (int i = 0; i < size; i += SPECIES.length()) {
+			final VectorMask<Double> mask = SPECIES.indexInRange(i, size);
+			final DoubleVector trigger = DoubleVector.fromArray(SPECIES, realizations, i, mask);
+			final DoubleVector ifNonNegative = DoubleVector.fromArray(SPECIES, nonNegativeRealizations, i, mask);
+			final DoubleVector ifNegative = DoubleVector.fromArray(SPECIES, negativeRealizations, i, mask);
+			ifNegative.blend(ifNonNegative, trigger.compare(VectorOperators.GE, 0.0)).intoArray(result, i, mask);
+		}
+		return new RandomVariableVectorized(Math.max(getFiltrationTime(), Math.max(
+				valueIfTriggerNonNegative.getFiltrationTime(), valueIfTriggerNegative.getFiltrationTime())), result);
+	}
+
+	/*
+	 * Kahan summation as in RandomVariableFromDoubleArray, with one running sum and one compensation for every lane.
+	 * The sums of the lanes are then added together, again with Kahan summation, each with its own compensation.
+	 */
+	@Override
+	public double getAverage() {
+		if (isDeterministic()) {
+			return super.getAverage();
+		}
+		final int size = realizations.length;
+		DoubleVector sum = DoubleVector.zero(SPECIES);
+		DoubleVector error = DoubleVector.zero(SPECIES);
+		for (int i = 0; i < size; i += SPECIES.length()) {
+			final VectorMask<Double> mask = SPECIES.indexInRange(i, size);
+			final DoubleVector value = DoubleVector.fromArray(SPECIES, realizations, i, mask).sub(error);
+			final DoubleVector newSum = sum.add(value);
+			error = newSum.sub(sum).sub(value);
+			sum = newSum;
+		}
+		final double[] sumsOfTheLanes = sum.toArray();
+		final double[] errorsOfTheLanes = error.toArray();
+		double total = 0.0;
+		double totalError = 0.0;
+		for (int lane = 0; lane < sumsOfTheLanes.length; lane++) {
+			//the sum of the lane is sumsOfTheLanes[lane] - errorsOfTheLanes[lane]: we add the two terms separately
+			double value = sumsOfTheLanes[lane] - totalError;
+			double newTotal = total + value;
+			totalError = newTotal - total - value;
+			total = newTotal;
+
+			value = -errorsOfTheLanes[lane] - totalError;
+			newTotal = total + value;
+			totalError = newTotal - total - value;
+			total = newTotal;
+		}
+		return total / size;
+	}
+
+	@Override
+	public RandomVariable apply(DoubleUnaryOperator operator) {
+		return wrap(super.apply(operator));
+	}
+
+	@Override
+	public RandomVariable apply(DoubleBinaryOperator operator, RandomVariable argument) {
+		return wrap(super.apply(operator, argument));
+	}
+
+	@Override
+	public RandomVariable apply(DoubleTernaryOperator operator, RandomVariable argument1, RandomVariable argument2) {
+		return wrap(super.apply(operator, argument1, argument2));
+	}
+
+	@Override
+	public RandomVariable apply(DoubleBinaryOperator operatorOuter, DoubleBinaryOperator operatorInner,
+			RandomVariable argument1, RandomVariable argument2) {
+		return wrap(super.apply(operatorOuter, operatorInner, argument1, argument2));
+	}
+
+	@Override
+	public RandomVariable accrue(RandomVariable rate, double periodLength) {
+		return wrap(super.accrue(rate, periodLength));
+	}
+
+	@Override
+	public RandomVariable addSumProduct(List<RandomVariable> factor1, List<RandomVariable> factor2) {
+		return wrap(super.addSumProduct(factor1, factor2));
+	}
+
+	@Override
+	public RandomVariable addRatio(RandomVariable numerator, RandomVariable denominator) {
+		return wrap(super.addRatio(numerator, denominator));
+	}
+
+	@Override
+	public RandomVariable subRatio(RandomVariable numerator, RandomVariable denominator) {
+		return wrap(super.subRatio(numerator, denominator));
+	}
+
+	@Override
+	public RandomVariable isNaN() {
+		return wrap(super.isNaN());
+	}
+
+	@Override
+	public RandomVariable getConditionalExpectation(ConditionalExpectationEstimator conditionalExpectationOperator) {
+		return wrap(super.getConditionalExpectation(conditionalExpectationOperator));
+	}
+
+	@Override
+	public RandomVariable cache() {
+		return wrap(super.cache());
+	}
+
+	@Override
+	public RandomVariable average() {
+		return new RandomVariableVectorized(getFiltrationTime(), getAverage());
+	}
+
+	/*
+	 * The operation this (op) randomVariable, or randomVariable (op) this if isReversed is true. The cases which are not
+	 * vectorized are left to the super class.
+	 */
+	private RandomVariable binaryOperation(VectorOperators.Binary operator, RandomVariable randomVariable,
+			boolean isReversed) {
+		final double[] otherRealizations = getVectorizableRealizations(randomVariable);
+		final boolean isOtherDeterministic = randomVariable.isDeterministic()
+				&& randomVariable.getTypePriority() <= getTypePriority();
+		if (isDeterministic() && isOtherDeterministic || !isOtherDeterministic && otherRealizations == null) {
+			return wrap(superBinaryOperation(operator, randomVariable, isReversed));
+		}
+		final double time = Math.max(getFiltrationTime(), randomVariable.getFiltrationTime());
+		final double[] result;
+		if (isOtherDeterministic) {
+			final double otherValue = randomVariable.doubleValue();
+			result = isReversed ? lanewise(operator, otherValue, realizations)
+					: lanewise(operator, realizations, otherValue);
+		} else if (isDeterministic()) {
+			final double value = doubleValue();
+			result = isReversed ? lanewise(operator, otherRealizations, value)
+					: lanewise(operator, value, otherRealizations);
+		} else {
+			result = isReversed ? lanewise(operator, otherRealizations, realizations)
+					: lanewise(operator, realizations, otherRealizations);
+		}
+		return new RandomVariableVectorized(time, result);
+	}
+
+	private RandomVariable superBinaryOperation(VectorOperators.Binary operator, RandomVariable randomVariable,
+			boolean isReversed) {
+		if (operator == VectorOperators.ADD) {
+			return super.add(randomVariable);
+		} else if (operator == VectorOperators.SUB) {
+			return isReversed ? super.bus(randomVariable) : super.sub(randomVariable);
+		} else if (operator == VectorOperators.MUL) {
+			return super.mult(randomVariable);
+		} else if (operator == VectorOperators.DIV) {
+			return isReversed ? super.vid(randomVariable) : super.div(randomVariable);
+		} else if (operator == VectorOperators.MIN) {
+			return super.cap(randomVariable);
+		} else {
+			return super.floor(randomVariable);
+		}
+	}
+
+	/*
+	 * It gives the result of an operation of RandomVariableFromDoubleArray as a random variable of this type, so that
+	 * the next operations are vectorized. Results of other types (for example for automatic differentiation) are
+	 * returned as they are.
+	 */
+	private static RandomVariable wrap(RandomVariable result) {
+		if (result.getClass() != RandomVariableFromDoubleArray.class) {
+			return result;
+		}
+		return result.isDeterministic() ? new RandomVariableVectorized(result.getFiltrationTime(), result.doubleValue())
+				: new RandomVariableVectorized(result.getFiltrationTime(), result.getRealizations());
+	}
+
+	private RandomVariableVectorized scalarOperation(VectorOperators.Binary operator, double value) {
+		return new RandomVariableVectorized(getFiltrationTime(), lanewise(operator, realizations, value));
+	}
+
+	private RandomVariableVectorized unaryOperation(VectorOperators.Unary operator) {
+		final int size = realizations.length;
+		final double[] result = new double[size];
+		for (int i = 0; i < size; i += SPECIES.length()) {
+			final VectorMask<Double> mask = SPECIES.indexInRange(i, size);
+			DoubleVector.fromArray(SPECIES, realizations, i, mask).lanewise(operator).intoArray(result, i, mask);
+		}
+		return new RandomVariableVectorized(getFiltrationTime(), result);
+	}
+
+	/*
+	 * It returns the realizations of a stochastic random variable which can be combined element-wise with this one,
+	 * i.e., of the same size and not of higher type priority, and null otherwise.
+	 */
+	private double[] getVectorizableRealizations(RandomVariable randomVariable) {
+		if (randomVariable.isDeterministic() || randomVariable.getTypePriority() > getTypePriority()
+				|| randomVariable.size() != size() && !isDeterministic()) {
+			return null;
+		}
+		if (randomVariable instanceof RandomVariableVectorized) {
+			return ((RandomVariableVectorized) randomVariable).realizations;
+		}
+		return randomVariable.getRealizations();
+	}
+
+	private static double[] lanewise(VectorOperators.Binary operator, double[] x, double[] y) {
+		final int size = x.length;
+		final double[] result = new double[size];
+		for (int i = 0; i < size; i += SPECIES.length()) {
+			final VectorMask<Double> mask = SPECIES.indexInRange(i, size);
+			DoubleVector.fromArray(SPECIES, x, i, mask).lanewise(operator, DoubleVector.fromArray(SPECIES, y, i, mask))
+			.intoArray(result, i, mask);
+		}
+		return result;
+	}
+
+	private static double[] lanewise(VectorOperators.Binary operator, double[] x, double y) {
+		final int size = x.length;
+		final double[] result = new double[size];
+		for (int i = 0; i < size; i += SPECIES.length()) {
+			final VectorMask<Double> mask = SPECIES.indexInRange(i, size);
+			DoubleVector.fromArray(SPECIES, x, i, mask).lanewise(operator, y).intoArray(result, i, mask);
+		}
+		return result;
+	}
+
+	private static double[] lanewise(VectorOperators.Binary operator, double x, double[] y) {
+		final int size = y.length;
+		final double[] result = new double[size];
+		final DoubleVector broadcastX = DoubleVector.broadcast(SPECIES, x);
+		for (int i = 0; i < size; i += SPECIES.length()) {
+			final VectorMask<Double> mask = SPECIES.indexInRange(i, size);
+			broadcastX.lanewise(operator, DoubleVector.fromArray(SPECIES, y, i, mask)).intoArray(result, i, mask);
+		}
+		return result;
+	}
+}
@@ -0,0 +1,27 @@
+package com.andreamazzon.montecarlo;
+
+import net.finmath.montecarlo.AbstractRandomVariableFactory;
+import net.finmath.stochastic.RandomVariable;
+
+/**
+ * This factory creates random variables of type RandomVariableVectorized. It can be given to the builders of the LIBOR
+ * market models which accept a RandomVariableFactory, or to BrownianMotionFromMersenneRandomNumbers, so that all the
+ * operations of the simulation use the SIMD lanes of the JDK Vector API.
+ *
+ * @author Andrea Mazzon
+ *
+ */
+public class RandomVariableVectorizedFactory extends AbstractRandomVariableFactory {
+
+	private static final long serialVersionUID = 4736823517659027361L;
+
+	@Override
+	public RandomVariable createRandomVariable(double time, double value) {
+		return new RandomVariableVectorized(time, value);
+	}
+
+	@Override
+	public RandomVariable createRandomVariable(double time, double[] values) {
+		return new RandomVariableVectorized(time, values);
+	}
+}
@@ -1,12 +1,14 @@
 package com.andreamazzon.exercise1;
 
 import java.text.DecimalFormat;
+import java.util.Map;
 
 import org.junit.Assert;
 import org.junit.jupiter.api.Test;
 
 import net.finmath.exception.CalculationException;
 import net.finmath.functions.AnalyticFormulas;
+import net.finmath.functions.NormalDistribution;
 import net.finmath.montecarlo.assetderivativevaluation.AssetModelMonteCarloSimulationModel;
 import net.finmath.montecarlo.assetderivativevaluation.MonteCarloBlackScholesModel;
 import net.finmath.montecarlo.assetderivativevaluation.products.AbstractAssetMonteCarloProduct;
@@ -18,6 +20,7 @@ import net.finmath.time.TimeDiscretizationFromArray;
  * the delta of a call option with Black-Scholes model is equal to the valuation of a portfolio holding 1/S0 asset-or-nothing
  * options of same maturity, with the same strike, of course written on the same underlying. Question: does this relation
  * hold in general or only for the Black-Scholes model?
+ * The method testAssetOrNothingGreeks() compares delta, gamma and vega returned by getValues with their analytic values.
  *
  * @author Andrea Mazzon
  *
@@ -77,4 +80,57 @@ class AssetOrNothingTest {
 		+ FORMATTERPOSITIVE4.format(absolutePercentageError)+ "\n" );
 	}
 
+	@Test
+	void testAssetOrNothingGreeks() throws CalculationException {
+
+		//process parameters
+		final double initialPrice = 100.0;
+		final double volatility = 0.25; //the volatility of the underlying
+		final double riskFreeRate = 0.0;
+
+		//option parameters
+		final double strike = 120.0;//out of the money, where the vega is not close to zero
+		final double maturity = 1.0;
+
+		//simulation parameter
+		final int numberOfSimulations = 200000;//the number of paths simulated
+
+		//time discretization parameters: we only need the value at maturity
+		final TimeDiscretization times = new TimeDiscretizationFromArray(0.0, 1, maturity);
+
+		//we want the absolute percentage difference between Monte-Carlo and analytic greeks to be smaller than this
+		final double tolerance = 3.0;
+
+		final MonteCarloBlackScholesModel bsModel = new MonteCarloBlackScholesModel(
+				times, numberOfSimulations, initialPrice, riskFreeRate, volatility);
+		final AssetOrNothing assetOrNothingOption = new AssetOrNothing(maturity, strike);
+
+		//value, delta, gamma and vega from the same paths
+		final Map<String, Object> results = assetOrNothingOption.getValues(0.0, bsModel);
+
+		//analytic values: the value of the option is S(0)N(d_1)
+		final double d1 = (Math.log(initialPrice / strike) + (riskFreeRate + 0.5 * volatility * volatility) * maturity)
+				/ (volatility * Math.sqrt(maturity));
+		final double d2 = d1 - volatility * Math.sqrt(maturity);
+		final double analyticDelta = NormalDistribution.cumulativeDistribution(d1)
+				+ NormalDistribution.density(d1) / (volatility * Math.sqrt(maturity));
+		final double analyticGamma = -NormalDistribution.density(d1) * d2 / (initialPrice * volatility * volatility * maturity);
+		final double analyticVega = -initialPrice * NormalDistribution.density(d1) * d2 / volatility;
+
+		final double monteCarloDelta = (Double) results.get("delta");
+		final double monteCarloGamma = (Double) results.get("gamma");
+		final double monteCarloVega = (Double) results.get("vega");
+
+		System.out.println("Delta: Monte Carlo " + FORMATTERPOSITIVE4.format(monteCarloDelta)
+		+ ", analytic " + FORMATTERPOSITIVE4.format(analyticDelta));
+		System.out.println("Gamma: Monte Carlo " + FORMATTERPOSITIVE4.format(monteCarloGamma)
+		+ ", analytic " + FORMATTERPOSITIVE4.format(analyticGamma));
+		System.out.println("Vega: Monte Carlo " + FORMATTERPOSITIVE4.format(monteCarloVega)
+		+ ", analytic " + FORMATTERPOSITIVE4.format(analyticVega) + "\n");
+
+		Assert.assertEquals(0, Math.abs(analyticDelta - monteCarloDelta) / analyticDelta * 100, tolerance);
+		Assert.assertEquals(0, Math.abs(analyticGamma - monteCarloGamma) / analyticGamma * 100, tolerance);
+		Assert.assertEquals(0, Math.abs(analyticVega - monteCarloVega) / analyticVega * 100, tolerance);
+	}
+
 }
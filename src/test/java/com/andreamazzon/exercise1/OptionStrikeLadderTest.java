@@ -0,0 +1,76 @@
+package com.andreamazzon.exercise1;
+
+import java.text.DecimalFormat;
+
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+
+import net.finmath.exception.CalculationException;
+import net.finmath.montecarlo.assetderivativevaluation.AssetModelMonteCarloSimulationModel;
+import net.finmath.montecarlo.assetderivativevaluation.MonteCarloBlackScholesModel;
+import net.finmath.montecarlo.assetderivativevaluation.products.AbstractAssetMonteCarloProduct;
+import net.finmath.montecarlo.assetderivativevaluation.products.EuropeanOption;
+import net.finmath.time.TimeDiscretization;
+import net.finmath.time.TimeDiscretizationFromArray;
+
+/**
+ * This test class checks that the values computed by OptionStrikeLadder with a single traversal of the paths are the
+ * same (up to rounding errors) as the ones we get by valuing one AssetOrNothing and one EuropeanOption object
+ * for every strike, on the same simulation.
+ *
+ * @author Andrea Mazzon
+ *
+ */
+class OptionStrikeLadderTest {
+	static final DecimalFormat FORMATTERPOSITIVE4 = new DecimalFormat("0.0000");
+
+	@Test
+	void testLadderAgainstSingleProducts() throws CalculationException {
+
+		//process parameters
+		final double initialPrice = 100.0;
+		final double volatility = 0.25; //the volatility of the underlying
+		final double riskFreeRate = 0.02;
+
+		//option parameters: the strikes are not sorted on purpose
+		final double maturity = 1.0;
+		final double[] strikes = {100.0, 80.0, 120.0, 90.0, 100.0, 150.0, 60.0};
+
+		//simulation parameter
+		final int numberOfSimulations = 50000;//the number of paths simulated
+
+		//time discretization parameters
+		final double initialTime = 0;
+		final int numberOfTimeSteps = 10;
+		final double timeStep = maturity / numberOfTimeSteps;
+		final TimeDiscretization times = new TimeDiscretizationFromArray(initialTime,
+				numberOfTimeSteps, timeStep);
+
+		final AssetModelMonteCarloSimulationModel bsModel = new MonteCarloBlackScholesModel(
+				times, numberOfSimulations, initialPrice, riskFreeRate, volatility);
+
+		final OptionStrikeLadder ladder = new OptionStrikeLadder(maturity, strikes);
+
+		final double[] assetOrNothingValues = ladder.getAssetOrNothingValues(bsModel);
+		final double[] europeanValues = ladder.getEuropeanOptionValues(bsModel);
+
+		final double tolerance = 1E-10;
+
+		for (int strikeIndex = 0; strikeIndex < strikes.length; strikeIndex++) {
+			final AbstractAssetMonteCarloProduct assetOrNothingOption = new AssetOrNothing(maturity, strikes[strikeIndex]);
+			final AbstractAssetMonteCarloProduct europeanOption = new EuropeanOption(maturity, strikes[strikeIndex]);
+
+			final double assetOrNothingValue = assetOrNothingOption.getValue(bsModel);
+			final double europeanValue = europeanOption.getValue(bsModel);
+
+			System.out.println("Strike " + strikes[strikeIndex]
+					+ ": asset or nothing " + FORMATTERPOSITIVE4.format(assetOrNothingValues[strikeIndex])
+					+ " (single product " + FORMATTERPOSITIVE4.format(assetOrNothingValue) + ")"
+					+ ", call " + FORMATTERPOSITIVE4.format(europeanValues[strikeIndex])
+					+ " (single product " + FORMATTERPOSITIVE4.format(europeanValue) + ")");
+
+			Assert.assertEquals(assetOrNothingValue, assetOrNothingValues[strikeIndex], tolerance * initialPrice);
+			Assert.assertEquals(europeanValue, europeanValues[strikeIndex], tolerance * initialPrice);
+		}
+	}
+}
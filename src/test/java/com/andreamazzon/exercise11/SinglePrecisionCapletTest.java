@@ -0,0 +1,62 @@
+package com.andreamazzon.exercise11;
+
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+
+import com.andreamazzon.exercise11.LIBORMarketModelConstructionWithDynamicsAndMeasureSpecification.Dynamics;
+import com.andreamazzon.exercise11.LIBORMarketModelConstructionWithDynamicsAndMeasureSpecification.Measure;
+
+import net.finmath.exception.CalculationException;
+import net.finmath.montecarlo.RandomVariableFloatFactory;
+import net.finmath.montecarlo.interestrate.TermStructureMonteCarloSimulationModel;
+import net.finmath.montecarlo.interestrate.products.Caplet;
+import net.finmath.montecarlo.interestrate.products.TermStructureMonteCarloProduct;
+
+/**
+ * This class checks that a LIBOR market model simulated with single precision random variables gives the same value
+ * of a caplet as the one with double precision, up to an error which is much smaller than the Monte Carlo error. The
+ * same check for the builder of exercise 9 is in com.andreamazzon.exercise9.SinglePrecisionLIBORMarketModelTest.
+ *
+ * @author Andrea Mazzon
+ *
+ */
+class SinglePrecisionCapletTest {
+
+	@Test
+	void testCapletWithSinglePrecision() throws CalculationException {
+		final int numberOfPaths = 20000;
+
+		final double simulationTimeStep = 0.1;
+		final double LIBORTimeStep = 0.5;
+		final double LIBORRateTimeHorizon = 5;
+
+		final double[] fixingForGivenForwards = { 0.5, 1.0, 2.0, 3.0};
+		final double[] forwardsForCurve = { 0.05, 0.05, 0.05, 0.05};
+
+		final double correlationDecayParameter = 0.5;
+		final double a = 0.2, b = 0.1, c = 0.15, d = 0.3; //volatility structure
+
+		final TermStructureMonteCarloSimulationModel doublePrecisionModel =
+				LIBORMarketModelConstructionWithDynamicsAndMeasureSpecification.createLIBORMarketModel(
+						numberOfPaths, simulationTimeStep, LIBORTimeStep, LIBORRateTimeHorizon,
+						fixingForGivenForwards, forwardsForCurve, correlationDecayParameter,
+						Dynamics.LOGNORMAL, Measure.SPOT, a, b, c, d);
+
+		final TermStructureMonteCarloSimulationModel singlePrecisionModel =
+				LIBORMarketModelConstructionWithDynamicsAndMeasureSpecification.createLIBORMarketModel(
+						numberOfPaths, simulationTimeStep, LIBORTimeStep, LIBORRateTimeHorizon,
+						fixingForGivenForwards, forwardsForCurve, correlationDecayParameter,
+						Dynamics.LOGNORMAL, Measure.SPOT, a, b, c, d, new RandomVariableFloatFactory());
+
+		final TermStructureMonteCarloProduct caplet = new Caplet(4.0, LIBORTimeStep, 0.05);
+
+		final double doublePrecisionValue = caplet.getValue(doublePrecisionModel);
+		final double singlePrecisionValue = caplet.getValue(singlePrecisionModel);
+		final double monteCarloError = caplet.getValue(0.0, doublePrecisionModel).getStandardError();
+
+		System.out.println("Caplet value with double precision " + doublePrecisionValue
+				+ ", with single precision " + singlePrecisionValue + ", Monte Carlo error " + monteCarloError);
+
+		Assert.assertEquals(doublePrecisionValue, singlePrecisionValue, 0.01 * monteCarloError);
+	}
+}
@@ -0,0 +1,69 @@
+package com.andreamazzon.exercise4;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import net.finmath.time.TimeDiscretization;
+import net.finmath.time.TimeDiscretizationFromArray;
+
+/**
+ * This is a test class for IncrementalSwapBook: after many random changes of single bonds of the curve, the values
+ * updated incrementally are compared with the ones computed from scratch by SwapBook on the same curve.
+ *
+ * @author Andrea Mazzon
+ */
+public class TestIncrementalSwapBook {
+
+	@Test
+	public void testIncrementalUpdates() {
+		final double[] times = {0.5, 1, 1.5, 2, 3, 3.5, 4, 5};
+		final double[] zeroCouponBondCurve = { 0.9986509108, 0.9949129829, 0.9897033769, 0.9835370208, 0.9765298116,
+				0.9689909565, 0.9612, 0.9450 };
+		final TimeDiscretization swapDates = new TimeDiscretizationFromArray(times);
+
+		final int numberOfSwaps = 5000;
+		final double[] notionals = new double[numberOfSwaps];
+		final double[] fixedRates = new double[numberOfSwaps];
+		final int[] startIndices = new int[numberOfSwaps];
+		final int[] endIndices = new int[numberOfSwaps];
+
+		final Random random = new Random(1897);
+		for (int swapIndex = 0; swapIndex < numberOfSwaps; swapIndex++) {
+			notionals[swapIndex] = 1000 * (1 + random.nextInt(10));
+			fixedRates[swapIndex] = 0.02 * random.nextDouble();
+			startIndices[swapIndex] = random.nextInt(times.length - 1);
+			endIndices[swapIndex] = startIndices[swapIndex] + 1 + random.nextInt(times.length - 1 - startIndices[swapIndex]);
+		}
+
+		final IncrementalSwapBook incrementalBook = new IncrementalSwapBook(swapDates, zeroCouponBondCurve, notionals,
+				fixedRates, startIndices, endIndices);
+
+		final double[] originalCurve = zeroCouponBondCurve.clone();
+
+		for (int updateIndex = 0; updateIndex < 1000; updateIndex++) {
+			final int curveIndex = random.nextInt(times.length);
+			final double newZeroBond = zeroCouponBondCurve[curveIndex] * (1 + 0.001 * random.nextGaussian());
+			incrementalBook.updateZeroBond(curveIndex, newZeroBond);
+		}
+		//the given curve is copied, not modified
+		Assert.assertArrayEquals(originalCurve, zeroCouponBondCurve, 0.0);
+
+		final SwapBook book = new SwapBook(swapDates, incrementalBook.getZeroBondCurve(), notionals, fixedRates,
+				startIndices, endIndices);
+
+		final double tolerance = 1E-9;
+		Assert.assertArrayEquals(book.getValues(false), incrementalBook.getValues(), tolerance);
+		Assert.assertEquals(book.getValue(false), incrementalBook.getBookValue(), numberOfSwaps * tolerance);
+
+		//the last node is only in the swaps ending there
+		int numberOfSwapsEndingAtLastNode = 0;
+		for (final int endIndex : endIndices) {
+			numberOfSwapsEndingAtLastNode += endIndex == times.length - 1 ? 1 : 0;
+		}
+		Assert.assertEquals(numberOfSwapsEndingAtLastNode, incrementalBook.getNumberOfSwapsAffectedByNode(times.length - 1));
+
+		System.out.println("The value of the book after the updates is " + incrementalBook.getBookValue());
+	}
+}
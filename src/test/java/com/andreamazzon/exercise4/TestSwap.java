@@ -1,5 +1,7 @@
 package com.andreamazzon.exercise4;
 
+import java.util.Arrays;
+
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -49,4 +51,76 @@ public class TestSwap {
 
 	}
 
+	@Test
+	public void testParSwapRateMatrix() {
+		final double[] zeroCouponBondCurve = { 0.9986509108, 0.9949129829, 0.9897033769, 0.9835370208, 0.9765298116,
+				0.9689909565 };
+		final double[] times = {0.5, 1, 1.5, 2, 3, 3.5};
+
+		final SwapWithoutFinmath swapCalculator = new SwapWithoutFinmath(times, zeroCouponBondCurve, true);
+		final double[][] parSwapRates = swapCalculator.getParSwapRateMatrix();
+
+		final double tolerance = 1E-14;
+		for (int startIndex = 0; startIndex < times.length; startIndex++) {
+			for (int endIndex = 0; endIndex < times.length; endIndex++) {
+				if (endIndex <= startIndex) {
+					Assert.assertTrue(Double.isNaN(parSwapRates[startIndex][endIndex]));
+					continue;
+				}
+				//the par swap rate of the sub-period must be the one of a swap constructed only on the sub-period
+				final Swap subSwap = new SwapWithoutFinmath(Arrays.copyOfRange(times, startIndex, endIndex + 1),
+						Arrays.copyOfRange(zeroCouponBondCurve, startIndex, endIndex + 1), true);
+				Assert.assertEquals(subSwap.getParSwapRate(), parSwapRates[startIndex][endIndex], tolerance);
+				Assert.assertEquals(parSwapRates[startIndex][endIndex],
+						swapCalculator.getParSwapRate(startIndex, endIndex), 0.0);
+			}
+		}
+		//the whole tenure structure
+		Assert.assertEquals(swapCalculator.getParSwapRate(), parSwapRates[0][times.length - 1], 0.0);
+
+		//the swap works on a copy of the curve: changing the array afterwards changes neither the rates nor the index
+		zeroCouponBondCurve[3] = 0.5;
+		Assert.assertEquals(parSwapRates[0][times.length - 1], swapCalculator.getParSwapRate(), 0.0);
+		Assert.assertEquals(parSwapRates[1][4], swapCalculator.getParSwapRate(1, 4), 0.0);
+	}
+
+	@Test
+	public void testCurveSensitivities() {
+		final double[] times = {0.5, 1, 1.5, 2, 3, 3.5};
+		final double[] swapRates = {0.01, 0.012, 0.015, 0.015, 0.02, 0.02};
+		final double[] zeroCouponBondCurve = { 0.9986509108, 0.9949129829, 0.9897033769, 0.9835370208, 0.9765298116,
+				0.9689909565 };
+		final double[] liborCurve = { 0.01, 0.012, 0.014, 0.016, 0.018, 0.02 };
+
+		final double shift = 1E-6;
+		final double tolerance = 1E-8;
+
+		for (final boolean isBondCurve : new boolean[] {true, false}) {
+			final double[] curve = isBondCurve ? zeroCouponBondCurve : liborCurve;
+			final SwapWithoutFinmath swapCalculator = new SwapWithoutFinmath(times, curve, isBondCurve);
+
+			final double[] sensitivities = new double[curve.length];
+			final double value = swapCalculator.getSwapValueAndCurveSensitivities(swapRates, sensitivities);
+			Assert.assertEquals(swapCalculator.getSwapValue(swapRates), value, 0.0);
+
+			//we compare every derivative with the central finite difference
+			for (int curveIndex = 0; curveIndex < curve.length; curveIndex++) {
+				final double[] curveUp = curve.clone();
+				curveUp[curveIndex] += shift;
+				final double[] curveDown = curve.clone();
+				curveDown[curveIndex] -= shift;
+				final double finiteDifference = (new SwapWithoutFinmath(times, curveUp, isBondCurve).getSwapValue(swapRates)
+						- new SwapWithoutFinmath(times, curveDown, isBondCurve).getSwapValue(swapRates)) / (2 * shift);
+				Assert.assertEquals(finiteDifference, sensitivities[curveIndex], tolerance);
+			}
+
+			//the sensitivities do not change if the array given to the constructor is changed afterwards
+			final double[] sensitivitiesBeforeTheChange = sensitivities.clone();
+			final double[] originalCurve = curve.clone();
+			Arrays.fill(curve, 0.5);
+			swapCalculator.getSwapValueAndCurveSensitivities(swapRates, sensitivities);
+			Assert.assertArrayEquals(sensitivitiesBeforeTheChange, sensitivities, 0.0);
+			System.arraycopy(originalCurve, 0, curve, 0, curve.length);
+		}
+	}
 }
@@ -0,0 +1,64 @@
+package com.andreamazzon.exercise4;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import net.finmath.time.TimeDiscretization;
+import net.finmath.time.TimeDiscretizationFromArray;
+
+/**
+ * This is a test class for SwapBook: the values and the par swap rates of a book of random swaps are compared with
+ * the ones computed by SwapWithoutFinmath for every single swap, and the parallel valuation is compared with the
+ * sequential one.
+ *
+ * @author Andrea Mazzon
+ */
+public class TestSwapBook {
+
+	@Test
+	public void testSwapBook() {
+		final double[] times = {0.5, 1, 1.5, 2, 3, 3.5, 4, 5};
+		final double[] zeroCouponBondCurve = { 0.9986509108, 0.9949129829, 0.9897033769, 0.9835370208, 0.9765298116,
+				0.9689909565, 0.9612, 0.9450 };
+		final TimeDiscretization swapDates = new TimeDiscretizationFromArray(times);
+
+		final int numberOfSwaps = 10000;
+		final double[] notionals = new double[numberOfSwaps];
+		final double[] fixedRates = new double[numberOfSwaps];
+		final int[] startIndices = new int[numberOfSwaps];
+		final int[] endIndices = new int[numberOfSwaps];
+
+		final Random random = new Random(1897);
+		for (int swapIndex = 0; swapIndex < numberOfSwaps; swapIndex++) {
+			notionals[swapIndex] = 1000 * (1 + random.nextInt(10));
+			fixedRates[swapIndex] = 0.02 * random.nextDouble();
+			startIndices[swapIndex] = random.nextInt(times.length - 1);
+			endIndices[swapIndex] = startIndices[swapIndex] + 1 + random.nextInt(times.length - 1 - startIndices[swapIndex]);
+		}
+
+		final SwapBook book = new SwapBook(swapDates, zeroCouponBondCurve, notionals, fixedRates, startIndices, endIndices);
+
+		final double[] values = book.getValues(false);
+		final double[] parSwapRates = book.getParSwapRates(false);
+
+		final double tolerance = 1E-12;
+		for (int swapIndex = 0; swapIndex < 100; swapIndex++) {
+			//the swap of the book is the one of SwapWithoutFinmath on the dates and bonds from start to end index
+			final int startIndex = startIndices[swapIndex];
+			final int endIndex = endIndices[swapIndex];
+			final Swap swap = new SwapWithoutFinmath(Arrays.copyOfRange(times, startIndex, endIndex + 1),
+					Arrays.copyOfRange(zeroCouponBondCurve, startIndex, endIndex + 1), true);
+			Assert.assertEquals(notionals[swapIndex] * swap.getSwapValue(fixedRates[swapIndex]), values[swapIndex],
+					tolerance * notionals[swapIndex]);
+			Assert.assertEquals(swap.getParSwapRate(), parSwapRates[swapIndex], tolerance);
+		}
+
+		//the parallel valuation must give exactly the same numbers
+		Assert.assertArrayEquals(values, book.getValues(true), 0.0);
+		Assert.assertArrayEquals(parSwapRates, book.getParSwapRates(true), 0.0);
+		System.out.println("The value of the book is " + book.getValue(true));
+	}
+}
@@ -10,8 +10,12 @@ import java.util.ArrayList;
  * logarithm of the discount factors (bonds).
  * @author: Andrea Mazzon
  */
+import org.junit.Assert;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import com.andreamazzon.exercise5.Bootstrap.RootFinderType;
+
 /**
  * Here we "test" the class Bootstrap (even if we have no JUnit specific method) by giving to its constructor
  * two initial bonds along with a time step (semi-annual). We then iteratively call the methods nextBondFromParSwapRate
@@ -54,5 +58,114 @@ public class BootstrapTest {
 					FORMATTERREAL4.format(computedBonds.get(i)));
 		}
 	}
-}
 
+	@Test
+	void testRootFinders() {
+		final double[] firstBonds = { 0.98, 0.975 };
+		final double yearFraction = 0.5;
+		final double[] semiAnnualSwapRates = {0.0086, 0.0077, 0.0073, 0.0084 };
+		final double[] annualSwapRates = {0.0075,  0.0085, 0.0095, 0.0092 };
+
+		final ArrayList<Double> bisectionBonds = new ArrayList<Double>();
+		for (final RootFinderType rootFinderType : RootFinderType.values()) {
+			final Bootstrap bootstrap = new Bootstrap(firstBonds[0], firstBonds[1], yearFraction, rootFinderType);
+			for (final double semiAnnualSwapRate : semiAnnualSwapRates) {
+				bootstrap.nextBondFromParSwapRate(semiAnnualSwapRate);
+			}
+			for (final double annualSwapRate : annualSwapRates) {
+				bootstrap.nextTwoBondsFromParSwapRate(annualSwapRate);
+			}
+			System.out.println(rootFinderType + ": " + bootstrap.getNumberOfRootFinderIterations() + " iterations for "
+					+ bootstrap.getNumberOfRootFinderCalls() + " missing bonds");
+
+			if (rootFinderType == RootFinderType.BISECTION) {
+				bisectionBonds.addAll(bootstrap.getBonds());
+			} else {
+				//all the root finders must give the same curve
+				for (int i = 0; i < bisectionBonds.size(); i++) {
+					Assert.assertEquals(bisectionBonds.get(i), bootstrap.getBonds().get(i), 1E-12);
+				}
+			}
+			if (rootFinderType == RootFinderType.NEWTON || rootFinderType == RootFinderType.SAFEGUARDED_NEWTON) {
+				Assert.assertTrue(bootstrap.getNumberOfRootFinderIterations() <= 6 * annualSwapRates.length);
+			}
+		}
+	}
+
+	@Test
+	void testBulkBootstrap() {
+		final double[] firstBonds = { 0.98, 0.975 };
+		final double yearFraction = 0.5;
+
+		//semi-annual par swap rates first, then only annual ones: the missing ones are NaN
+		final double[] parSwapRates = {0.0086, 0.0077, 0.0073, 0.0084, Double.NaN, 0.0075, Double.NaN, 0.0085,
+				Double.NaN, 0.0095, Double.NaN, 0.0092 };
+		final boolean[] isMissing = new boolean[parSwapRates.length];
+		for (int i = 0; i < parSwapRates.length; i++) {
+			isMissing[i] = Double.isNaN(parSwapRates[i]);
+		}
+
+		final double[] bonds = new double[parSwapRates.length + 2];
+		Bootstrap.bootstrap(firstBonds[0], firstBonds[1], yearFraction, parSwapRates, isMissing, bonds);
+
+		final Bootstrap bootstrap = new Bootstrap(firstBonds[0], firstBonds[1], yearFraction,
+				RootFinderType.SAFEGUARDED_NEWTON);
+		for (int i = 0; i < parSwapRates.length; i++) {
+			if (isMissing[i]) {
+				bootstrap.nextTwoBondsFromParSwapRate(parSwapRates[++i]);
+			} else {
+				bootstrap.nextBondFromParSwapRate(parSwapRates[i]);
+			}
+		}
+
+		Assert.assertEquals(bootstrap.getBonds().size(), bonds.length);
+		for (int i = 0; i < bonds.length; i++) {
+			Assert.assertEquals(bootstrap.getBonds().get(i), bonds[i], 0.0);
+		}
+	}
+
+	@Test
+	void testJacobian() {
+		final double[] firstBonds = { 0.98, 0.975 };
+		final double yearFraction = 0.5;
+
+		final double[] parSwapRates = {0.0086, 0.0077, 0.0073, 0.0084, Double.NaN, 0.0075, Double.NaN, 0.0085,
+				Double.NaN, 0.0095, Double.NaN, 0.0092 };
+		final boolean[] isMissing = new boolean[parSwapRates.length];
+		for (int i = 0; i < parSwapRates.length; i++) {
+			isMissing[i] = Double.isNaN(parSwapRates[i]);
+		}
+
+		final double[] bonds = new double[parSwapRates.length + 2];
+		final double[][] jacobian = new double[parSwapRates.length + 2][parSwapRates.length];
+		Bootstrap.bootstrapWithJacobian(firstBonds[0], firstBonds[1], yearFraction, parSwapRates, isMissing, bonds,
+				jacobian);
+
+		//we compare the Jacobian with central finite differences
+		final double shift = 1E-6;
+		final double[] bondsUp = new double[bonds.length];
+		final double[] bondsDown = new double[bonds.length];
+		for (int j = 0; j < parSwapRates.length; j++) {
+			if (isMissing[j]) {
+				continue;
+			}
+			final double[] parSwapRatesUp = parSwapRates.clone();
+			parSwapRatesUp[j] += shift;
+			final double[] parSwapRatesDown = parSwapRates.clone();
+			parSwapRatesDown[j] -= shift;
+			Bootstrap.bootstrap(firstBonds[0], firstBonds[1], yearFraction, parSwapRatesUp, isMissing, bondsUp);
+			Bootstrap.bootstrap(firstBonds[0], firstBonds[1], yearFraction, parSwapRatesDown, isMissing, bondsDown);
+			for (int i = 0; i < bonds.length; i++) {
+				Assert.assertEquals((bondsUp[i] - bondsDown[i]) / (2 * shift), jacobian[i][j], 1E-7);
+			}
+		}
+
+		//a Jacobian with a short row is rejected before the bonds are written
+		final double[][] wrongJacobian = new double[parSwapRates.length + 2][parSwapRates.length];
+		wrongJacobian[5] = new double[3];
+		final double[] untouchedBonds = new double[bonds.length];
+		Assertions.assertThrows(IllegalArgumentException.class, () -> Bootstrap.bootstrapWithJacobian(firstBonds[0],
+				firstBonds[1], yearFraction, parSwapRates, isMissing, untouchedBonds, wrongJacobian));
+		Assert.assertArrayEquals(new double[bonds.length], untouchedBonds, 0.0);
+	}
+}
@@ -0,0 +1,83 @@
+package com.andreamazzon.exercise5;
+
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Here we test GlobalBootstrap: with single missing par swap rates it must give the same curve as Bootstrap.bootstrap,
+ * and with longer gaps the curve must reprice all the given par swap rates and be log-linear inside the gaps.
+ *
+ * @author Andrea Mazzon
+ *
+ */
+public class GlobalBootstrapTest {
+
+	private final double[] firstBonds = { 0.98, 0.975 };
+	private final double yearFraction = 0.5;
+
+	@Test
+	void testSingleGaps() {
+		final double[] parSwapRates = {0.0086, 0.0077, 0.0073, 0.0084, Double.NaN, 0.0075, Double.NaN, 0.0085,
+				Double.NaN, 0.0095, Double.NaN, 0.0092 };
+		final boolean[] isMissing = getMask(parSwapRates);
+
+		final double[] bonds = new double[parSwapRates.length + 2];
+		new GlobalBootstrap(firstBonds[0], firstBonds[1], yearFraction, isMissing).getBonds(parSwapRates, bonds);
+
+		final double[] bondsOfBootstrap = new double[parSwapRates.length + 2];
+		Bootstrap.bootstrap(firstBonds[0], firstBonds[1], yearFraction, parSwapRates, isMissing, bondsOfBootstrap);
+		Assert.assertArrayEquals(bondsOfBootstrap, bonds, 1E-15);
+	}
+
+	@Test
+	void testLongGaps() {
+		//a 30 years curve with semi-annual dates, quoted only at some points, also with a gap at the beginning
+		final double[] parSwapRates = new double[60];
+		Arrays.fill(parSwapRates, Double.NaN);
+		final int[] quotedIndices = { 2, 3, 6, 10, 18, 28, 38, 58, 59 };
+		for (final int rateIndex : quotedIndices) {
+			parSwapRates[rateIndex] = 0.008 + 0.0002 * rateIndex - 0.000002 * rateIndex * rateIndex;
+		}
+		final boolean[] isMissing = getMask(parSwapRates);
+
+		final GlobalBootstrap bootstrap = new GlobalBootstrap(firstBonds[0], firstBonds[1], yearFraction, isMissing);
+		final double[] bonds = new double[bootstrap.getNumberOfBonds()];
+		final int numberOfNewtonIterations = bootstrap.getBonds(parSwapRates, bonds);
+
+		//the given par swap rates are repriced
+		double sumOfBonds = bonds[1];//the first bond is not included
+		for (int rateIndex = 0; rateIndex < parSwapRates.length; rateIndex++) {
+			sumOfBonds += bonds[rateIndex + 2];
+			if (!isMissing[rateIndex]) {
+				final double parSwapRate = (bonds[0] - bonds[rateIndex + 2]) / (yearFraction * sumOfBonds);
+				Assert.assertEquals(parSwapRates[rateIndex], parSwapRate, 1E-14);
+			}
+		}
+
+		//inside every gap, the logarithm of the bonds is linear
+		int lastKnownBondIndex = 1;
+		for (int rateIndex = 0; rateIndex < parSwapRates.length; rateIndex++) {
+			if (!isMissing[rateIndex]) {
+				final int computedBondIndex = rateIndex + 2;
+				final double logSlope = (Math.log(bonds[computedBondIndex]) - Math.log(bonds[lastKnownBondIndex]))
+						/ (computedBondIndex - lastKnownBondIndex);
+				for (int bondIndex = lastKnownBondIndex + 1; bondIndex < computedBondIndex; bondIndex++) {
+					Assert.assertEquals(Math.log(bonds[bondIndex - 1]) + logSlope, Math.log(bonds[bondIndex]), 1E-13);
+				}
+				lastKnownBondIndex = computedBondIndex;
+			}
+		}
+		System.out.println("Newton's iterations for " + quotedIndices.length + " quotes: "
+				+ numberOfNewtonIterations);
+	}
+
+	private static boolean[] getMask(double[] parSwapRates) {
+		final boolean[] isMissing = new boolean[parSwapRates.length];
+		for (int i = 0; i < parSwapRates.length; i++) {
+			isMissing[i] = Double.isNaN(parSwapRates[i]);
+		}
+		return isMissing;
+	}
+}
@@ -0,0 +1,58 @@
+package com.andreamazzon.exercise5;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Here we test IncrementalBootstrap: after many random updates of single par swap rates, the curve must be the same as
+ * the one bootstrapped from scratch by Bootstrap.bootstrap with the updated par swap rates.
+ *
+ * @author Andrea Mazzon
+ *
+ */
+public class IncrementalBootstrapTest {
+
+	@Test
+	void testIncrementalBootstrap() {
+		final double[] firstBonds = { 0.98, 0.975 };
+		final double yearFraction = 0.5;
+
+		final double[] parSwapRates = {0.0086, 0.0077, 0.0073, 0.0084, Double.NaN, 0.0075, Double.NaN, 0.0085,
+				Double.NaN, 0.0095, Double.NaN, 0.0092 };
+		final boolean[] isMissing = new boolean[parSwapRates.length];
+		for (int i = 0; i < parSwapRates.length; i++) {
+			isMissing[i] = Double.isNaN(parSwapRates[i]);
+		}
+
+		final IncrementalBootstrap bootstrap = new IncrementalBootstrap(firstBonds[0], firstBonds[1], yearFraction,
+				parSwapRates, isMissing);
+		final double[] bondsFromScratch = new double[parSwapRates.length + 2];
+
+		final Random random = new Random(1897);
+		for (int update = 0; update < 200; update++) {
+			int rateIndex = random.nextInt(parSwapRates.length);
+			if (isMissing[rateIndex]) {
+				rateIndex++;
+			}
+			parSwapRates[rateIndex] += 0.0001 * random.nextGaussian();
+			bootstrap.updateParSwapRate(rateIndex, parSwapRates[rateIndex]);
+
+			Bootstrap.bootstrap(firstBonds[0], firstBonds[1], yearFraction, parSwapRates, isMissing, bondsFromScratch);
+			Assert.assertArrayEquals(bondsFromScratch, bootstrap.getBonds(), 1E-15);
+		}
+
+		//only the bonds from the one of the ticked par swap rate on are computed again
+		bootstrap.updateParSwapRate(3, 0.0085);
+		Assert.assertEquals(parSwapRates.length - 3, bootstrap.getNumberOfBondsComputedAtLastUpdate());
+		//the previous rate is missing, so the last two bonds are computed together
+		bootstrap.updateParSwapRate(parSwapRates.length - 1, 0.0093);
+		Assert.assertEquals(2, bootstrap.getNumberOfBondsComputedAtLastUpdate());
+
+		//there is no curve to bootstrap without par swap rates
+		Assertions.assertThrows(IllegalArgumentException.class, () -> new IncrementalBootstrap(firstBonds[0],
+				firstBonds[1], yearFraction, new double[0], new boolean[0]));
+	}
+}
@@ -0,0 +1,60 @@
+package com.andreamazzon.exercise5;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Here we test ScenarioBootstrap: we bootstrap the curves for many random shifts of the par swap rates of BootstrapTest,
+ * in parallel, and we compare every curve with the one given by Bootstrap.bootstrap for the same scenario.
+ *
+ * @author Andrea Mazzon
+ *
+ */
+public class ScenarioBootstrapTest {
+
+	@Test
+	void testScenarioBootstrap() {
+		final double[] firstBonds = { 0.98, 0.975 };
+		final double yearFraction = 0.5;
+
+		final double[] parSwapRates = {0.0086, 0.0077, 0.0073, 0.0084, Double.NaN, 0.0075, Double.NaN, 0.0085,
+				Double.NaN, 0.0095, Double.NaN, 0.0092 };
+		final boolean[] isMissing = new boolean[parSwapRates.length];
+		for (int i = 0; i < parSwapRates.length; i++) {
+			isMissing[i] = Double.isNaN(parSwapRates[i]);
+		}
+
+		//the scenarios: parallel shifts plus some noise, up to 20 basis points
+		final int numberOfScenarios = 10000;
+		final Random random = new Random(1897);
+		final double[][] scenarios = new double[numberOfScenarios][parSwapRates.length];
+		for (int scenarioIndex = 0; scenarioIndex < numberOfScenarios; scenarioIndex++) {
+			final double parallelShift = 0.001 * random.nextGaussian();
+			for (int i = 0; i < parSwapRates.length; i++) {
+				scenarios[scenarioIndex][i] = parSwapRates[i] + parallelShift + 0.0005 * random.nextGaussian();
+			}
+		}
+
+		final ScenarioBootstrap scenarioBootstrap = new ScenarioBootstrap(firstBonds[0], firstBonds[1], yearFraction,
+				isMissing);
+
+		final long startTime = System.currentTimeMillis();
+		final double[][] bonds = scenarioBootstrap.getBonds(scenarios, true);
+		System.out.println("Bootstrap of " + numberOfScenarios + " scenarios: "
+				+ (System.currentTimeMillis() - startTime) + " ms");
+
+		final double[] bondsOfScenario = new double[scenarioBootstrap.getNumberOfBonds()];
+		for (int scenarioIndex = 0; scenarioIndex < numberOfScenarios; scenarioIndex++) {
+			Bootstrap.bootstrap(firstBonds[0], firstBonds[1], yearFraction, scenarios[scenarioIndex], isMissing,
+					bondsOfScenario);
+			Assert.assertArrayEquals(bondsOfScenario, bonds[scenarioIndex], 0.0);
+		}
+
+		//a scenario with a wrong number of par swap rates is rejected before bootstrapping
+		scenarios[numberOfScenarios - 1] = new double[parSwapRates.length - 1];
+		Assertions.assertThrows(IllegalArgumentException.class, () -> scenarioBootstrap.getBonds(scenarios, true));
+	}
+}
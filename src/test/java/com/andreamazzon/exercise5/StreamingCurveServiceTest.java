@@ -0,0 +1,79 @@
+package com.andreamazzon.exercise5;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Here we test StreamingCurveService: a producer thread sends many random ticks of the par swap rates, and when all of
+ * them have been processed the published curve must be the same as the one bootstrapped from scratch by
+ * Bootstrap.bootstrap with the last quotes. The curves read while the ticks arrive must never go back in version.
+ *
+ * @author Andrea Mazzon
+ *
+ */
+public class StreamingCurveServiceTest {
+
+	@Test
+	void testStreamingCurveService() throws InterruptedException {
+		final double[] firstBonds = { 0.98, 0.975 };
+		final double yearFraction = 0.5;
+
+		final double[] parSwapRates = {0.0086, 0.0077, 0.0073, 0.0084, Double.NaN, 0.0075, Double.NaN, 0.0085,
+				Double.NaN, 0.0095, Double.NaN, 0.0092 };
+		final boolean[] isMissing = new boolean[parSwapRates.length];
+		for (int i = 0; i < parSwapRates.length; i++) {
+			isMissing[i] = Double.isNaN(parSwapRates[i]);
+		}
+
+		final int numberOfTicks = 100000;
+		try (StreamingCurveService service = new StreamingCurveService(firstBonds[0], firstBonds[1], yearFraction,
+				parSwapRates, isMissing)) {
+
+			final Thread producer = new Thread(() -> {
+				final Random random = new Random(1897);
+				for (int tick = 0; tick < numberOfTicks; tick++) {
+					int rateIndex = random.nextInt(parSwapRates.length);
+					if (isMissing[rateIndex]) {
+						rateIndex++;
+					}
+					parSwapRates[rateIndex] += 0.0001 * random.nextGaussian();
+					service.onTick(rateIndex, parSwapRates[rateIndex]);
+				}
+			});
+			producer.start();
+
+			//a reader: the versions of the curves it sees never decrease
+			long lastVersion = 0;
+			final long deadline = System.currentTimeMillis() + 60000;
+			while (service.getNumberOfProcessedTicks() < numberOfTicks && System.currentTimeMillis() < deadline) {
+				final StreamingCurveService.CurveSnapshot curve = service.getCurve();
+				Assert.assertTrue(curve.getVersion() >= lastVersion);
+				lastVersion = curve.getVersion();
+			}
+			producer.join();
+			Assert.assertEquals(numberOfTicks, service.getNumberOfProcessedTicks());
+			Assert.assertEquals(0, service.getNumberOfFailedUpdates());
+			Assert.assertNull(service.getLastError());
+
+			final StreamingCurveService.CurveSnapshot finalCurve = service.getCurve();
+			final double[] bondsFromScratch = new double[parSwapRates.length + 2];
+			Bootstrap.bootstrap(firstBonds[0], firstBonds[1], yearFraction, parSwapRates, isMissing, bondsFromScratch);
+			Assert.assertArrayEquals(bondsFromScratch, finalCurve.getBonds(), 1E-15);
+
+			//the bursts of ticks are coalesced: at most one curve is published per tick
+			Assert.assertTrue(finalCurve.getVersion() <= numberOfTicks);
+
+			long numberOfLatencies = 0;
+			for (final long count : service.getLatencyHistogram()) {
+				numberOfLatencies += count;
+			}
+			Assert.assertEquals(numberOfTicks, numberOfLatencies);
+
+			System.out.println("Published curves: " + finalCurve.getVersion() + " for " + numberOfTicks + " ticks");
+			System.out.println("Latency quantiles (ns, upper bounds): 50% " + service.getLatencyQuantileUpperBound(0.5)
+			+ ", 99% " + service.getLatencyQuantileUpperBound(0.99));
+		}
+	}
+}
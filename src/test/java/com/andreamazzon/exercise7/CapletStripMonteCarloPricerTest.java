@@ -0,0 +1,96 @@
+package com.andreamazzon.exercise7;
+
+import org.junit.Assert;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import net.finmath.exception.CalculationException;
+import net.finmath.montecarlo.assetderivativevaluation.AssetModelMonteCarloSimulationModel;
+
+/**
+ * Here we test CapletStripMonteCarloPricer: the values of a strip of caplets must be the same as the ones given by
+ * InterestRateProducts.calculateCapletValueBlackModelWithMonteCarlo, which simulates the LIBOR again for every caplet,
+ * and a second strip on the same LIBOR must not construct a new model. When the cache is full, the least recently used
+ * model must be removed.
+ *
+ * @author Andrea Mazzon
+ *
+ */
+public class CapletStripMonteCarloPricerTest {
+
+	@Test
+	void testCapletStrip() throws CalculationException {
+		final double initialForwardLibor = 0.05;
+		final double liborVolatility = 0.3;
+		final double fixingDate = 2;
+		final double timeStep = 0.1;
+		final int numberOfSimulations = 100000;
+
+		final int numberOfCaplets = 30;
+		final double[] strikes = new double[numberOfCaplets];
+		final double[] paymentDates = new double[numberOfCaplets];
+		final double[] paymentDateDiscountFactors = new double[numberOfCaplets];
+		final double[] notionals = new double[numberOfCaplets];
+		for (int capletIndex = 0; capletIndex < numberOfCaplets; capletIndex++) {
+			strikes[capletIndex] = 0.02 + 0.002 * capletIndex;
+			paymentDates[capletIndex] = capletIndex % 2 == 0 ? 2.5 : 3;
+			paymentDateDiscountFactors[capletIndex] = Math.exp(-0.03 * paymentDates[capletIndex]);
+			notionals[capletIndex] = 10000 * (1 + capletIndex % 3);
+		}
+
+		final CapletStripMonteCarloPricer pricer = new CapletStripMonteCarloPricer();
+
+		long startTime = System.currentTimeMillis();
+		final double[] values = pricer.getCapletValues(initialForwardLibor, liborVolatility, fixingDate, timeStep,
+				numberOfSimulations, strikes, paymentDates, paymentDateDiscountFactors, notionals);
+		System.out.println("Strip of " + numberOfCaplets + " caplets with one simulation: "
+				+ (System.currentTimeMillis() - startTime) + " ms");
+
+		startTime = System.currentTimeMillis();
+		for (int capletIndex = 0; capletIndex < numberOfCaplets; capletIndex++) {
+			final double value = InterestRateProducts.calculateCapletValueBlackModelWithMonteCarlo(initialForwardLibor,
+					liborVolatility, strikes[capletIndex], fixingDate, paymentDates[capletIndex],
+					paymentDateDiscountFactors[capletIndex], notionals[capletIndex], timeStep, numberOfSimulations);
+			Assert.assertEquals(value, values[capletIndex], 1E-10 * notionals[capletIndex]);
+		}
+		System.out.println("Strip of " + numberOfCaplets + " caplets with one simulation per caplet: "
+				+ (System.currentTimeMillis() - startTime) + " ms");
+
+		//a second strip on the same LIBOR uses the model in the cache
+		final double[] doubledNotionals = notionals.clone();
+		for (int capletIndex = 0; capletIndex < numberOfCaplets; capletIndex++) {
+			doubledNotionals[capletIndex] *= 2;
+		}
+		final double[] valuesForDoubledNotionals = pricer.getCapletValues(initialForwardLibor, liborVolatility,
+				fixingDate, timeStep, numberOfSimulations, strikes, paymentDates, paymentDateDiscountFactors,
+				doubledNotionals);
+		Assert.assertEquals(1, pricer.getNumberOfCachedModels());
+		for (int capletIndex = 0; capletIndex < numberOfCaplets; capletIndex++) {
+			Assert.assertEquals(2 * values[capletIndex], valuesForDoubledNotionals[capletIndex], 0.0);
+		}
+		Assert.assertSame(pricer.getModel(initialForwardLibor, liborVolatility, fixingDate, timeStep,
+				numberOfSimulations), pricer.getModel(initialForwardLibor, liborVolatility, fixingDate, timeStep,
+						numberOfSimulations));
+
+		//a different volatility gives a new model
+		pricer.getModel(initialForwardLibor, 0.2, fixingDate, timeStep, numberOfSimulations);
+		Assert.assertEquals(2, pricer.getNumberOfCachedModels());
+	}
+
+	@Test
+	void testCacheIsBounded() {
+		final CapletStripMonteCarloPricer pricer = new CapletStripMonteCarloPricer(2);
+		final AssetModelMonteCarloSimulationModel firstModel = pricer.getModel(0.05, 0.3, 2, 0.1, 1000);
+		final AssetModelMonteCarloSimulationModel secondModel = pricer.getModel(0.05, 0.2, 2, 0.1, 1000);
+
+		//the first model is used again, so the second one is now the least recently used
+		Assert.assertSame(firstModel, pricer.getModel(0.05, 0.3, 2, 0.1, 1000));
+		pricer.getModel(0.05, 0.1, 2, 0.1, 1000);
+		Assert.assertEquals(2, pricer.getNumberOfCachedModels());
+		Assert.assertSame(firstModel, pricer.getModel(0.05, 0.3, 2, 0.1, 1000));
+		Assert.assertNotSame(secondModel, pricer.getModel(0.05, 0.2, 2, 0.1, 1000));
+		Assert.assertEquals(2, pricer.getNumberOfCachedModels());
+
+		Assertions.assertThrows(IllegalArgumentException.class, () -> new CapletStripMonteCarloPricer(0));
+	}
+}
@@ -2,7 +2,9 @@ package com.andreamazzon.exercise7;
 
 
 import java.text.DecimalFormat;
+import java.util.Random;
 
+import org.junit.Assert;
 import org.junit.jupiter.api.Test;
 
 import com.andreamazzon.exercise4.Swap;
@@ -12,7 +14,9 @@ import net.finmath.functions.AnalyticFormulas;
 
 /**
  * This is a test class with a method getting and printing the price of a caplet, of a caplet in arrears and of a
- * swaption under the Black model.
+ * swaption under the Black model, a method checking the batch caplet pricer against the one for a single caplet and a
+ * method checking that the Bachelier formula gives the intrinsic value when the volatility or the maturity is not
+ * positive.
  *
  * @author Andrea Mazzon
  *
@@ -134,4 +138,55 @@ public class InterestRateProductsTest {
 
 	}
 
+	@Test
+	void testBatchCapletValues() {
+		//a book of random caplets, also with some degenerate ones
+		final int numberOfCaplets = 100000;
+		final Random random = new Random(1897);
+		final double[] initialForwardLibors = new double[numberOfCaplets];
+		final double[] liborVolatilities = new double[numberOfCaplets];
+		final double[] strikes = new double[numberOfCaplets];
+		final double[] fixingDates = new double[numberOfCaplets];
+		final double[] paymentDates = new double[numberOfCaplets];
+		final double[] paymentDateDiscountFactors = new double[numberOfCaplets];
+		final double[] notionals = new double[numberOfCaplets];
+		for (int i = 0; i < numberOfCaplets; i++) {
+			initialForwardLibors[i] = i % 1000 == 2 ? -0.005 - 0.01 * random.nextDouble()
+					: 0.01 + 0.05 * random.nextDouble();
+			liborVolatilities[i] = i % 1000 == 0 ? 0.0 : i % 1000 == 3 ? -0.2 : 0.1 + 0.4 * random.nextDouble();
+			strikes[i] = i % 1000 == 1 ? 0.0 : 0.01 + 0.05 * random.nextDouble();
+			fixingDates[i] = 0.5 * (1 + random.nextInt(40));
+			paymentDates[i] = fixingDates[i] + 0.5;
+			paymentDateDiscountFactors[i] = Math.exp(-0.02 * paymentDates[i]);
+			notionals[i] = 1000 * (1 + random.nextInt(100));
+		}
+
+		final double[] values = new double[numberOfCaplets];
+		InterestRateProducts.calculateCapletValuesBlackModel(initialForwardLibors, liborVolatilities, strikes,
+				fixingDates, paymentDates, paymentDateDiscountFactors, notionals, values, true);
+
+		for (int i = 0; i < numberOfCaplets; i++) {
+			final double value = InterestRateProducts.calculateCapletValueBlackModel(initialForwardLibors[i],
+					liborVolatilities[i], strikes[i], fixingDates[i], paymentDates[i], paymentDateDiscountFactors[i],
+					notionals[i]);
+			Assert.assertEquals(value, values[i], 1E-10 * notionals[i]);
+		}
+
+		//the sequential valuation gives the same values
+		final double[] sequentialValues = new double[numberOfCaplets];
+		InterestRateProducts.calculateCapletValuesBlackModel(initialForwardLibors, liborVolatilities, strikes,
+				fixingDates, paymentDates, paymentDateDiscountFactors, notionals, sequentialValues, false);
+		Assert.assertArrayEquals(values, sequentialValues, 0.0);
+	}
+
+	@Test
+	void testBachelierCallValueWithoutVolatility() {
+		final double forward = 0.03;
+		Assert.assertEquals(forward - 0.02, InterestRateProducts.bachelierCallValue(forward, 0.0, 2.0, 0.02), 0.0);
+		Assert.assertEquals(0.0, InterestRateProducts.bachelierCallValue(forward, 0.0, 2.0, 0.04), 0.0);
+		Assert.assertEquals(forward - 0.02, InterestRateProducts.bachelierCallValue(forward, -0.006, 2.0, 0.02), 0.0);
+		Assert.assertEquals(0.0, InterestRateProducts.bachelierCallValue(forward, -0.006, 2.0, 0.04), 0.0);
+		Assert.assertEquals(forward - 0.02, InterestRateProducts.bachelierCallValue(forward, 0.006, 0.0, 0.02), 0.0);
+		Assert.assertTrue(InterestRateProducts.bachelierCallValue(forward, 0.006, 2.0, 0.04) > 0.0);
+	}
 }
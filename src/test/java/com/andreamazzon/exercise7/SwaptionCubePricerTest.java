@@ -0,0 +1,92 @@
+package com.andreamazzon.exercise7;
+
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+
+import com.andreamazzon.exercise4.Swap;
+import com.andreamazzon.exercise4.SwapWithoutFinmath;
+
+import net.finmath.functions.AnalyticFormulas;
+import net.finmath.time.TimeDiscretization;
+import net.finmath.time.TimeDiscretizationFromArray;
+
+/**
+ * Here we test SwaptionCubePricer: we value a 20 x 20 x 10 cube of swaptions under the Black and the Bachelier models,
+ * and we compare every value with the one computed from a SwapWithoutFinmath on the sub-curve of the swaption and
+ * AnalyticFormulas. For the swaption on the whole curve, we also compare with InterestRateProducts.
+ *
+ * @author Andrea Mazzon
+ *
+ */
+public class SwaptionCubePricerTest {
+
+	@Test
+	void testSwaptionCube() {
+		final double yearFraction = 0.5;
+		final int curveLength = 41;
+		final double[] zeroBondCurve = new double[curveLength];
+		for (int curveIndex = 0; curveIndex < curveLength; curveIndex++) {
+			final double time = yearFraction * (curveIndex + 1);
+			zeroBondCurve[curveIndex] = Math.exp(-(0.01 + 0.001 * time) * time);
+		}
+		final TimeDiscretization swapDates = new TimeDiscretizationFromArray(yearFraction, curveLength - 1, yearFraction);
+
+		final int[] expiryIndices = new int[20];
+		final int[] tenorLengths = new int[20];
+		for (int i = 0; i < 20; i++) {
+			expiryIndices[i] = i;
+			tenorLengths[i] = i + 1;
+		}
+		final double[] strikes = new double[10];
+		for (int k = 0; k < strikes.length; k++) {
+			strikes[k] = 0.005 + 0.005 * k;
+		}
+		final double[][][] blackVolatilities = new double[20][20][strikes.length];
+		final double[][][] bachelierVolatilities = new double[20][20][strikes.length];
+		for (int i = 0; i < 20; i++) {
+			for (int j = 0; j < 20; j++) {
+				for (int k = 0; k < strikes.length; k++) {
+					blackVolatilities[i][j][k] = 0.2 + 0.01 * j + 0.02 * Math.abs(k - 4);
+					bachelierVolatilities[i][j][k] = 0.006 + 0.0001 * i;
+				}
+			}
+		}
+		final double notional = 10000;
+
+		final SwaptionCubePricer pricer = new SwaptionCubePricer(swapDates, zeroBondCurve);
+		final long startTime = System.nanoTime();
+		final double[][][] blackValues = pricer.getBlackValues(expiryIndices, tenorLengths, strikes, blackVolatilities,
+				notional, false);
+		System.out.println("Black cube of 20 x 20 x 10 swaptions: " + (System.nanoTime() - startTime) / 1E6 + " ms");
+		final double[][][] bachelierValues = pricer.getBachelierValues(expiryIndices, tenorLengths, strikes,
+				bachelierVolatilities, notional, true);
+
+		for (int i = 0; i < 20; i++) {
+			final int startIndex = expiryIndices[i];
+			final double exerciseDate = swapDates.getTime(startIndex);
+			for (int j = 0; j < 20; j++) {
+				final double[] subCurve = Arrays.copyOfRange(zeroBondCurve, startIndex,
+						startIndex + tenorLengths[j] + 1);
+				final Swap swap = new SwapWithoutFinmath(yearFraction, subCurve, true);
+				final double parSwapRate = swap.getParSwapRate(yearFraction);
+				final double annuity = (subCurve[0] - subCurve[subCurve.length - 1]) / parSwapRate;
+				for (int k = 0; k < strikes.length; k++) {
+					final double blackValue = notional * annuity * AnalyticFormulas.blackScholesOptionValue(parSwapRate,
+							0, blackVolatilities[i][j][k], exerciseDate, strikes[k]);
+					Assert.assertEquals(blackValue, blackValues[i][j][k], 1E-12 * notional);
+					final double bachelierValue = notional * AnalyticFormulas.bachelierOptionValue(parSwapRate,
+							bachelierVolatilities[i][j][k], exerciseDate, strikes[k], annuity);
+					Assert.assertEquals(bachelierValue, bachelierValues[i][j][k], 1E-12 * notional);
+				}
+			}
+		}
+
+		//the swaption on the whole curve, as in InterestRateProducts
+		final double[][][] valueOnWholeCurve = pricer.getBlackValues(new int[] { 0 }, new int[] { curveLength - 1 },
+				new double[] { 0.02 }, new double[][][] { { { 0.3 } } }, notional, false);
+		Assert.assertEquals(InterestRateProducts.calculateSwaptionValueBlack(zeroBondCurve, yearFraction, 0.02,
+				notional, 0.3), valueOnWholeCurve[0][0][0], 1E-12 * notional);
+	}
+}
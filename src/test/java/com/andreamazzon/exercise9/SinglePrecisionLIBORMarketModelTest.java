@@ -0,0 +1,75 @@
+package com.andreamazzon.exercise9;
+
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+
+import net.finmath.exception.CalculationException;
+import net.finmath.montecarlo.RandomVariableFactory;
+import net.finmath.montecarlo.RandomVariableFloatFactory;
+import net.finmath.montecarlo.RandomVariableFromArrayFactory;
+import net.finmath.montecarlo.interestrate.LIBORMonteCarloSimulationFromLIBORModel;
+import net.finmath.montecarlo.interestrate.TermStructureMonteCarloSimulationModel;
+import net.finmath.montecarlo.interestrate.models.LIBORMarketModelFromCovarianceModel;
+import net.finmath.montecarlo.interestrate.products.Caplet;
+import net.finmath.montecarlo.interestrate.products.TermStructureMonteCarloProduct;
+
+/**
+ * This class checks that the LIBOR market model of LIBORMarketModelConstruction simulated with single precision random
+ * variables gives the same value of a caplet as the one with double precision, up to an error which is much smaller
+ * than the Monte Carlo error. This must hold whatever factory gives the single precision random variables.
+ *
+ * @author Andrea Mazzon
+ *
+ */
+class SinglePrecisionLIBORMarketModelTest {
+
+	private final int numberOfPaths = 20000;
+
+	private final double simulationTimeStep = 0.1;
+	private final double LIBORTimeStep = 0.5;
+	private final double LIBORRateTimeHorizon = 5;
+
+	private final double[] fixingForGivenForwards = { 0.5, 1.0, 2.0, 3.0};
+	private final double[] forwardsForCurve = { 0.05, 0.05, 0.05, 0.05};
+
+	private final double correlationDecayParameter = 0.5;
+	private final double a = 0.2, b = 0.1, c = 0.15, d = 0.3; //volatility structure
+
+	@Test
+	void testCapletWithFloatFactory() throws CalculationException {
+		checkCapletWithSinglePrecision(new RandomVariableFloatFactory());
+	}
+
+	@Test
+	void testCapletWithSinglePrecisionArrayFactory() throws CalculationException {
+		checkCapletWithSinglePrecision(new RandomVariableFromArrayFactory(false));
+	}
+
+	/*
+	 * It compares the caplet value in the model with double precision with the one in the model whose random variables
+	 * are constructed by the given factory, and checks that the latter is a LIBORMarketModelFromCovarianceModel.
+	 */
+	private void checkCapletWithSinglePrecision(RandomVariableFactory singlePrecisionFactory)
+			throws CalculationException {
+		final TermStructureMonteCarloSimulationModel doublePrecisionModel =
+				LIBORMarketModelConstruction.createLIBORMarketModel(numberOfPaths, simulationTimeStep, LIBORTimeStep,
+						LIBORRateTimeHorizon, fixingForGivenForwards, forwardsForCurve, correlationDecayParameter,
+						a, b, c, d);
+
+		final TermStructureMonteCarloSimulationModel singlePrecisionModel =
+				LIBORMarketModelConstruction.createLIBORMarketModel(numberOfPaths, simulationTimeStep, LIBORTimeStep,
+						LIBORRateTimeHorizon, fixingForGivenForwards, forwardsForCurve, correlationDecayParameter,
+						a, b, c, d, singlePrecisionFactory);
+
+		Assert.assertTrue(((LIBORMonteCarloSimulationFromLIBORModel) singlePrecisionModel).getModel()
+				instanceof LIBORMarketModelFromCovarianceModel);
+
+		final TermStructureMonteCarloProduct caplet = new Caplet(4.0, LIBORTimeStep, 0.05);
+
+		final double doublePrecisionValue = caplet.getValue(doublePrecisionModel);
+		final double singlePrecisionValue = caplet.getValue(singlePrecisionModel);
+		final double monteCarloError = caplet.getValue(0.0, doublePrecisionModel).getStandardError();
+
+		Assert.assertEquals(doublePrecisionValue, singlePrecisionValue, 0.01 * monteCarloError);
+	}
+}
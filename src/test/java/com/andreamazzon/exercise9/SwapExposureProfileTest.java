@@ -0,0 +1,101 @@
+package com.andreamazzon.exercise9;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.andreamazzon.exercise4.SwapWithoutFinmath;
+
+import net.finmath.montecarlo.RandomVariableFromDoubleArray;
+import net.finmath.montecarlo.interestrate.LIBORModelMonteCarloSimulationModel;
+import net.finmath.stochastic.RandomVariable;
+
+/**
+ * This class tests SwapExposureProfile. At time zero the value of the swap must be the one computed by
+ * SwapWithoutFinmath from the initial LIBOR curve, and the discounted values at later dates, plus the discounted
+ * payments made up to those dates, must have the same expectation (up to the Monte Carlo error): this also checks that
+ * the values inside the life of the swap do not include the payment of the date. We also check that the expected positive exposure is not smaller than the
+ * discounted expected value.
+ *
+ * @author Andrea Mazzon
+ */
+public class SwapExposureProfileTest {
+
+	@Test
+	public void testExposureProfile() throws Exception {
+		final int numberOfPaths = 20000;
+
+		final double simulationTimeStep = 0.1;
+		final double liborPeriodLength = 0.5;
+		final double liborRateTimeHorizon = 5;
+
+		final double correlationDecayParam = 0.5;
+		final double a = 0.2, b = 0.1, c = 0.15, d = 0.3; //volatility structure
+
+		final double[] fixingForForwards = { 0.5, 1.0, 3.0, 4.0};
+		final double[] forwardsForCurve = { 0.03, 0.035, 0.04, 0.045 };
+
+		final LIBORModelMonteCarloSimulationModel model =
+				LIBORMarketModelConstruction.createLIBORMarketModel(numberOfPaths,
+						simulationTimeStep,
+						liborPeriodLength, liborRateTimeHorizon,
+						fixingForForwards, forwardsForCurve,
+						correlationDecayParam,
+						a, b, c, d);
+
+		//the swap pays from T_1 = 0.5 to T_e = 4
+		final double swapStart = 0.5;
+		final double swapEnd = 4.0;
+		final double fixedRate = 0.04;
+		final double notional = 10000;
+
+		final SwapExposureProfile swap = new SwapExposureProfile(swapStart, swapEnd, fixedRate, notional);
+
+		//at time 0 the value is deterministic, and given by the initial LIBORs L(T_k,T_{k+1};0), k = 0,...,e-1
+		final int numberOfPeriods = (int) Math.round(swapEnd / liborPeriodLength);
+		final double[] initialLibors = new double[numberOfPeriods];
+		for (int periodIndex = 0; periodIndex < numberOfPeriods; periodIndex++) {
+			initialLibors[periodIndex] = model.getLIBOR(0.0, periodIndex * liborPeriodLength,
+					(periodIndex + 1) * liborPeriodLength).getAverage();
+		}
+		final double valueAtZero = notional
+				* new SwapWithoutFinmath(liborPeriodLength, initialLibors, false).getSwapValue(fixedRate);
+		final RandomVariable simulatedValueAtZero = swap.getValue(0.0, model);
+		Assert.assertEquals(valueAtZero, simulatedValueAtZero.getAverage(), 1E-8);
+		Assert.assertEquals(0.0, simulatedValueAtZero.getStandardDeviation(), 1E-8);
+
+		final Map<String, double[]> exposureProfile = swap.getExposureProfile(model, 0.95);
+		final double[] times = exposureProfile.get("times");
+		final double[] expectedPositiveExposure = exposureProfile.get("expectedPositiveExposure");
+		final double[] potentialFutureExposure = exposureProfile.get("potentialFutureExposure");
+		System.out.println("Times: " + Arrays.toString(times));
+		System.out.println("EPE: " + Arrays.toString(expectedPositiveExposure));
+		System.out.println("PFE: " + Arrays.toString(potentialFutureExposure));
+
+		Assert.assertEquals(numberOfPeriods, times.length);
+		//the discounted payments of the swap made up to the current date (included)
+		RandomVariable discountedPayments = new RandomVariableFromDoubleArray(0.0);
+		for (int dateIndex = 0; dateIndex < times.length; dateIndex++) {
+			final RandomVariable discountedValue = swap.getValue(times[dateIndex], model)
+					.div(model.getNumeraire(times[dateIndex])).mult(model.getNumeraire(0.0));
+			if (dateIndex > 0 && times[dateIndex - 1] >= swapStart) {
+				//the period [T_{j-1},T_j] pays N (L(T_{j-1},T_j;T_{j-1}) - K) (T_j - T_{j-1}) at T_j
+				final RandomVariable payment = model.getLIBOR(times[dateIndex - 1], times[dateIndex - 1], times[dateIndex])
+						.sub(fixedRate).mult(notional * (times[dateIndex] - times[dateIndex - 1]));
+				discountedPayments = discountedPayments.add(
+						payment.div(model.getNumeraire(times[dateIndex])).mult(model.getNumeraire(0.0)));
+			}
+			/*
+			 * the value at T_j is ex-coupon, i.e., it does not include the payment at T_j: the discounted value plus
+			 * the discounted payments up to T_j is a martingale, also for the dates inside the life of the swap
+			 */
+			final RandomVariable discountedGain = discountedValue.add(discountedPayments);
+			Assert.assertEquals(valueAtZero, discountedGain.getAverage(),
+					Math.max(4 * discountedGain.getStandardError(), 1E-8));
+			Assert.assertTrue(expectedPositiveExposure[dateIndex] >= discountedValue.getAverage() - 1E-10);
+			Assert.assertTrue(potentialFutureExposure[dateIndex] >= 0.0);
+		}
+	}
+}
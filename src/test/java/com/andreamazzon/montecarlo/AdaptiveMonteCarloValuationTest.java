@@ -0,0 +1,77 @@
+package com.andreamazzon.montecarlo;
+
+import java.text.DecimalFormat;
+
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+
+import net.finmath.exception.CalculationException;
+import net.finmath.functions.AnalyticFormulas;
+import net.finmath.montecarlo.assetderivativevaluation.AssetModelMonteCarloSimulationModel;
+import net.finmath.montecarlo.assetderivativevaluation.MonteCarloBlackScholesModel;
+import net.finmath.montecarlo.assetderivativevaluation.products.EuropeanOption;
+import net.finmath.time.TimeDiscretization;
+import net.finmath.time.TimeDiscretizationFromArray;
+
+/**
+ * This class tests AdaptiveMonteCarloValuation: we value a call option under the Black-Scholes model asking for a
+ * given standard error, and we check that the valuation stops when this error is reached, well before the maximum
+ * number of paths, and that the value is close to the analytic one.
+ *
+ * @author Andrea Mazzon
+ *
+ */
+class AdaptiveMonteCarloValuationTest {
+	static final DecimalFormat FORMATTERPOSITIVE4 = new DecimalFormat("0.0000");
+
+	@Test
+	void testAdaptiveValuationOfCall() throws CalculationException {
+
+		//process parameters
+		final double initialValue = 100.0;
+		final double volatility = 0.25; //the volatility of the underlying
+		final double riskFreeRate = 0;
+
+		//option parameters
+		final double strike = 100.0;
+		final double maturity = 1.0;
+
+		//simulation parameters: number of paths of every batch and maximum number of paths
+		final int batchSize = 10000;
+		final long maximumNumberOfPaths = 500000;
+		final double targetAbsoluteError = 0.05;
+
+		final TimeDiscretization times = new TimeDiscretizationFromArray(0.0, 10, maturity / 10);
+
+		final AssetModelMonteCarloSimulationModel batchModel = new MonteCarloBlackScholesModel(
+				times, batchSize, initialValue, riskFreeRate, volatility);
+		final EuropeanOption europeanOption = new EuropeanOption(maturity, strike);
+
+		final AdaptiveMonteCarloValuation valuation = new AdaptiveMonteCarloValuation(batchModel, targetAbsoluteError,
+				0.0 /*no relative error criterion*/, maximumNumberOfPaths);
+
+		final BatchStatistics statistics = valuation.getStatistics(europeanOption);
+
+		final double analyticValue = AnalyticFormulas.blackScholesOptionValue(
+				initialValue, riskFreeRate, volatility, maturity, strike);
+
+		System.out.println("Adaptive Monte Carlo value: " + FORMATTERPOSITIVE4.format(statistics.getAverage())
+		+ "\n" + "Analytical value: " + FORMATTERPOSITIVE4.format(analyticValue)
+		+ "\n" + "Standard error: " + FORMATTERPOSITIVE4.format(statistics.getStandardError())
+		+ "\n" + "Number of paths: " + statistics.getNumberOfPaths());
+
+		Assert.assertTrue(statistics.getStandardError() <= targetAbsoluteError);
+		Assert.assertTrue(statistics.getNumberOfPaths() < maximumNumberOfPaths);
+		//four standard errors
+		Assert.assertEquals(analyticValue, statistics.getAverage(), 4 * targetAbsoluteError);
+
+		//with a too demanding target, we stop at the maximum number of paths
+		final AdaptiveMonteCarloValuation demandingValuation = new AdaptiveMonteCarloValuation(batchModel, 1E-6,
+				0.0, 50000);
+		Assert.assertEquals(50000, demandingValuation.getStatistics(europeanOption).getNumberOfPaths());
+
+		//a maximum smaller than the batch size caps also the first batch
+		final AdaptiveMonteCarloValuation smallValuation = new AdaptiveMonteCarloValuation(batchModel, 1E-6, 0.0, 2500);
+		Assert.assertEquals(2500, smallValuation.getStatistics(europeanOption).getNumberOfPaths());
+	}
+}
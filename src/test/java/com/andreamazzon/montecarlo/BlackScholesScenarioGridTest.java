@@ -0,0 +1,72 @@
+package com.andreamazzon.montecarlo;
+
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+
+import com.andreamazzon.exercise1.AssetOrNothing;
+
+import net.finmath.exception.CalculationException;
+import net.finmath.montecarlo.BrownianMotion;
+import net.finmath.montecarlo.BrownianMotionFromMersenneRandomNumbers;
+import net.finmath.montecarlo.assetderivativevaluation.MonteCarloBlackScholesModel;
+import net.finmath.montecarlo.assetderivativevaluation.products.EuropeanOption;
+import net.finmath.time.TimeDiscretization;
+import net.finmath.time.TimeDiscretizationFromArray;
+
+/**
+ * This class tests BlackScholesScenarioGrid: the value of a call option for every scenario of the grid must be the same
+ * (up to rounding errors) as the one we get by constructing a new MonteCarloBlackScholesModel with the parameters of the
+ * scenario and the same Brownian motion. The same must hold when the call option and the AssetOrNothing option of
+ * exercise1 are given to the grid as products of the Finmath library.
+ *
+ * @author Andrea Mazzon
+ *
+ */
+class BlackScholesScenarioGridTest {
+
+	@Test
+	void testGridAgainstNewSimulations() throws CalculationException {
+
+		//process parameters
+		final double initialValue = 100.0;
+		final double volatility = 0.25; //the volatility of the underlying
+		final double riskFreeRate = 0.02;
+
+		//option parameters
+		final double strike = 100.0;
+		final double maturity = 1.0;
+
+		final int numberOfPaths = 20000;
+		final TimeDiscretization times = new TimeDiscretizationFromArray(0.0, 10, maturity / 10);
+		final BrownianMotion brownianMotion = new BrownianMotionFromMersenneRandomNumbers(times, 1, numberOfPaths, 1897);
+
+		final MonteCarloBlackScholesModel baseModel = new MonteCarloBlackScholesModel(initialValue, riskFreeRate,
+				volatility, brownianMotion);
+
+		final BlackScholesScenarioGrid grid = new BlackScholesScenarioGrid(baseModel, maturity);
+
+		final double[] initialValues = {80.0, 100.0, 120.0};
+		final double[] volatilities = {0.1, 0.25, 0.4};
+
+		final double[][] values = grid.getValues(x -> Math.max(x - strike, 0.0), initialValues, volatilities);
+
+		final EuropeanOption europeanOption = new EuropeanOption(maturity, strike);
+		final AssetOrNothing assetOrNothing = new AssetOrNothing(maturity, strike);
+		final double[][] valuesOfProduct = grid.getValues(europeanOption, initialValues, volatilities);
+		final double[][] valuesOfAssetOrNothing = grid.getValues(assetOrNothing, initialValues, volatilities);
+		for (int i = 0; i < initialValues.length; i++) {
+			for (int j = 0; j < volatilities.length; j++) {
+				final double valueWithNewSimulation = europeanOption.getValue(new MonteCarloBlackScholesModel(
+						initialValues[i], riskFreeRate, volatilities[j], brownianMotion));
+				System.out.println("S(0) = " + initialValues[i] + ", sigma = " + volatilities[j] + ": grid " + values[i][j]
+						+ ", new simulation " + valueWithNewSimulation);
+				Assert.assertEquals(valueWithNewSimulation, values[i][j], 1E-8);
+				Assert.assertEquals(valueWithNewSimulation, valuesOfProduct[i][j], 1E-8);
+
+				final double assetOrNothingWithNewSimulation = assetOrNothing.getValue(new MonteCarloBlackScholesModel(
+						initialValues[i], riskFreeRate, volatilities[j], brownianMotion));
+				Assert.assertEquals(assetOrNothingWithNewSimulation, valuesOfAssetOrNothing[i][j], 1E-8);
+			}
+		}
+	}
+}
@@ -0,0 +1,80 @@
+package com.andreamazzon.montecarlo;
+
+import java.text.DecimalFormat;
+
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+
+import net.finmath.exception.CalculationException;
+import net.finmath.functions.AnalyticFormulas;
+import net.finmath.montecarlo.assetderivativevaluation.products.EuropeanOption;
+import net.finmath.time.TimeDiscretization;
+import net.finmath.time.TimeDiscretizationFromArray;
+
+/**
+ * This class tests BlockedMonteCarloBlackScholesValuation: we value a call option with many paths split in small blocks
+ * and compare the value with the analytic one. We also check that valuing the blocks in two separate groups and merging
+ * the statistics gives the same result, and that the fused evolution of the blocks gives the same value as the block
+ * models.
+ *
+ * @author Andrea Mazzon
+ *
+ */
+class BlockedMonteCarloBlackScholesValuationTest {
+	static final DecimalFormat FORMATTERPOSITIVE4 = new DecimalFormat("0.0000");
+
+	@Test
+	void testBlockedValuationOfCall() throws CalculationException {
+
+		//process parameters
+		final double initialValue = 100.0;
+		final double volatility = 0.25; //the volatility of the underlying
+		final double riskFreeRate = 0.01;
+
+		//option parameters
+		final double strike = 100.0;
+		final double maturity = 1.0;
+
+		//simulation parameters
+		final long numberOfPaths = 200000;
+		final int blockSize = 4096;//the last block is smaller
+
+		final int numberOfTimeSteps = 50;
+		final TimeDiscretization times = new TimeDiscretizationFromArray(0.0, numberOfTimeSteps, maturity / numberOfTimeSteps);
+
+		final BlockedMonteCarloBlackScholesValuation valuation = new BlockedMonteCarloBlackScholesValuation(
+				times, numberOfPaths, blockSize, initialValue, riskFreeRate, volatility);
+		final EuropeanOption europeanOption = new EuropeanOption(maturity, strike);
+
+		final BatchStatistics statistics = valuation.getStatistics(europeanOption);
+
+		final double analyticValue = AnalyticFormulas.blackScholesOptionValue(
+				initialValue, riskFreeRate, volatility, maturity, strike);
+
+		System.out.println("Blocked Monte Carlo value: " + FORMATTERPOSITIVE4.format(statistics.getAverage())
+		+ "\n" + "Analytical value: " + FORMATTERPOSITIVE4.format(analyticValue)
+		+ "\n" + "Standard error: " + FORMATTERPOSITIVE4.format(statistics.getStandardError())
+		+ "\n" + "Number of blocks: " + valuation.getNumberOfBlocks());
+
+		Assert.assertEquals(numberOfPaths, statistics.getNumberOfPaths());
+		//four standard errors
+		Assert.assertEquals(analyticValue, statistics.getAverage(), 4 * statistics.getStandardError());
+
+		//the blocks can be valued separately and then merged
+		final int middleBlock = valuation.getNumberOfBlocks() / 2;
+		final BatchStatistics firstHalf = valuation.getStatistics(europeanOption, 0, middleBlock);
+		final BatchStatistics secondHalf = valuation.getStatistics(europeanOption, middleBlock, valuation.getNumberOfBlocks());
+		final BatchStatistics merged = new BatchStatistics();
+		merged.addBatch(firstHalf.getNumberOfPaths(), firstHalf.getAverage(), firstHalf.getVariance() * (firstHalf.getNumberOfPaths() - 1));
+		merged.addBatch(secondHalf.getNumberOfPaths(), secondHalf.getAverage(), secondHalf.getVariance() * (secondHalf.getNumberOfPaths() - 1));
+
+		Assert.assertEquals(statistics.getAverage(), merged.getAverage(), 1E-12);
+		Assert.assertEquals(statistics.getStandardError(), merged.getStandardError(), 1E-12);
+
+		//the fused evolution of the blocks simulates the same paths as the block models
+		final BatchStatistics fusedStatistics = valuation.getStatistics(x -> Math.max(x - strike, 0.0), maturity);
+		Assert.assertEquals(numberOfPaths, fusedStatistics.getNumberOfPaths());
+		Assert.assertEquals(statistics.getAverage(), fusedStatistics.getAverage(), 1E-10);
+		Assert.assertEquals(statistics.getStandardError(), fusedStatistics.getStandardError(), 1E-10);
+	}
+}
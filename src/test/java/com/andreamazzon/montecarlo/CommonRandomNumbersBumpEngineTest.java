@@ -0,0 +1,83 @@
+package com.andreamazzon.montecarlo;
+
+import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+
+import net.finmath.exception.CalculationException;
+import net.finmath.functions.AnalyticFormulas;
+import net.finmath.montecarlo.BrownianMotion;
+import net.finmath.montecarlo.BrownianMotionFromMersenneRandomNumbers;
+import net.finmath.montecarlo.assetderivativevaluation.MonteCarloBlackScholesModel;
+import net.finmath.montecarlo.assetderivativevaluation.products.EuropeanOption;
+import net.finmath.time.TimeDiscretization;
+import net.finmath.time.TimeDiscretizationFromArray;
+
+/**
+ * This class tests CommonRandomNumbersBumpEngine: the delta and the vega of a call option computed by central finite
+ * differences with common random numbers are compared with the analytic ones, and the values of the bumped scenarios
+ * are compared with the ones of a model constructed from scratch with the same Brownian motion.
+ *
+ * @author Andrea Mazzon
+ *
+ */
+class CommonRandomNumbersBumpEngineTest {
+	static final DecimalFormat FORMATTERPOSITIVE4 = new DecimalFormat("0.0000");
+
+	@Test
+	void testFiniteDifferencesWithCommonRandomNumbers() throws CalculationException {
+
+		//process parameters
+		final double initialValue = 100.0;
+		final double volatility = 0.25; //the volatility of the underlying
+		final double riskFreeRate = 0;
+
+		//option parameters
+		final double strike = 100.0;
+		final double maturity = 1.0;
+
+		final int numberOfPaths = 100000;
+		final TimeDiscretization times = new TimeDiscretizationFromArray(0.0, 10, maturity / 10);
+
+		final BrownianMotion brownianMotion = new BrownianMotionFromMersenneRandomNumbers(times, 1, numberOfPaths, 1897);
+
+		final CommonRandomNumbersBumpEngine engine = new CommonRandomNumbersBumpEngine(initialValue, riskFreeRate,
+				volatility, brownianMotion);
+		final EuropeanOption europeanOption = new EuropeanOption(maturity, strike);
+
+		final double delta = engine.getCentralFiniteDifference(europeanOption, "initialValue", 1.0);
+		final double vega = engine.getCentralFiniteDifference(europeanOption, "volatility", 0.01);
+
+		final double analyticDelta = AnalyticFormulas.blackScholesOptionDelta(initialValue, riskFreeRate, volatility,
+				maturity, strike);
+		final double analyticVega = AnalyticFormulas.blackScholesOptionVega(initialValue, riskFreeRate, volatility,
+				maturity, strike);
+
+		System.out.println("Delta: finite differences " + FORMATTERPOSITIVE4.format(delta)
+		+ ", analytic " + FORMATTERPOSITIVE4.format(analyticDelta));
+		System.out.println("Vega: finite differences " + FORMATTERPOSITIVE4.format(vega)
+		+ ", analytic " + FORMATTERPOSITIVE4.format(analyticVega));
+
+		Assert.assertEquals(analyticDelta, delta, 0.01 * analyticDelta);
+		Assert.assertEquals(analyticVega, vega, 0.02 * analyticVega);
+
+		//a bumped scenario must be the same as a model constructed from scratch with the same Brownian motion
+		final List<Map<String, Object>> bumps = new ArrayList<>();
+		bumps.add(new HashMap<>());//the base scenario
+		final Map<String, Object> higherInitialValue = new HashMap<>();
+		higherInitialValue.put("initialValue", initialValue + 10);
+		bumps.add(higherInitialValue);
+
+		final double[] values = engine.getValues(europeanOption, bumps);
+
+		Assert.assertEquals(engine.getValue(europeanOption), values[0], 0.0);
+		Assert.assertEquals(europeanOption.getValue(
+				new MonteCarloBlackScholesModel(initialValue + 10, riskFreeRate, volatility, brownianMotion)),
+				values[1], 1E-12);
+	}
+}
@@ -0,0 +1,51 @@
+package com.andreamazzon.montecarlo;
+
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+
+import net.finmath.exception.CalculationException;
+import net.finmath.montecarlo.interestrate.products.Caplet;
+
+/**
+ * This class tests ShardedLIBORMarketModelValuation: the value of a caplet computed by three worker processes must be
+ * exactly the same as the one computed by BlockedLIBORMarketModelValuation in this process.
+ *
+ * @author Andrea Mazzon
+ *
+ */
+class ShardedLIBORMarketModelValuationTest {
+
+	@Test
+	void testShardedValuationIsExact() throws CalculationException {
+
+		final long numberOfPaths = 5000;
+		final int blockSize = 1200;//the last block is smaller
+
+		final double simulationTimeStep = 0.1;
+		final double LIBORPeriodLength = 0.5;
+		final double LIBORRateTimeHorizon = 5;
+
+		final double[] fixingForGivenForwards = { 0.5, 1.0, 2.0, 3.0};
+		final double[] givenForwards = { 0.05, 0.05, 0.05, 0.05};
+
+		final double correlationDecayParameter = 0.5;
+		final double a = 0.2, b = 0.1, c = 0.15, d = 0.3; //volatility structure
+
+		final double maturity = 2.0;
+		final double strike = 0.05;
+
+		final BlockedLIBORMarketModelValuation valuation = new BlockedLIBORMarketModelValuation(numberOfPaths,
+				blockSize, simulationTimeStep, LIBORPeriodLength, LIBORRateTimeHorizon, fixingForGivenForwards, givenForwards,
+				correlationDecayParameter, a, b, c, d, 1897);
+		final ShardedLIBORMarketModelValuation shardedValuation = new ShardedLIBORMarketModelValuation(valuation, 3);
+
+		final BatchStatistics singleProcessStatistics =
+				valuation.getStatistics(new Caplet(maturity, LIBORPeriodLength, strike));
+		final BatchStatistics shardedStatistics =
+				shardedValuation.getStatistics(Caplet.class, maturity, LIBORPeriodLength, strike);
+
+		Assert.assertEquals(numberOfPaths, shardedStatistics.getNumberOfPaths());
+		Assert.assertEquals(singleProcessStatistics.getAverage(), shardedStatistics.getAverage(), 0.0);
+		Assert.assertEquals(singleProcessStatistics.getStandardError(), shardedStatistics.getStandardError(), 0.0);
+	}
+}
@@ -0,0 +1,65 @@
+package com.andreamazzon.montecarlo;
+
+import org.junit.Assert;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import net.finmath.exception.CalculationException;
+import net.finmath.montecarlo.assetderivativevaluation.products.EuropeanOption;
+import net.finmath.time.TimeDiscretization;
+import net.finmath.time.TimeDiscretizationFromArray;
+
+/**
+ * This class tests ShardedMonteCarloBlackScholesValuation: the value of a call option computed by three worker
+ * processes must be exactly the same as the one computed by BlockedMonteCarloBlackScholesValuation in this process,
+ * and the valuation must fail when the workers do not finish within the timeout.
+ *
+ * @author Andrea Mazzon
+ *
+ */
+class ShardedMonteCarloBlackScholesValuationTest {
+
+	@Test
+	void testShardedValuationIsExact() throws CalculationException {
+
+		final double initialValue = 100.0;
+		final double volatility = 0.25;
+		final double riskFreeRate = 0.01;
+
+		final double strike = 100.0;
+		final double maturity = 1.0;
+
+		final long numberOfPaths = 50000;
+		final int blockSize = 4096;//the last block is smaller
+
+		final TimeDiscretization times = new TimeDiscretizationFromArray(0.0, 20, maturity / 20);
+
+		final BlockedMonteCarloBlackScholesValuation valuation = new BlockedMonteCarloBlackScholesValuation(
+				times, numberOfPaths, blockSize, initialValue, riskFreeRate, volatility);
+		final ShardedMonteCarloBlackScholesValuation shardedValuation =
+				new ShardedMonteCarloBlackScholesValuation(valuation, 3);
+
+		final BatchStatistics singleProcessStatistics = valuation.getStatistics(new EuropeanOption(maturity, strike));
+		final BatchStatistics shardedStatistics = shardedValuation.getStatistics(EuropeanOption.class, maturity, strike);
+
+		System.out.println("Single process value: " + singleProcessStatistics.getAverage()
+		+ "\n" + "Sharded value: " + shardedStatistics.getAverage());
+
+		Assert.assertEquals(singleProcessStatistics.getNumberOfPaths(), shardedStatistics.getNumberOfPaths());
+		Assert.assertEquals(singleProcessStatistics.getAverage(), shardedStatistics.getAverage(), 0.0);
+		Assert.assertEquals(singleProcessStatistics.getStandardError(), shardedStatistics.getStandardError(), 0.0);
+	}
+
+	@Test
+	void testWorkersAreKilledAfterTheTimeout() {
+		final TimeDiscretization times = new TimeDiscretizationFromArray(0.0, 20, 0.05);
+		final BlockedMonteCarloBlackScholesValuation valuation = new BlockedMonteCarloBlackScholesValuation(
+				times, 1000000, 4096, 100.0, 0.01, 0.25);
+		//no worker can start a JVM and simulate a million paths in no time
+		final ShardedMonteCarloBlackScholesValuation shardedValuation =
+				new ShardedMonteCarloBlackScholesValuation(valuation, 2, 0);
+
+		Assertions.assertThrows(CalculationException.class,
+				() -> shardedValuation.getStatistics(EuropeanOption.class, 1.0, 100.0));
+	}
+}
@@ -0,0 +1,45 @@
+package com.andreamazzon.recap;
+
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+
+import net.finmath.time.TimeDiscretization;
+import net.finmath.time.TimeDiscretizationFromArray;
+
+/**
+ * This test class checks the moments computed by StreamingBrownianDiagnostics against their theoretical values:
+ * W_1(t) has mean 0 and variance t, the quadratic variation of W_1 has mean t and variance 2 t dt (it is the sum of
+ * t / dt squared increments, each one with variance 2 dt^2), and the quadratic covariation of W_1 and W_2 has mean 0 and
+ * variance approximately equal to t dt.
+ *
+ * @author Andrea Mazzon
+ *
+ */
+class StreamingBrownianDiagnosticsTest {
+
+	@Test
+	void testMoments() {
+		final double dt = 0.01;
+		final TimeDiscretization timeDiscretization = new TimeDiscretizationFromArray(0.0, 100, dt);
+
+		final int numberOfPaths = 100000;
+
+		final double[][] moments = new StreamingBrownianDiagnostics(timeDiscretization, numberOfPaths, 1897)
+				.getMomentsTable();
+
+		Assert.assertEquals(timeDiscretization.getNumberOfTimeSteps(), moments.length);
+
+		final double tolerance = 0.02;
+		for (final double[] row : moments) {
+			final double time = row[0];
+			Assert.assertEquals(0.0, row[1], tolerance);//mean of W_1
+			Assert.assertEquals(time, row[2], tolerance);//variance of W_1
+			Assert.assertEquals(time, row[3], tolerance);//mean of the quadratic variation
+			Assert.assertEquals(2 * time * dt, row[4], 0.05 * 2 * time * dt);//variance of the quadratic variation
+			Assert.assertEquals(0.0, row[5], tolerance);//mean of the quadratic covariation
+			Assert.assertEquals(time * dt, row[6], tolerance * dt);//variance of the quadratic covariation
+		}
+		System.out.println("Time " + moments[moments.length - 1][0] + ": variance of W_1 " + moments[moments.length - 1][2]
+				+ ", mean of the quadratic variation " + moments[moments.length - 1][3]);
+	}
+}
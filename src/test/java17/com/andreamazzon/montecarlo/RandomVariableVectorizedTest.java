@@ -0,0 +1,149 @@
+package com.andreamazzon.montecarlo;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+
+import com.andreamazzon.exercise11.LIBORMarketModelConstructionWithDynamicsAndMeasureSpecification;
+import com.andreamazzon.exercise11.LIBORMarketModelConstructionWithDynamicsAndMeasureSpecification.Dynamics;
+import com.andreamazzon.exercise11.LIBORMarketModelConstructionWithDynamicsAndMeasureSpecification.Measure;
+
+import net.finmath.exception.CalculationException;
+import net.finmath.montecarlo.RandomVariableFromDoubleArray;
+import net.finmath.montecarlo.interestrate.TermStructureMonteCarloSimulationModel;
+import net.finmath.montecarlo.interestrate.products.Caplet;
+import net.finmath.montecarlo.interestrate.products.TermStructureMonteCarloProduct;
+import net.finmath.stochastic.RandomVariable;
+
+/**
+ * This class tests RandomVariableVectorized: every vectorized operation must give the same realizations as the one of
+ * RandomVariableFromDoubleArray (up to one unit in the last place for exp, expm1, log, pow, sin and cos), also for a
+ * number of realizations which is not a multiple of the length of the vectors, and a LIBOR market model simulated
+ * with RandomVariableVectorizedFactory must give the same value of a caplet as the one with
+ * RandomVariableFromArrayFactory.
+ *
+ * @author Andrea Mazzon
+ *
+ */
+class RandomVariableVectorizedTest {
+
+	@Test
+	void testOperations() {
+		final int size = 1003;
+		final Random random = new Random(1897);
+		final double[] x = new double[size];
+		final double[] y = new double[size];
+		final double[] z = new double[size];
+		for (int i = 0; i < size; i++) {
+			x[i] = random.nextGaussian();
+			y[i] = 0.5 + random.nextDouble();
+			z[i] = random.nextGaussian();
+		}
+		final RandomVariable vectorizedX = new RandomVariableVectorized(1.0, x);
+		final RandomVariable vectorizedY = new RandomVariableVectorized(1.0, y);
+		final RandomVariable vectorizedZ = new RandomVariableVectorized(2.0, z);
+		final RandomVariable scalarX = new RandomVariableFromDoubleArray(1.0, x);
+		final RandomVariable scalarY = new RandomVariableFromDoubleArray(1.0, y);
+		final RandomVariable scalarZ = new RandomVariableFromDoubleArray(2.0, z);
+		final RandomVariable constant = new RandomVariableVectorized(0.0, 0.3);
+
+		assertEqualRealizations(scalarX.add(scalarY), vectorizedX.add(vectorizedY), 0.0);
+		assertEqualRealizations(scalarX.sub(scalarY), vectorizedX.sub(vectorizedY), 0.0);
+		assertEqualRealizations(scalarX.mult(scalarY), vectorizedX.mult(vectorizedY), 0.0);
+		assertEqualRealizations(scalarX.div(scalarY), vectorizedX.div(vectorizedY), 0.0);
+		assertEqualRealizations(scalarX.cap(scalarZ), vectorizedX.cap(vectorizedZ), 0.0);
+		assertEqualRealizations(scalarX.floor(scalarZ), vectorizedX.floor(vectorizedZ), 0.0);
+		assertEqualRealizations(scalarX.mult(scalarY), vectorizedX.mult(scalarY), 0.0);
+		assertEqualRealizations(scalarX.mult(0.3), vectorizedX.mult(constant), 0.0);
+		assertEqualRealizations(new RandomVariableFromDoubleArray(0.0, 0.3).div(scalarY), constant.div(vectorizedY), 0.0);
+		//operations called on a RandomVariableFromDoubleArray are delegated to the vectorized argument
+		assertEqualRealizations(scalarY.sub(scalarX), scalarY.sub(vectorizedX), 0.0);
+		assertEqualRealizations(scalarY.div(scalarX), scalarY.div(vectorizedX), 0.0);
+		Assert.assertTrue(scalarY.sub(vectorizedX) instanceof RandomVariableVectorized);
+
+		assertEqualRealizations(scalarX.add(0.3), vectorizedX.add(0.3), 0.0);
+		assertEqualRealizations(scalarX.sub(0.3), vectorizedX.sub(0.3), 0.0);
+		assertEqualRealizations(scalarX.mult(0.3), vectorizedX.mult(0.3), 0.0);
+		assertEqualRealizations(scalarX.div(0.3), vectorizedX.div(0.3), 0.0);
+		assertEqualRealizations(scalarX.cap(0.3), vectorizedX.cap(0.3), 0.0);
+		assertEqualRealizations(scalarX.floor(0.3), vectorizedX.floor(0.3), 0.0);
+
+		assertEqualRealizations(scalarX.addProduct(scalarY, 0.3), vectorizedX.addProduct(vectorizedY, 0.3), 0.0);
+		assertEqualRealizations(scalarX.addProduct(scalarY, scalarZ), vectorizedX.addProduct(vectorizedY, vectorizedZ), 0.0);
+		assertEqualRealizations(scalarX.discount(scalarY, 0.5), vectorizedX.discount(vectorizedY, 0.5), 0.0);
+		assertEqualRealizations(scalarX.choose(scalarY, scalarZ), vectorizedX.choose(vectorizedY, vectorizedZ), 0.0);
+
+		assertEqualRealizations(scalarX.bus(0.3), vectorizedX.bus(0.3), 0.0);
+		assertEqualRealizations(scalarX.vid(0.3), vectorizedX.vid(0.3), 0.0);
+		assertEqualRealizations(scalarX.squared(), vectorizedX.squared(), 0.0);
+		assertEqualRealizations(scalarY.sqrt(), vectorizedY.sqrt(), 0.0);
+		assertEqualRealizations(scalarX.invert(), vectorizedX.invert(), 0.0);
+		assertEqualRealizations(scalarX.abs(), vectorizedX.abs(), 0.0);
+
+		assertEqualRealizations(scalarX.exp(), vectorizedX.exp(), 1E-15);
+		assertEqualRealizations(scalarX.expm1(), vectorizedX.expm1(), 1E-15);
+		assertEqualRealizations(scalarY.log(), vectorizedY.log(), 1E-15);
+		assertEqualRealizations(scalarY.pow(1.7), vectorizedY.pow(1.7), 1E-15);
+		assertEqualRealizations(scalarX.sin(), vectorizedX.sin(), 1E-15);
+		assertEqualRealizations(scalarX.cos(), vectorizedX.cos(), 1E-15);
+
+		//the operations which are not vectorized give results of this type as well
+		assertEqualRealizations(scalarX.apply(Math::atan), vectorizedX.apply(Math::atan), 0.0);
+		Assert.assertTrue(vectorizedX.apply(Math::atan) instanceof RandomVariableVectorized);
+		Assert.assertTrue(vectorizedX.accrue(vectorizedY, 0.5) instanceof RandomVariableVectorized);
+		Assert.assertTrue(vectorizedX.addRatio(vectorizedY, vectorizedZ) instanceof RandomVariableVectorized);
+		Assert.assertTrue(vectorizedX.isNaN() instanceof RandomVariableVectorized);
+
+		Assert.assertEquals(scalarX.getAverage(), vectorizedX.getAverage(), 1E-15);
+		Assert.assertEquals(2.0, vectorizedZ.add(vectorizedX).getFiltrationTime(), 0.0);
+		//the results stay vectorized
+		Assert.assertTrue(vectorizedX.mult(vectorizedY).exp().add(0.3) instanceof RandomVariableVectorized);
+	}
+
+	@Test
+	void testCapletWithVectorizedRandomVariables() throws CalculationException {
+		final int numberOfPaths = 20000;
+
+		final double simulationTimeStep = 0.1;
+		final double LIBORTimeStep = 0.5;
+		final double LIBORRateTimeHorizon = 5;
+
+		final double[] fixingForGivenForwards = { 0.5, 1.0, 2.0, 3.0};
+		final double[] forwardsForCurve = { 0.05, 0.05, 0.05, 0.05};
+
+		final double correlationDecayParameter = 0.5;
+		final double a = 0.2, b = 0.1, c = 0.15, d = 0.3; //volatility structure
+
+		final TermStructureMonteCarloSimulationModel scalarModel =
+				LIBORMarketModelConstructionWithDynamicsAndMeasureSpecification.createLIBORMarketModel(
+						numberOfPaths, simulationTimeStep, LIBORTimeStep, LIBORRateTimeHorizon,
+						fixingForGivenForwards, forwardsForCurve, correlationDecayParameter,
+						Dynamics.LOGNORMAL, Measure.SPOT, a, b, c, d);
+
+		final TermStructureMonteCarloSimulationModel vectorizedModel =
+				LIBORMarketModelConstructionWithDynamicsAndMeasureSpecification.createLIBORMarketModel(
+						numberOfPaths, simulationTimeStep, LIBORTimeStep, LIBORRateTimeHorizon,
+						fixingForGivenForwards, forwardsForCurve, correlationDecayParameter,
+						Dynamics.LOGNORMAL, Measure.SPOT, a, b, c, d, new RandomVariableVectorizedFactory());
+
+		final TermStructureMonteCarloProduct caplet = new Caplet(4.0, LIBORTimeStep, 0.05);
+
+		final double scalarValue = caplet.getValue(scalarModel);
+		final double vectorizedValue = caplet.getValue(vectorizedModel);
+
+		System.out.println("Caplet value with scalar operations " + scalarValue
+				+ ", with vectorized operations " + vectorizedValue);
+
+		Assert.assertEquals(scalarValue, vectorizedValue, 1E-12);
+		//the simulated LIBORs are computed with the vectorized operations
+		Assert.assertTrue(vectorizedModel.getLIBOR(4.0, 4.0, 4.5) instanceof RandomVariableVectorized);
+	}
+
+	private static void assertEqualRealizations(RandomVariable expected, RandomVariable actual, double relativeTolerance) {
+		Assert.assertEquals(expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); i++) {
+			Assert.assertEquals(expected.get(i), actual.get(i), relativeTolerance * Math.abs(expected.get(i)));
+		}
+	}
+}